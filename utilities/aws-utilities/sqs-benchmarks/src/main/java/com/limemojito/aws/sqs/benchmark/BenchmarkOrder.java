@@ -0,0 +1,62 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A representative event body of about half a kilobyte of JSON.
+ *
+ * @param orderId order identifier.
+ * @param account account identifier.
+ * @param created when the order was placed.
+ * @param total   order total.
+ * @param lines   order lines.
+ */
+public record BenchmarkOrder(String orderId, String account, Instant created, BigDecimal total, List<Line> lines) {
+
+    /**
+     * An order line.
+     *
+     * @param sku      stock keeping unit.
+     * @param quantity units ordered.
+     * @param price    unit price.
+     */
+    public record Line(String sku, int quantity, BigDecimal price) {
+    }
+
+    /**
+     * Creates an order with a handful of lines.
+     *
+     * @param index distinguishes orders.
+     * @return the order.
+     */
+    public static BenchmarkOrder of(int index) {
+        final List<Line> lines = List.of(new Line("SKU-0001-RED", 2, new BigDecimal("19.95")),
+                                         new Line("SKU-0002-BLUE", 1, new BigDecimal("4.50")),
+                                         new Line("SKU-0003-GREEN", 5, new BigDecimal("1.25")),
+                                         new Line("SKU-0004-BLACK", 1, new BigDecimal("120.00")));
+        return new BenchmarkOrder("order-" + index,
+                                  "account-" + (index % 100),
+                                  Instant.ofEpochMilli(1_700_000_000_000L + index),
+                                  new BigDecimal("170.65"),
+                                  lines);
+    }
+}
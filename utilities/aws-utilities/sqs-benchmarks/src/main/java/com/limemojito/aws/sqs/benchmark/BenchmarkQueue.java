@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.benchmark;
+
+import com.limemojito.test.sqs.InMemorySqsClient;
+import software.amazon.awssdk.services.sqs.SqsClient;
+
+import static software.amazon.awssdk.services.sqs.model.QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES;
+
+/**
+ * A queue on an {@link InMemorySqsClient}, so benchmarks send through the same client the tests use without I/O.  The
+ * client keeps every message sent, so benchmarks drain the queue after each iteration to keep the heap, and the GC
+ * profiler's figures, from growing with the run.
+ */
+class BenchmarkQueue {
+    private final InMemorySqsClient sqs;
+    private final String url;
+    private long sent;
+
+    /**
+     * Creates the queue.
+     *
+     * @param name queue name.
+     */
+    BenchmarkQueue(String name) {
+        this.sqs = new InMemorySqsClient();
+        this.url = sqs.createQueue(r -> r.queueName(name)).queueUrl();
+    }
+
+    SqsClient getSqs() {
+        return sqs;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    /**
+     * Purges the queue, counting the messages it held.
+     */
+    void drain() {
+        final String depth = sqs.getQueueAttributes(r -> r.queueUrl(url).attributeNames(APPROXIMATE_NUMBER_OF_MESSAGES))
+                                .attributes()
+                                .get(APPROXIMATE_NUMBER_OF_MESSAGES);
+        sent += Long.parseLong(depth);
+        sqs.purgeQueue(r -> r.queueUrl(url));
+    }
+
+    /**
+     * Drains the queue and checks messages reached it, so a benchmark can check its sends were not optimised away.
+     *
+     * @throws IllegalStateException if no message was sent.
+     */
+    void assertSent() {
+        drain();
+        if (sent == 0) {
+            throw new IllegalStateException("No messages reached " + url);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.benchmark;
+
+import com.limemojito.aws.sqs.SqsEncodedMessage;
+import com.limemojito.aws.sqs.SqsQueue;
+import com.limemojito.aws.sqs.SqsRequestFactory;
+import com.limemojito.json.JsonMapperPrototype;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.limemojito.aws.sqs.SqsSender.ATTRIBUTE_MESSAGE_DEDUPLICATION_ID;
+import static com.limemojito.aws.sqs.SqsSender.ATTRIBUTE_MESSAGE_GROUP_ID;
+
+/**
+ * Breaks the cost of encoding a message into its parts: JSON encoding of the body, construction of the standard
+ * attribute map from an already encoded body, and the two together.  Run with {@code -prof gc} to see the bytes
+ * allocated per message by each part.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqsEncodeBenchmark {
+    private final SqsQueue standard = SqsQueue.fromUrl("https://sqs.local/000000000000/orders");
+    private final SqsQueue fifo = SqsQueue.fromUrl("https://sqs.local/000000000000/orders.fifo");
+    private final Map<String, Object> fifoAttributes = Map.of(ATTRIBUTE_MESSAGE_GROUP_ID,
+                                                              "account-1",
+                                                              ATTRIBUTE_MESSAGE_DEDUPLICATION_ID,
+                                                              "order-1");
+    private JsonMapper jsonMapper;
+    private SqsRequestFactory requestFactory;
+    private BenchmarkOrder order;
+    private String json;
+
+    /**
+     * Builds the factory and a pre-encoded body.
+     */
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapperPrototype.buildBootLikeMapper();
+        requestFactory = new SqsRequestFactory(jsonMapper);
+        order = BenchmarkOrder.of(1);
+        json = jsonMapper.writeValueAsString(order);
+    }
+
+    /**
+     * JSON encoding of the body alone.
+     *
+     * @return the body.
+     */
+    @Benchmark
+    public String json() {
+        return jsonMapper.writeValueAsString(order);
+    }
+
+    /**
+     * Standard attributes for an already encoded body, the attribute map construction of every send.
+     *
+     * @return the encoded message.
+     */
+    @Benchmark
+    public SqsEncodedMessage attributes() {
+        return requestFactory.encodeJson(standard, json, null);
+    }
+
+    /**
+     * Standard attributes for an already encoded body with FIFO headers to strip out.
+     *
+     * @return the encoded message.
+     */
+    @Benchmark
+    public SqsEncodedMessage fifoAttributes() {
+        return requestFactory.encodeJson(fifo, json, fifoAttributes);
+    }
+
+    /**
+     * The full encode made for every message sent.
+     *
+     * @return the encoded message.
+     */
+    @Benchmark
+    public SqsEncodedMessage encode() {
+        return requestFactory.encode(standard, order, null);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.benchmark;
+
+import com.limemojito.aws.sqs.SqsSender;
+import com.limemojito.aws.sqs.pump.SqsPump;
+import com.limemojito.aws.sqs.pump.SqsPumpSettings;
+import com.limemojito.json.JsonMapperPrototype;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link SqsPump} with several producer threads sharing one destination, where full batches are sent by
+ * whichever producer fills them, and the cost of an explicit flush of a partly filled batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqsPumpBenchmark {
+    private static final int FLUSH_BATCH = 5;
+    private BenchmarkQueue queue;
+    private String queueUrl;
+    private SqsPump pump;
+    private BenchmarkOrder order;
+
+    /**
+     * Builds the pump.
+     */
+    @Setup
+    public void setUp() {
+        queue = new BenchmarkQueue("orders");
+        queueUrl = queue.getUrl();
+        final SqsSender sender = new SqsSender(queue.getSqs(), JsonMapperPrototype.buildBootLikeMapper());
+        pump = new SqsPump(sender, SqsPumpSettings.builder().maxBatchSize(10).build());
+        order = BenchmarkOrder.of(1);
+        sender.resolve(queueUrl);
+    }
+
+    /**
+     * Empties the queue between iterations.
+     */
+    @TearDown(Level.Iteration)
+    public void drain() {
+        queue.drain();
+    }
+
+    /**
+     * Flushes and stops the pump.
+     */
+    @TearDown
+    public void tearDown() {
+        pump.close();
+        queue.assertSent();
+    }
+
+    /**
+     * Messages sent per second by four producers.
+     */
+    @Benchmark
+    @Threads(4)
+    public void send() {
+        pump.send(queueUrl, order);
+    }
+
+    /**
+     * A partial batch sent and flushed by a single producer.  Throughput is in messages.
+     */
+    @Benchmark
+    @OperationsPerInvocation(FLUSH_BATCH)
+    public void sendAndFlush() {
+        for (int i = 0; i < FLUSH_BATCH; i++) {
+            pump.send(queueUrl, order);
+        }
+        pump.flush(queueUrl);
+    }
+}
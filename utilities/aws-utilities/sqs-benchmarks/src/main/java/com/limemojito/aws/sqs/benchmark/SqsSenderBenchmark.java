@@ -0,0 +1,97 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.benchmark;
+
+import com.limemojito.aws.sqs.SqsSender;
+import com.limemojito.json.JsonMapperPrototype;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of {@link SqsSender} sends through to the client, for single messages and a full batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqsSenderBenchmark {
+    private static final int BATCH = 10;
+    private BenchmarkQueue queue;
+    private String queueUrl;
+    private SqsSender sender;
+    private BenchmarkOrder order;
+    private List<Object> batch;
+
+    /**
+     * Builds the sender and messages.
+     */
+    @Setup
+    public void setUp() {
+        queue = new BenchmarkQueue("orders");
+        queueUrl = queue.getUrl();
+        sender = new SqsSender(queue.getSqs(), JsonMapperPrototype.buildBootLikeMapper());
+        order = BenchmarkOrder.of(1);
+        batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(BenchmarkOrder.of(i));
+        }
+        // resolve the queue once so the benchmarks measure the cached path.
+        sender.resolve(queueUrl);
+    }
+
+    /**
+     * Empties the queue between iterations.
+     */
+    @TearDown(Level.Iteration)
+    public void drain() {
+        queue.drain();
+    }
+
+    /**
+     * Checks the queue saw the sends.
+     */
+    @TearDown
+    public void tearDown() {
+        queue.assertSent();
+    }
+
+    /**
+     * One message sent on its own.
+     */
+    @Benchmark
+    public void send() {
+        sender.send(queueUrl, order);
+    }
+
+    /**
+     * Ten messages sent as one batch request.  Time and allocation are per message.
+     *
+     * @return the batch response.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public SendMessageBatchResponse sendBatch() {
+        return sender.sendBatch(queueUrl, batch);
+    }
+}
@@ -21,9 +21,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.util.StringUtils;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
 import software.amazon.awssdk.services.sqs.model.CreateQueueResponse;
 
@@ -63,6 +65,20 @@ public class LocalstackSqsConfig {
         return sqs;
     }
 
+    /**
+     * Initializes an asynchronous Amazon Simple Queue Service (SQS) client against localstack.  Queues are created by
+     * the blocking client.
+     *
+     * @param localStackSqsUrl The URL of the local Amazon SQS endpoint.
+     * @return A configured instance of the asynchronous Amazon SQS client.
+     */
+    @Primary
+    @Lazy
+    @Bean(destroyMethod = "close")
+    public SqsAsyncClient sqsAsyncClient(@Value("${localstack.url}") URI localStackSqsUrl) {
+        return SqsAsyncClient.builder().endpointOverride(localStackSqsUrl).build();
+    }
+
     /**
      * Creates a new Amazon Simple Queue Service (SQS) queue with the specified name and an associated dead letter Q.
      *
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Collections.emptyMap;
+
+/**
+ * Non-blocking variant of {@link SqsSender} using the {@link SqsAsyncClient}.  Messages are encoded and enriched with
+ * exactly the same standard attributes as {@link SqsSender}, but the calling thread is released as soon as the request
+ * is handed to the client so that many sends can be in flight from a handful of threads.
+ * <p>
+ * Queues are addressed by URL only, with FIFO detected from the URL, so that no blocking metadata lookup is made.
+ * <p>
+ * Validation of FIFO headers and JSON encoding happen on the calling thread, so programming errors are thrown
+ * immediately rather than completing the future exceptionally.  Service failures complete the returned future
+ * exceptionally.
+ * <p>
+ * An optional {@link SqsBodyCodec} compresses large bodies on the calling thread.  There is no claim check, as storing
+ * a body in S3 would block the caller.
+ *
+ * @see SqsSender
+ */
+@Slf4j
+public class SqsAsyncSender {
+    private final SqsAsyncClient sqs;
+    private final SqsRequestFactory requestFactory;
+
+    /**
+     * Creates an asynchronous sender using the supplied client and JSON encoder.
+     *
+     * @param sqs          the asynchronous SQS client.
+     * @param objectMapper the JSON mapper used to encode message bodies.
+     */
+    public SqsAsyncSender(SqsAsyncClient sqs, JsonMapper objectMapper) {
+        this(sqs, objectMapper, null);
+    }
+
+    /**
+     * Creates an asynchronous sender that compresses large bodies.
+     *
+     * @param sqs          the asynchronous SQS client.
+     * @param objectMapper the JSON mapper used to encode message bodies.
+     * @param bodyCodec    compresses bodies above its threshold, null to send every body as plain JSON.
+     */
+    public SqsAsyncSender(SqsAsyncClient sqs, JsonMapper objectMapper, SqsBodyCodec bodyCodec) {
+        this.sqs = sqs;
+        this.requestFactory = new SqsRequestFactory(objectMapper, null, bodyCodec);
+    }
+
+    /**
+     * Sends a message to a specified queue URL.
+     *
+     * @param queueUrl the URL of the queue to which the message is sent
+     * @param message  the message to be sent
+     * @return future completed with the SQS response.
+     */
+    public CompletableFuture<SendMessageResponse> send(String queueUrl, Object message) {
+        return send(queueUrl, message, emptyMap());
+    }
+
+    /**
+     * Sends a message to the specified queue.  To send fifo information, you must include
+     * ATTRIBUTE_MESSAGE_DEDUPLICATION_ID and ATTRIBUTE_MESSAGE_GROUP_ID in the attributeValues.
+     *
+     * @param queueUrl        the URL of the queue to send the message to
+     * @param message         the message to send
+     * @param attributeValues additional attribute values for the message
+     * @return future completed with the SQS response.
+     * @throws IllegalArgumentException if the queue is FIFO and the FIFO headers are missing.
+     * @see SqsSender#ATTRIBUTE_MESSAGE_DEDUPLICATION_ID
+     * @see SqsSender#ATTRIBUTE_MESSAGE_GROUP_ID
+     */
+    public CompletableFuture<SendMessageResponse> send(String queueUrl,
+                                                       Object message,
+                                                       Map<String, Object> attributeValues) {
+        return sqs.sendMessage(requestFactory.sendRequest(SqsQueue.fromUrl(queueUrl), message, attributeValues))
+                  .whenComplete((response, error) -> logSend(queueUrl, message, attributeValues, error));
+    }
+
+    /**
+     * Sends a set of messages to the specified queue using a batch request.
+     *
+     * @param queueUrl the URL of the queue to send the message to
+     * @param messages messages to send.
+     * @return future completed with the batch response.
+     */
+    public CompletableFuture<SendMessageBatchResponse> sendBatch(String queueUrl, Collection<Object> messages) {
+        return sendBatch(queueUrl, SqsRequestFactory.withoutAttributes(messages));
+    }
+
+    /**
+     * Sends a set of messages to the specified queue using a batch request.  To send fifo information, you must include
+     * ATTRIBUTE_MESSAGE_DEDUPLICATION_ID and ATTRIBUTE_MESSAGE_GROUP_ID in the attributeValues.
+     * <p>
+     * Messages are packed into as many SQS batch requests as the limits require, as for
+     * {@link SqsSender#sendBatch(String, Map)}.  Requests for standard queues are all in flight at once, FIFO requests
+     * are chained so each starts after the previous one completes.
+     *
+     * @param queueUrl            the URL of the queue to send the message to
+     * @param messageAttributeMap Map of message object to message attributes.
+     * @return future completed with the batch response.
+     * @throws IllegalArgumentException if the queue is FIFO and the FIFO headers are missing, or a single message is
+     *                                  too large for SQS.
+     * @see SqsSender#ATTRIBUTE_MESSAGE_DEDUPLICATION_ID
+     * @see SqsSender#ATTRIBUTE_MESSAGE_GROUP_ID
+     */
+    public CompletableFuture<SendMessageBatchResponse> sendBatch(String queueUrl,
+                                                                 Map<Object, Map<String, Object>> messageAttributeMap) {
+        final SqsQueue queue = SqsQueue.fromUrl(queueUrl);
+        final List<SendMessageBatchRequest> requests = requestFactory.batchRequests(queue, messageAttributeMap);
+        log.info("Sending async batch request for {} size {} in {} requests",
+                 queueUrl,
+                 messageAttributeMap.size(),
+                 requests.size());
+        if (queue.fifo()) {
+            CompletableFuture<List<SendMessageBatchResponse>> chain = CompletableFuture.completedFuture(new ArrayList<>());
+            for (SendMessageBatchRequest request : requests) {
+                chain = chain.thenCompose(responses -> sqs.sendMessageBatch(request).thenApply(response -> {
+                    responses.add(response);
+                    return responses;
+                }));
+            }
+            return chain.thenApply(SqsRequestFactory::merge);
+        }
+        final List<CompletableFuture<SendMessageBatchResponse>> futures = new ArrayList<>(requests.size());
+        requests.forEach(request -> futures.add(sqs.sendMessageBatch(request)));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                                .thenApply(done -> SqsRequestFactory.merge(futures.stream()
+                                                                                  .map(CompletableFuture::join)
+                                                                                  .toList()));
+    }
+
+    private static void logSend(String queueUrl, Object message, Map<String, Object> attributeValues, Throwable error) {
+        if (error == null) {
+            log.debug("Sent message: {} {} to {}", message, attributeValues, queueUrl);
+        } else {
+            log.error("Failed to send message: {} {} to {}: {}", message, attributeValues, queueUrl, error.getMessage());
+        }
+    }
+}
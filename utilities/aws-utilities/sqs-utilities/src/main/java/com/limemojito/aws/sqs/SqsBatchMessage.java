@@ -0,0 +1,56 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import java.util.Map;
+
+/**
+ * A message and its attributes for a batch send.  Unlike the map based batch methods, equal messages sent in the same
+ * batch are kept as separate entries, and the batch entry id of each message is its index in the list sent.
+ * <p>
+ * A message that has already been encoded, for example when read back from storage, is created with
+ * {@link #ofJson(String, Map)} and its body is sent as is.
+ *
+ * @param message    the message to encode as JSON, null when json is supplied.
+ * @param json       the already encoded JSON body, null to encode the message.
+ * @param attributes attributes for the message including FIFO headers, may be null.
+ * @see SqsSender#sendBatchMessages(String, java.util.List)
+ */
+public record SqsBatchMessage(Object message, String json, Map<String, Object> attributes) {
+
+    /**
+     * Creates a batch message that is encoded to JSON when sent.
+     *
+     * @param message    the message to encode as JSON.
+     * @param attributes attributes for the message including FIFO headers, may be null.
+     */
+    public SqsBatchMessage(Object message, Map<String, Object> attributes) {
+        this(message, null, attributes);
+    }
+
+    /**
+     * Creates a batch message from an already encoded JSON body.
+     *
+     * @param json       the JSON body to send.
+     * @param attributes attributes for the message including FIFO headers, may be null.
+     * @return the batch message.
+     */
+    public static SqsBatchMessage ofJson(String json, Map<String, Object> attributes) {
+        return new SqsBatchMessage(null, json, attributes);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compresses message bodies above a size threshold with gzip and sends them as Base64 text, recording the codec in the
+ * {@link #ATTRIBUTE_CONTENT_ENCODING} attribute alongside the Content-Type and Content-Length attributes.  Repetitive
+ * JSON typically shrinks to a fraction of its size even after the third added by Base64, so more messages fit under
+ * the batch limit and fewer 64 KiB request units are billed.
+ * <p>
+ * Content-Length remains the size of the original JSON.  A body is only sent compressed when that makes it smaller.
+ * Consumers decode by the attribute alone, so {@link com.limemojito.aws.sqs.receiver.SqsReceiver} needs no
+ * configuration to read compressed messages.
+ *
+ * @see SqsSender
+ */
+public class SqsBodyCodec {
+    /**
+     * Message attribute naming the codec applied to the body.  Absent for a plain JSON body.
+     */
+    public static final String ATTRIBUTE_CONTENT_ENCODING = "Content-Encoding";
+
+    /**
+     * Codec for a gzip compressed body sent as Base64 text.
+     */
+    public static final String ENCODING_GZIP = "gzip";
+
+    /**
+     * Default body size in bytes above which the body is compressed.
+     */
+    public static final int DEFAULT_THRESHOLD_BYTES = 1024;
+
+    private final int thresholdBytes;
+
+    /**
+     * Creates a codec with the default threshold.
+     */
+    public SqsBodyCodec() {
+        this(DEFAULT_THRESHOLD_BYTES);
+    }
+
+    /**
+     * Creates a codec.
+     *
+     * @param thresholdBytes body size in bytes above which the body is compressed.
+     */
+    public SqsBodyCodec(int thresholdBytes) {
+        if (thresholdBytes < 0) {
+            throw new IllegalArgumentException("thresholdBytes must be at least 0, was " + thresholdBytes);
+        }
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    /**
+     * The body size in bytes above which the body is compressed.
+     *
+     * @return threshold in bytes.
+     */
+    public int getThresholdBytes() {
+        return thresholdBytes;
+    }
+
+    /**
+     * Compresses a body.
+     *
+     * @param body the JSON body.
+     * @return the body compressed and Base64 encoded.
+     */
+    public String encode(String body) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length() / 4 + 64);
+        try (OutputStream gzip = new GZIPOutputStream(Base64.getEncoder().wrap(bytes))) {
+            gzip.write(body.getBytes(UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compress message body", e);
+        }
+        return bytes.toString(UTF_8);
+    }
+
+    /**
+     * Wraps a received body so that reading it yields the original JSON.
+     *
+     * @param body       the received body.
+     * @param attributes the message attributes.
+     * @return the decoding stream, or the body itself when it is not encoded.
+     * @throws IOException              if the body is not valid for its codec.
+     * @throws IllegalArgumentException if the codec is not supported.
+     */
+    public static InputStream decode(InputStream body, Map<String, MessageAttributeValue> attributes)
+            throws IOException {
+        final MessageAttributeValue encoding = attributes.get(ATTRIBUTE_CONTENT_ENCODING);
+        if (encoding == null) {
+            return body;
+        }
+        if (!ENCODING_GZIP.equals(encoding.stringValue())) {
+            throw new IllegalArgumentException("Unsupported message content encoding " + encoding.stringValue());
+        }
+        return new GZIPInputStream(Base64.getDecoder().wrap(body));
+    }
+
+    /**
+     * Checks whether message attributes mark the body as encoded.
+     *
+     * @param attributes the message attributes.
+     * @return true if the body must be decoded.
+     */
+    public static boolean isEncoded(Map<String, MessageAttributeValue> attributes) {
+        return attributes.containsKey(ATTRIBUTE_CONTENT_ENCODING);
+    }
+}
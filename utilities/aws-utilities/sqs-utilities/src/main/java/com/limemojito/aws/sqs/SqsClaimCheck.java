@@ -0,0 +1,155 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Claim-check store for message bodies too large to send economically through SQS.  A body above the threshold is
+ * written to an S3 bucket and the message carries a pointer to it instead, with the original body size in the
+ * {@link #ATTRIBUTE_EXTENDED_PAYLOAD_SIZE} attribute.  The pointer and attribute use the same format as the Amazon SQS
+ * Extended Client, so messages can be exchanged with applications using that library.
+ * <p>
+ * The default threshold is a tenth of the SQS batch limit, so a batch of ten messages always fits in one request and
+ * large documents do not force single sends.  Stored objects are not deleted when the message is consumed, as a
+ * message fanned out to several queues shares one object; use a bucket lifecycle rule to expire them.
+ *
+ * @see SqsSender
+ * @see com.limemojito.aws.sqs.receiver.SqsReceiver
+ */
+@Slf4j
+public class SqsClaimCheck {
+    /**
+     * Message attribute holding the size in bytes of a body stored in S3.
+     */
+    public static final String ATTRIBUTE_EXTENDED_PAYLOAD_SIZE = "ExtendedPayloadSize";
+
+    /**
+     * Default size in bytes of body and attributes above which the body is stored in S3.
+     */
+    public static final int DEFAULT_THRESHOLD_BYTES = SqsRequestFactory.MAX_BATCH_BYTES
+                                                      / SqsRequestFactory.MAX_BATCH_ENTRIES;
+
+    private static final String JSON_CONTENT = "application/json";
+    private static final String POINTER_CLASS = "software.amazon.payloadoffloading.PayloadS3Pointer";
+    private final S3Client s3;
+    private final JsonMapper jsonMapper;
+    private final String bucket;
+    private final int thresholdBytes;
+
+    /**
+     * Creates a claim check with the default threshold.
+     *
+     * @param s3         the client used to store and fetch bodies.
+     * @param jsonMapper the JSON mapper used to read and write pointers.
+     * @param bucket     the bucket bodies are stored in.
+     */
+    public SqsClaimCheck(S3Client s3, JsonMapper jsonMapper, String bucket) {
+        this(s3, jsonMapper, bucket, DEFAULT_THRESHOLD_BYTES);
+    }
+
+    /**
+     * Creates a claim check.
+     *
+     * @param s3             the client used to store and fetch bodies.
+     * @param jsonMapper     the JSON mapper used to read and write pointers.
+     * @param bucket         the bucket bodies are stored in.
+     * @param thresholdBytes size of body and attributes in bytes above which the body is stored in S3.
+     */
+    public SqsClaimCheck(S3Client s3, JsonMapper jsonMapper, String bucket, int thresholdBytes) {
+        if (thresholdBytes < 1) {
+            throw new IllegalArgumentException("thresholdBytes must be at least 1, was " + thresholdBytes);
+        }
+        this.s3 = s3;
+        this.jsonMapper = jsonMapper;
+        this.bucket = bucket;
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    /**
+     * The size of body and attributes in bytes above which the body is stored in S3.
+     *
+     * @return threshold in bytes.
+     */
+    public int getThresholdBytes() {
+        return thresholdBytes;
+    }
+
+    /**
+     * Stores a body in S3.
+     *
+     * @param body the message body.
+     * @return the pointer to send as the message body instead.
+     */
+    public String store(String body) {
+        final String key = UUID.randomUUID().toString();
+        final byte[] bytes = body.getBytes(UTF_8);
+        s3.putObject(PutObjectRequest.builder()
+                                     .bucket(bucket)
+                                     .key(key)
+                                     .contentLength((long) bytes.length)
+                                     .contentType(JSON_CONTENT)
+                                     .build(),
+                     RequestBody.fromBytes(bytes));
+        log.debug("Stored {} byte message body at s3://{}/{}", bytes.length, bucket, key);
+        return jsonMapper.writeValueAsString(List.of(POINTER_CLASS, Map.of("s3BucketName", bucket, "s3Key", key)));
+    }
+
+    /**
+     * Opens the body of a received message, streaming it from S3 when the message carries a pointer.
+     *
+     * @param message the received message.
+     * @return the body, to be closed by the caller.
+     */
+    public InputStream open(Message message) {
+        if (!isClaimCheck(message.messageAttributes())) {
+            return new ByteArrayInputStream(message.body().getBytes(UTF_8));
+        }
+        final JsonNode pointer = jsonMapper.readTree(message.body()).get(1);
+        final String pointerBucket = pointer.get("s3BucketName").asString();
+        final String key = pointer.get("s3Key").asString();
+        log.debug("Fetching message body from s3://{}/{}", pointerBucket, key);
+        return s3.getObject(GetObjectRequest.builder().bucket(pointerBucket).key(key).build());
+    }
+
+    /**
+     * Checks whether message attributes mark the body as stored in S3.
+     *
+     * @param attributes the message attributes.
+     * @return true if the body is a pointer to S3.
+     */
+    public static boolean isClaimCheck(Map<String, MessageAttributeValue> attributes) {
+        return attributes.containsKey(ATTRIBUTE_EXTENDED_PAYLOAD_SIZE);
+    }
+}
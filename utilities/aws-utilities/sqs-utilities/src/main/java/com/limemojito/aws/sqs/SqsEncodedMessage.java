@@ -0,0 +1,41 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+import java.util.Map;
+
+/**
+ * A message already encoded for sending: the JSON body, the complete SQS attributes including the standard ones, and
+ * the FIFO options.  Encoding once, for example on a producer thread, leaves only packing and I/O for the send.
+ *
+ * @param body                   the JSON body.
+ * @param attributes             the SQS message attributes.
+ * @param messageGroupId         the FIFO message group id, null for standard queues.
+ * @param messageDeduplicationId the FIFO deduplication id, null for standard queues.
+ * @param size                   UTF-8 bytes SQS counts against its size limit for the body and attributes.
+ * @see SqsSender#encode(String, Object, Map)
+ * @see SqsSender#sendEncoded(String, java.util.List)
+ */
+public record SqsEncodedMessage(String body,
+                                Map<String, MessageAttributeValue> attributes,
+                                String messageGroupId,
+                                String messageDeduplicationId,
+                                int size) {
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer meters for the SQS send path, tagged by destination queue name.  Created from a {@link MeterRegistry} when
+ * one is available, otherwise {@link #NONE} records nothing and costs nothing on the send path.  Micrometer is an
+ * optional dependency, {@link #NONE} never touches a Micrometer class so it works without Micrometer on the classpath.
+ * <p>
+ * Meters, as named in a Prometheus scrape:
+ * <ul>
+ *     <li>{@code sqs_send_seconds} - latency histogram of each SQS send request, tagged with outcome.</li>
+ *     <li>{@code sqs_send_batch_size} - entries per send request.</li>
+ *     <li>{@code sqs_send_batch_bytes} - bytes per send request as SQS measures them.</li>
+ *     <li>{@code sqs_send_failed_entries_total} - entries SQS failed within successful batch requests, such as
+ *     throttled entries.</li>
+ *     <li>{@code sqs_pump_buffered} - messages buffered in the pump for the queue, also tagged with the queue URL.</li>
+ *     <li>{@code sqs_pump_flush_seconds} - duration of each pump batch flush including retries, tagged with outcome.</li>
+ *     <li>{@code sqs_pump_retries_total} - entries the pump resent after a retryable failure.</li>
+ * </ul>
+ *
+ * @see SqsSender
+ * @see com.limemojito.aws.sqs.pump.SqsPump
+ */
+public class SqsMetrics {
+    /**
+     * Metrics that record nothing.
+     */
+    public static final SqsMetrics NONE = new SqsMetrics();
+
+    /**
+     * Timer of SQS send requests.
+     */
+    public static final String SEND = "sqs.send";
+
+    /**
+     * Distribution of entries per send request.
+     */
+    public static final String SEND_BATCH_SIZE = "sqs.send.batch.size";
+
+    /**
+     * Distribution of bytes per send request.
+     */
+    public static final String SEND_BATCH_BYTES = "sqs.send.batch.bytes";
+
+    /**
+     * Counter of entries failed by SQS within a batch request.
+     */
+    public static final String SEND_FAILED_ENTRIES = "sqs.send.failed.entries";
+
+    /**
+     * Gauge of messages buffered in the pump.
+     */
+    public static final String PUMP_BUFFERED = "sqs.pump.buffered";
+
+    /**
+     * Timer of pump batch flushes.
+     */
+    public static final String PUMP_FLUSH = "sqs.pump.flush";
+
+    /**
+     * Counter of entries resent by the pump.
+     */
+    public static final String PUMP_RETRIES = "sqs.pump.retries";
+
+    /**
+     * Tag holding the queue name.
+     */
+    public static final String TAG_DESTINATION = "destination";
+
+    /**
+     * Tag holding the queue URL, on the buffered gauge only.
+     */
+    public static final String TAG_QUEUE_URL = "queue.url";
+
+    /**
+     * Tag holding success or failure.
+     */
+    public static final String TAG_OUTCOME = "outcome";
+
+    private static final String SUCCESS = "success";
+    private static final String FAILURE = "failure";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, DestinationMeters> destinations;
+    private final ConcurrentMap<String, BufferedDepth> buffered;
+
+    /**
+     * Creates metrics registered with the registry.
+     *
+     * @param registry the registry to create meters in.
+     */
+    public SqsMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.destinations = new ConcurrentHashMap<>();
+        this.buffered = new ConcurrentHashMap<>();
+    }
+
+    private SqsMetrics() {
+        this.registry = null;
+        this.destinations = null;
+        this.buffered = null;
+    }
+
+    /**
+     * Records a send request.
+     *
+     * @param queueUrl    the queue sent to.
+     * @param request     the request sent.
+     * @param nanos       how long the request took.
+     * @param failedCount entries SQS failed in the response, 0 if the request threw.
+     * @param success     false if the request threw.
+     */
+    public void recordBatch(String queueUrl,
+                            SendMessageBatchRequest request,
+                            long nanos,
+                            int failedCount,
+                            boolean success) {
+        if (registry != null) {
+            int bytes = 0;
+            for (SendMessageBatchRequestEntry entry : request.entries()) {
+                bytes += SqsRequestFactory.sizeOf(entry);
+            }
+            recordSend(queueUrl, request.entries().size(), bytes, nanos, failedCount, success);
+        }
+    }
+
+    /**
+     * Records a send request.
+     *
+     * @param queueUrl    the queue sent to.
+     * @param entries     number of messages in the request.
+     * @param bytes       size of the request as SQS measures it.
+     * @param nanos       how long the request took.
+     * @param failedCount entries SQS failed in the response, 0 if the request threw.
+     * @param success     false if the request threw.
+     */
+    public void recordSend(String queueUrl, int entries, int bytes, long nanos, int failedCount, boolean success) {
+        if (registry != null) {
+            final DestinationMeters meters = meters(queueUrl);
+            (success ? meters.sendSuccess : meters.sendFailure).record(nanos, TimeUnit.NANOSECONDS);
+            meters.batchSize.record(entries);
+            meters.batchBytes.record(bytes);
+            if (failedCount > 0) {
+                meters.failedEntries.increment(failedCount);
+            }
+        }
+    }
+
+    /**
+     * Records a pump flush of one batch.
+     *
+     * @param destination the destination flushed.
+     * @param nanos       how long the flush took including retries.
+     * @param success     false if any message could not be sent.
+     */
+    public void recordFlush(String destination, long nanos, boolean success) {
+        if (registry != null) {
+            final DestinationMeters meters = meters(destination);
+            (success ? meters.flushSuccess : meters.flushFailure).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records entries resent by the pump.
+     *
+     * @param destination the destination resent to.
+     * @param count       number of entries resent.
+     */
+    public void recordRetries(String destination, int count) {
+        if (registry != null) {
+            meters(destination).retries.increment(count);
+        }
+    }
+
+    /**
+     * Adds a buffer to the gauge of messages buffered for a queue.  The gauge is keyed by the resolved queue URL, so
+     * buffers for the queue's name and URL are summed into one gauge and queues of the same name in different accounts
+     * or regions are not.  The gauge does not keep the buffer reachable.
+     *
+     * @param queueUrl the resolved URL of the queue buffered for.
+     * @param buffer   the buffer to measure.
+     * @param depth    reads the number of buffered messages.
+     * @param <T>      the buffer type.
+     */
+    public <T> void gaugeBuffered(String queueUrl, T buffer, ToDoubleFunction<T> depth) {
+        if (registry != null) {
+            final WeakReference<T> reference = new WeakReference<>(buffer);
+            buffered.computeIfAbsent(queueUrl, this::bufferedGauge).add(() -> {
+                final T measured = reference.get();
+                return measured == null ? 0 : depth.applyAsDouble(measured);
+            });
+        }
+    }
+
+    private BufferedDepth bufferedGauge(String queueUrl) {
+        final BufferedDepth depth = new BufferedDepth();
+        Gauge.builder(PUMP_BUFFERED, depth, BufferedDepth::sum)
+             .description("Messages buffered in the SQS pump")
+             .tag(TAG_DESTINATION, queueName(queueUrl))
+             .tag(TAG_QUEUE_URL, queueUrl)
+             .register(registry);
+        return depth;
+    }
+
+    private DestinationMeters meters(String destination) {
+        return destinations.computeIfAbsent(queueName(destination), DestinationMeters::new);
+    }
+
+    /**
+     * Tags by queue name so the name and URL of a queue share meters and tag values stay readable.
+     */
+    private static String queueName(String destination) {
+        return destination.substring(destination.lastIndexOf('/') + 1);
+    }
+
+    private final class DestinationMeters {
+        private final Timer sendSuccess;
+        private final Timer sendFailure;
+        private final DistributionSummary batchSize;
+        private final DistributionSummary batchBytes;
+        private final Counter failedEntries;
+        private final Timer flushSuccess;
+        private final Timer flushFailure;
+        private final Counter retries;
+
+        private DestinationMeters(String queueName) {
+            sendSuccess = sendTimer(queueName, SUCCESS);
+            sendFailure = sendTimer(queueName, FAILURE);
+            batchSize = DistributionSummary.builder(SEND_BATCH_SIZE)
+                                           .description("Entries per SQS send request")
+                                           .tag(TAG_DESTINATION, queueName)
+                                           .serviceLevelObjectives(1, 2, 5, 8, 10)
+                                           .register(registry);
+            // SQS bills requests in 64 KiB chunks.
+            batchBytes = DistributionSummary.builder(SEND_BATCH_BYTES)
+                                            .description("Bytes per SQS send request")
+                                            .baseUnit("bytes")
+                                            .tag(TAG_DESTINATION, queueName)
+                                            .serviceLevelObjectives(16_384, 65_536, 131_072, 196_608, 262_144)
+                                            .register(registry);
+            failedEntries = Counter.builder(SEND_FAILED_ENTRIES)
+                                   .description("Entries failed by SQS within a batch request")
+                                   .tag(TAG_DESTINATION, queueName)
+                                   .register(registry);
+            flushSuccess = flushTimer(queueName, SUCCESS);
+            flushFailure = flushTimer(queueName, FAILURE);
+            retries = Counter.builder(PUMP_RETRIES)
+                             .description("Entries resent by the SQS pump")
+                             .tag(TAG_DESTINATION, queueName)
+                             .register(registry);
+        }
+
+        private Timer sendTimer(String queueName, String outcome) {
+            return Timer.builder(SEND)
+                        .description("SQS send request latency")
+                        .tag(TAG_DESTINATION, queueName)
+                        .tag(TAG_OUTCOME, outcome)
+                        .publishPercentileHistogram()
+                        .register(registry);
+        }
+
+        private Timer flushTimer(String queueName, String outcome) {
+            return Timer.builder(PUMP_FLUSH)
+                        .description("SQS pump batch flush duration")
+                        .tag(TAG_DESTINATION, queueName)
+                        .tag(TAG_OUTCOME, outcome)
+                        .register(registry);
+        }
+    }
+
+    private static final class BufferedDepth {
+        private final List<DoubleSupplier> buffers = new CopyOnWriteArrayList<>();
+
+        private void add(DoubleSupplier buffer) {
+            buffers.add(buffer);
+        }
+
+        private double sum() {
+            double sum = 0;
+            for (DoubleSupplier buffer : buffers) {
+                sum += buffer.getAsDouble();
+            }
+            return sum;
+        }
+    }
+}
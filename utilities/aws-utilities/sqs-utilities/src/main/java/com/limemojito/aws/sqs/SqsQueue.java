@@ -0,0 +1,40 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+/**
+ * The URL and sending metadata of a queue.
+ *
+ * @param url                the queue URL.
+ * @param fifo               true for a FIFO queue.
+ * @param maximumMessageSize the largest message in bytes the queue accepts.
+ * @see SqsQueueResolver
+ */
+public record SqsQueue(String url, boolean fifo, int maximumMessageSize) {
+
+    /**
+     * Describes a queue from its URL alone, without calling SQS.  FIFO is detected by the name suffix and the maximum
+     * message size is the SQS default.
+     *
+     * @param url the queue URL.
+     * @return the queue description.
+     */
+    public static SqsQueue fromUrl(String url) {
+        return new SqsQueue(url, url.endsWith("fifo"), SqsRequestFactory.MAX_BATCH_BYTES);
+    }
+}
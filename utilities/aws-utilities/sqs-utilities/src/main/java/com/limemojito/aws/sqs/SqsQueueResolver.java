@@ -0,0 +1,165 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+import software.amazon.awssdk.services.sqs.model.QueueDoesNotExistException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static software.amazon.awssdk.services.sqs.model.QueueAttributeName.FIFO_QUEUE;
+import static software.amazon.awssdk.services.sqs.model.QueueAttributeName.MAXIMUM_MESSAGE_SIZE;
+
+/**
+ * Resolves queue names or URLs to a {@link SqsQueue} with the queue URL and the metadata needed to send, caching the
+ * result for a time to live so that name addressed sends do not pay for a GetQueueUrl call each time.  A destination
+ * containing {@code ://} is treated as a URL, anything else as a queue name.
+ * <p>
+ * FIFO and maximum message size are read from the queue attributes.  If the attributes cannot be read the queue is
+ * described from its URL as in {@link SqsQueue#fromUrl(String)}.  When the attributes are denied, for example without
+ * the {@code sqs:GetQueueAttributes} permission, or the queue does not exist, that description is cached in the same
+ * way.  Any other failure, such as throttling, is cached for at most {@link #FALLBACK_TTL} by default so the
+ * attributes are read again soon.  A name that cannot be resolved to a URL is an error.
+ */
+@Slf4j
+public class SqsQueueResolver {
+    /**
+     * Default time a resolved queue is cached.
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    /**
+     * Longest time a queue described from its URL after a transient attribute failure is cached.
+     */
+    public static final Duration FALLBACK_TTL = Duration.ofSeconds(5);
+    private static final int FORBIDDEN = 403;
+
+    private final SqsClient sqs;
+    private final long ttlNanos;
+    private final long fallbackTtlNanos;
+    private final Map<String, Cached> cache;
+
+    /**
+     * Creates a resolver with the default time to live.
+     *
+     * @param sqs the client used to look up queues.
+     */
+    public SqsQueueResolver(SqsClient sqs) {
+        this(sqs, DEFAULT_TTL);
+    }
+
+    /**
+     * Creates a resolver.
+     *
+     * @param sqs the client used to look up queues.
+     * @param ttl how long a resolved queue is cached before it is looked up again.
+     */
+    public SqsQueueResolver(SqsClient sqs, Duration ttl) {
+        this(sqs, ttl, FALLBACK_TTL);
+    }
+
+    /**
+     * Creates a resolver.
+     *
+     * @param sqs         the client used to look up queues.
+     * @param ttl         how long a resolved queue is cached before it is looked up again.
+     * @param fallbackTtl the longest time a queue described from its URL after a transient failure is cached.
+     */
+    public SqsQueueResolver(SqsClient sqs, Duration ttl, Duration fallbackTtl) {
+        this.sqs = sqs;
+        this.ttlNanos = ttl.toNanos();
+        this.fallbackTtlNanos = Math.min(ttlNanos, fallbackTtl.toNanos());
+        this.cache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Resolves a queue name or URL.
+     *
+     * @param destination queue name or URL.
+     * @return the queue URL and metadata.
+     */
+    public SqsQueue resolve(String destination) {
+        final long now = System.nanoTime();
+        final Cached cached = cache.get(destination);
+        if (cached != null && now - cached.resolvedNanos < cached.ttlNanos) {
+            return cached.queue;
+        }
+        // concurrent misses may look up twice, which is cheaper than holding a map lock over a remote call.
+        final Cached resolved = lookup(destination, now);
+        cache.put(destination, resolved);
+        return resolved.queue;
+    }
+
+    /**
+     * Removes a destination from the cache so the next resolve looks it up again, for example after the queue is
+     * deleted and recreated.
+     *
+     * @param destination queue name or URL.
+     */
+    public void invalidate(String destination) {
+        cache.remove(destination);
+    }
+
+    private Cached lookup(String destination, long now) {
+        final String url = destination.contains("://")
+                           ? destination
+                           : sqs.getQueueUrl(r -> r.queueName(destination)).queueUrl();
+        try {
+            final Map<QueueAttributeName, String> attributes;
+            attributes = sqs.getQueueAttributes(r -> r.queueUrl(url).attributeNames(FIFO_QUEUE, MAXIMUM_MESSAGE_SIZE))
+                            .attributes();
+            final SqsQueue queue = new SqsQueue(url,
+                                                Boolean.parseBoolean(attributes.get(FIFO_QUEUE)),
+                                                maximumMessageSize(attributes.get(MAXIMUM_MESSAGE_SIZE)));
+            log.debug("Resolved {} to {}", destination, queue);
+            return new Cached(queue, now, ttlNanos);
+        } catch (RuntimeException e) {
+            final boolean lasting = isDeniedOrMissing(e);
+            log.debug("Could not read attributes of {}, describing from URL{}: {}",
+                      url,
+                      lasting ? "" : " until retry",
+                      e.getMessage());
+            return new Cached(SqsQueue.fromUrl(url), now, lasting ? ttlNanos : fallbackTtlNanos);
+        }
+    }
+
+    private static boolean isDeniedOrMissing(RuntimeException e) {
+        if (e instanceof QueueDoesNotExistException) {
+            return true;
+        }
+        if (e instanceof AwsServiceException service) {
+            final String code = service.awsErrorDetails() == null ? null : service.awsErrorDetails().errorCode();
+            return service.statusCode() == FORBIDDEN
+                   || "AccessDenied".equals(code)
+                   || "AccessDeniedException".equals(code)
+                   || "AWS.SimpleQueueService.NonExistentQueue".equals(code);
+        }
+        return false;
+    }
+
+    private static int maximumMessageSize(String value) {
+        return value == null ? SqsRequestFactory.MAX_BATCH_BYTES : Integer.parseInt(value);
+    }
+
+    private record Cached(SqsQueue queue, long resolvedNanos, long ttlNanos) {
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.limemojito.aws.sqs.SqsSender.*;
+
+/**
+ * Builds SQS send requests with the standard message attributes, JSON encoded bodies and FIFO options.  Shared by the
+ * blocking {@link SqsSender} and the non-blocking {@link SqsAsyncSender} so both produce identical messages.
+ * <p>
+ * With a {@link SqsClaimCheck} bodies above its threshold are stored in S3 while encoding, and the message carries a
+ * pointer and the {@link SqsClaimCheck#ATTRIBUTE_EXTENDED_PAYLOAD_SIZE} attribute.  The Content-Length attribute
+ * remains the size of the original body.
+ * <p>
+ * With a {@link SqsBodyCodec} bodies above its threshold are compressed first, so the claim check only applies to
+ * bodies still too large after compression.
+ *
+ * @see SqsSender
+ */
+@Slf4j
+public class SqsRequestFactory {
+    /**
+     * Maximum number of entries SQS accepts in a single batch request.
+     */
+    public static final int MAX_BATCH_ENTRIES = 10;
+
+    /**
+     * Maximum total size in bytes SQS accepts for a batch request, 256 KiB.
+     */
+    public static final int MAX_BATCH_BYTES = 262_144;
+
+    private static final String JSON_CONTENT = "application/json";
+    private static final String TYPE_NUMBER = "Number";
+    private static final String TYPE_STRING = "String";
+    /**
+     * Attribute values are immutable, so the constant values are built once and shared by every message.
+     */
+    private static final MessageAttributeValue JSON_CONTENT_VALUE = attr(TYPE_STRING, JSON_CONTENT);
+    private static final MessageAttributeValue GZIP_VALUE = attr(TYPE_STRING, SqsBodyCodec.ENCODING_GZIP);
+    /**
+     * The five standard attributes, plus room for the content encoding and claim check size added after.
+     */
+    private static final int STANDARD_ATTRIBUTE_CAPACITY = 7;
+
+    private final JsonMapper objectMapper;
+    private final SqsClaimCheck claimCheck;
+    private final SqsBodyCodec bodyCodec;
+
+    /**
+     * Creates a request factory that sends every body inline.
+     *
+     * @param objectMapper the JSON mapper used to encode message bodies.
+     */
+    public SqsRequestFactory(JsonMapper objectMapper) {
+        this(objectMapper, null, null);
+    }
+
+    /**
+     * Creates a request factory that compresses and stores large bodies.
+     *
+     * @param objectMapper the JSON mapper used to encode message bodies.
+     * @param claimCheck   stores bodies above its threshold in S3, null to send every body inline.
+     * @param bodyCodec    compresses bodies above its threshold, null to send every body as plain JSON.
+     */
+    public SqsRequestFactory(JsonMapper objectMapper, SqsClaimCheck claimCheck, SqsBodyCodec bodyCodec) {
+        this.objectMapper = objectMapper;
+        this.claimCheck = claimCheck;
+        this.bodyCodec = bodyCodec;
+    }
+
+    /**
+     * Builds a single message send request.  Standard attributes are only added when attribute values are supplied.
+     *
+     * @param queue           the queue to send the message to
+     * @param message         the message to encode as JSON
+     * @param attributeValues additional attribute values for the message, including FIFO headers.
+     * @return the send request.
+     * @throws IllegalArgumentException if the queue is FIFO and the FIFO headers are missing.
+     */
+    public SendMessageRequest sendRequest(SqsQueue queue, Object message, Map<String, Object> attributeValues) {
+        assertFifo(queue, attributeValues);
+        SendMessageRequest.Builder r = SendMessageRequest.builder();
+        r.queueUrl(queue.url());
+        final String json = toJson(message);
+        fifoOptions(r, queue, attributeValues);
+        if (attributeValues != null && !attributeValues.isEmpty() || isEncodingRequired(json)) {
+            final SqsEncodedMessage encoded = encodeJson(queue, json, attributeValues);
+            r.messageBody(encoded.body());
+            r.messageAttributes(encoded.attributes());
+        } else {
+            r.messageBody(json);
+        }
+        return r.build();
+    }
+
+    /**
+     * Builds the batch send requests needed for the messages, splitting them so that each request has at most
+     * {@link #MAX_BATCH_ENTRIES} entries and a total size, measured in UTF-8 bytes of bodies and attributes, of at most
+     * {@link #MAX_BATCH_BYTES}.  Entry ids are unique across all the returned requests and follow the iteration order
+     * of the supplied map.
+     *
+     * @param queue               the queue to send the messages to
+     * @param messageAttributeMap Map of message object to message attributes.
+     * @return the batch requests in message order, empty if there are no messages.
+     * @throws IllegalArgumentException if the queue is FIFO and the FIFO headers are missing, or a single message is
+     *                                  larger than the batch size limit.
+     */
+    public List<SendMessageBatchRequest> batchRequests(SqsQueue queue,
+                                                       Map<Object, Map<String, Object>> messageAttributeMap) {
+        final List<SqsBatchMessage> messages = new ArrayList<>(messageAttributeMap.size());
+        messageAttributeMap.forEach((message, attributes) -> messages.add(new SqsBatchMessage(message, attributes)));
+        return batchRequests(queue, messages);
+    }
+
+    /**
+     * Builds the batch send requests needed for the messages as for {@link #batchRequests(SqsQueue, Map)}.  The entry id
+     * of each message is its index in the supplied list.
+     *
+     * @param queue    the queue to send the messages to
+     * @param messages the messages and their attributes.
+     * @return the batch requests in message order, empty if there are no messages.
+     * @throws IllegalArgumentException if the queue is FIFO and the FIFO headers are missing, or a single message is
+     *                                  larger than the batch size limit.
+     */
+    public List<SendMessageBatchRequest> batchRequests(SqsQueue queue, List<SqsBatchMessage> messages) {
+        final List<SqsEncodedMessage> encoded = new ArrayList<>(messages.size());
+        for (SqsBatchMessage message : messages) {
+            encoded.add(message.json() != null
+                        ? encodeJson(queue, message.json(), message.attributes())
+                        : encode(queue, message.message(), message.attributes()));
+        }
+        return batchRequestsEncoded(queue, encoded);
+    }
+
+    /**
+     * Packs already encoded messages into batch send requests as for {@link #batchRequests(SqsQueue, Map)}.  The entry
+     * id of each message is its index in the supplied list.
+     *
+     * @param queue    the queue to send the messages to
+     * @param messages the encoded messages.
+     * @return the batch requests in message order, empty if there are no messages.
+     * @throws IllegalArgumentException if a single message is larger than the batch size limit.
+     */
+    public List<SendMessageBatchRequest> batchRequestsEncoded(SqsQueue queue, List<SqsEncodedMessage> messages) {
+        // a single message can be no larger than the queue allows, nor than a whole batch.
+        final int maximumMessageSize = Math.min(queue.maximumMessageSize(), MAX_BATCH_BYTES);
+        final List<SendMessageBatchRequest> requests = new ArrayList<>();
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(MAX_BATCH_ENTRIES);
+        int batchBytes = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            final SqsEncodedMessage message = messages.get(i);
+            assertSize(message, maximumMessageSize);
+            if (entries.size() == MAX_BATCH_ENTRIES || batchBytes + message.size() > MAX_BATCH_BYTES) {
+                requests.add(batchRequest(queue.url(), entries));
+                entries = new ArrayList<>(MAX_BATCH_ENTRIES);
+                batchBytes = 0;
+            }
+            entries.add(batchEntry(i, message));
+            batchBytes += message.size();
+        }
+        if (!entries.isEmpty()) {
+            requests.add(batchRequest(queue.url(), entries));
+        }
+        return requests;
+    }
+
+    /**
+     * Encodes a message to JSON with the standard attributes and FIFO options, ready to be packed into a batch.
+     *
+     * @param queue      the queue the message will be sent to.
+     * @param message    the message to encode as JSON.
+     * @param attributes additional attribute values for the message, including FIFO headers.
+     * @return the encoded message.
+     * @throws IllegalArgumentException if the queue is FIFO and the FIFO headers are missing.
+     */
+    public SqsEncodedMessage encode(SqsQueue queue, Object message, Map<String, Object> attributes) {
+        return encodeJson(queue, toJson(message), attributes);
+    }
+
+    /**
+     * Encodes a message with an already encoded JSON body as for {@link #encode(SqsQueue, Object, Map)}.
+     *
+     * @param queue      the queue the message will be sent to.
+     * @param json       the JSON body.
+     * @param attributes additional attribute values for the message, including FIFO headers.
+     * @return the encoded message.
+     * @throws IllegalArgumentException if the queue is FIFO and the FIFO headers are missing.
+     */
+    public SqsEncodedMessage encodeJson(SqsQueue queue, String json, Map<String, Object> attributes) {
+        assertFifo(queue, attributes);
+        final int bodyBytes = utf8Length(json);
+        final Map<String, MessageAttributeValue> attributeValues = sqsAttrFrom(bodyBytes, attributes);
+        String body = json;
+        if (bodyCodec != null && bodyBytes > bodyCodec.getThresholdBytes()) {
+            final String compressed = bodyCodec.encode(json);
+            if (compressed.length() < bodyBytes) {
+                body = compressed;
+                attributeValues.put(SqsBodyCodec.ATTRIBUTE_CONTENT_ENCODING, GZIP_VALUE);
+            }
+        }
+        int size = utf8Length(body) + sizeOf(attributeValues);
+        if (claimCheck != null && size > claimCheck.getThresholdBytes()) {
+            attributeValues.put(SqsClaimCheck.ATTRIBUTE_EXTENDED_PAYLOAD_SIZE, toValue(utf8Length(body)));
+            body = claimCheck.store(body);
+            size = utf8Length(body) + sizeOf(attributeValues);
+        }
+        final boolean fifo = queue.fifo() && attributes != null;
+        return new SqsEncodedMessage(body,
+                                     attributeValues,
+                                     fifo ? Objects.toString(attributes.get(ATTRIBUTE_MESSAGE_GROUP_ID)) : null,
+                                     fifo ? Objects.toString(attributes.get(ATTRIBUTE_MESSAGE_DEDUPLICATION_ID)) : null,
+                                     size);
+    }
+
+    /**
+     * Merges the responses of several batch requests into a single response.
+     *
+     * @param responses the responses to merge.
+     * @return a response containing every successful and failed entry.
+     */
+    public static SendMessageBatchResponse merge(List<SendMessageBatchResponse> responses) {
+        if (responses.size() == 1) {
+            return responses.getFirst();
+        }
+        final List<SendMessageBatchResultEntry> successful = new ArrayList<>();
+        final List<BatchResultErrorEntry> failed = new ArrayList<>();
+        for (SendMessageBatchResponse response : responses) {
+            successful.addAll(response.successful());
+            failed.addAll(response.failed());
+        }
+        return SendMessageBatchResponse.builder()
+                                       .successful(successful)
+                                       .failed(failed)
+                                       .build();
+    }
+
+    /**
+     * Calculates the size SQS counts against its message size limit: the UTF-8 bytes of the body plus the name, data
+     * type and value of every message attribute.
+     *
+     * @param entry the batch entry to measure.
+     * @return size in bytes.
+     */
+    public static int sizeOf(SendMessageBatchRequestEntry entry) {
+        return utf8Length(entry.messageBody()) + sizeOf(entry.messageAttributes());
+    }
+
+    /**
+     * Calculates the size SQS counts against its message size limit for a single message send request.
+     *
+     * @param request the send request to measure.
+     * @return size in bytes.
+     * @see #sizeOf(SendMessageBatchRequestEntry)
+     */
+    public static int sizeOf(SendMessageRequest request) {
+        return utf8Length(request.messageBody()) + sizeOf(request.messageAttributes());
+    }
+
+    private static int sizeOf(Map<String, MessageAttributeValue> attributes) {
+        int size = 0;
+        for (Map.Entry<String, MessageAttributeValue> attribute : attributes.entrySet()) {
+            size += utf8Length(attribute.getKey())
+                    + utf8Length(attribute.getValue().dataType())
+                    + utf8Length(attribute.getValue().stringValue());
+        }
+        return size;
+    }
+
+    /**
+     * Counts the UTF-8 encoded length of the text without allocating an encoded copy.
+     *
+     * @param text the text to measure, may be null.
+     * @return number of bytes when encoded as UTF-8.
+     */
+    public static int utf8Length(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            final char ch = text.charAt(i);
+            if (ch < 0x80) {
+                count++;
+            } else if (ch < 0x800) {
+                count += 2;
+            } else if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                count += 4;
+                i++;
+            } else {
+                count += 3;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Converts a set of messages to a message attribute map with no extra attributes.
+     *
+     * @param messages the messages to send.
+     * @return Map of message object to empty attributes, in iteration order.
+     */
+    public static Map<Object, Map<String, Object>> withoutAttributes(Collection<Object> messages) {
+        Map<Object, Map<String, Object>> messageAttributeMap = new LinkedHashMap<>();
+        for (Object message : messages) {
+            messageAttributeMap.put(message, Collections.emptyMap());
+        }
+        return messageAttributeMap;
+    }
+
+    @SneakyThrows
+    private String toJson(Object object) {
+        return objectMapper.writeValueAsString(object);
+    }
+
+    private boolean isEncodingRequired(String json) {
+        final int bodyBytes = utf8Length(json);
+        return claimCheck != null && bodyBytes > claimCheck.getThresholdBytes()
+               || bodyCodec != null && bodyBytes > bodyCodec.getThresholdBytes();
+    }
+
+    private void assertFifo(SqsQueue queue, Map<String, Object> attributeValues) {
+        if (queue.fifo()) {
+            if (attributeValues == null
+                    || attributeValues.isEmpty()
+                    || !attributeValues.containsKey(ATTRIBUTE_MESSAGE_DEDUPLICATION_ID)
+                    || !attributeValues.containsKey(ATTRIBUTE_MESSAGE_GROUP_ID)) {
+                throw new IllegalArgumentException(
+                        "If you want to send a fifo message, you must include %s and %s in the attributeValues".formatted(
+                                ATTRIBUTE_MESSAGE_GROUP_ID,
+                                ATTRIBUTE_MESSAGE_DEDUPLICATION_ID));
+            }
+        }
+    }
+
+    private static SendMessageBatchRequest batchRequest(String queueUrl, List<SendMessageBatchRequestEntry> entries) {
+        return SendMessageBatchRequest.builder()
+                                      .queueUrl(queueUrl)
+                                      .entries(entries)
+                                      .build();
+    }
+
+    private Map<String, MessageAttributeValue> sqsAttrFrom(int contentLength,
+                                                           Map<String, Object> attributes) {
+        final int extra = attributes == null ? 0 : attributes.size();
+        final Map<String, MessageAttributeValue> attributeMap =
+                LinkedHashMap.newLinkedHashMap(STANDARD_ATTRIBUTE_CAPACITY + extra);
+        if (extra > 0) {
+            attributes.forEach((key, value) -> {
+                if (notFifoHeader(key)) {
+                    attributeMap.put(key, toValue(value));
+                }
+            });
+        }
+        if (attributeMap.get(ATTRIBUTE_ID) == null) {
+            attributeMap.put(ATTRIBUTE_ID, attr(TYPE_STRING, randomId()));
+        }
+        if (attributeMap.get(ATTRIBUTE_TIMESTAMP) == null) {
+            attributeMap.put(ATTRIBUTE_TIMESTAMP, attr(TYPE_NUMBER, Long.toString(System.currentTimeMillis())));
+        }
+        if (attributeMap.get(ATTRIBUTE_SPRING_CONTENT_TYPE) == null) {
+            attributeMap.put(ATTRIBUTE_SPRING_CONTENT_TYPE, JSON_CONTENT_VALUE);
+        }
+        if (attributeMap.get(ATTRIBUTE_CONTENT_TYPE) == null) {
+            attributeMap.put(ATTRIBUTE_CONTENT_TYPE, JSON_CONTENT_VALUE);
+        }
+        if (attributeMap.get(ATTRIBUTE_CONTENT_LENGTH) == null) {
+            attributeMap.put(ATTRIBUTE_CONTENT_LENGTH, attr(TYPE_NUMBER, Integer.toString(contentLength)));
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("Generated attribute map {}", attributeMap);
+        }
+        return attributeMap;
+    }
+
+    /**
+     * A random version 4 UUID drawn from {@link ThreadLocalRandom} rather than the {@link java.security.SecureRandom}
+     * behind {@link UUID#randomUUID()}.  The id is a message identifier, not a secret, so it needs to be unique but not
+     * unpredictable.
+     */
+    private static String randomId() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final long mostSigBits = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        final long leastSigBits = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+
+    private static boolean notFifoHeader(String key) {
+        return !(ATTRIBUTE_MESSAGE_DEDUPLICATION_ID.equals(key) || (ATTRIBUTE_MESSAGE_GROUP_ID.equals(key)));
+    }
+
+    private static MessageAttributeValue toValue(Object value) {
+        return (value instanceof Number) ? attr(TYPE_NUMBER, value.toString())
+                                         : attr(TYPE_STRING, value.toString());
+    }
+
+    private static MessageAttributeValue attr(String dataType, String value) {
+        return MessageAttributeValue.builder()
+                                    .dataType(dataType)
+                                    .stringValue(value)
+                                    .build();
+    }
+
+    private static SendMessageBatchRequestEntry batchEntry(int index, SqsEncodedMessage message) {
+        return SendMessageBatchRequestEntry.builder()
+                                           .id(Integer.toString(index))
+                                           .messageBody(message.body())
+                                           .messageAttributes(message.attributes())
+                                           .messageGroupId(message.messageGroupId())
+                                           .messageDeduplicationId(message.messageDeduplicationId())
+                                           .build();
+    }
+
+    private static void assertSize(SqsEncodedMessage message, int maximumMessageSize) {
+        if (message.size() > maximumMessageSize) {
+            throw new IllegalArgumentException("Message is %d bytes which exceeds the queue limit of %d bytes".formatted(
+                    message.size(),
+                    maximumMessageSize));
+        }
+    }
+
+    private void fifoOptions(SendMessageRequest.Builder r, SqsQueue queue, Map<String, Object> attributeValues) {
+        if (queue.fifo() && attributeValues != null) {
+            for (String key : attributeValues.keySet()) {
+                checkFifoOption(r, attributeValues, key);
+            }
+        }
+    }
+
+    private static void checkFifoOption(SendMessageRequest.Builder request,
+                                        Map<String, Object> attributeValues,
+                                        String key) {
+        final Object value = attributeValues.get(key);
+        if (ATTRIBUTE_MESSAGE_DEDUPLICATION_ID.equals(key)) {
+            request.messageDeduplicationId(value.toString());
+        } else if (ATTRIBUTE_MESSAGE_GROUP_ID.equals(key)) {
+            request.messageGroupId(value.toString());
+        }
+    }
+}
@@ -18,15 +18,21 @@
 package com.limemojito.aws.sqs;
 
 
-import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.*;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 import tools.jackson.databind.json.JsonMapper;
 
-import java.util.*;
-import java.util.function.Supplier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static java.util.Collections.emptyMap;
 
@@ -42,8 +48,15 @@ import static java.util.Collections.emptyMap;
  *     <li>Content-Type - Mime like attribute</li>
  *     <li>Content-Length - Mime like attribute</li>
  * </ul>
+ * <p>
+ * Queues may be addressed by URL or by name.  Names are resolved to URLs, and FIFO and maximum message size are read
+ * from the queue attributes, through a {@link SqsQueueResolver} that caches the results.
+ * <p>
+ * An optional {@link SqsClaimCheck} stores bodies above its threshold in S3 and sends a pointer in their place.  An
+ * optional {@link SqsBodyCodec} compresses bodies above its threshold before the claim check is considered.
+ * <p>
+ * Every request sent is recorded to {@link SqsMetrics}, which records nothing unless created from a meter registry.
  */
-@RequiredArgsConstructor
 @Slf4j
 public class SqsSender {
 
@@ -100,10 +113,85 @@ public class SqsSender {
      */
     public static final String ATTRIBUTE_MESSAGE_GROUP_ID = "message-group-id";
 
-    private static final String JSON_CONTENT = "application/json";
-
     private final SqsClient sqs;
-    private final JsonMapper objectMapper;
+    private final SqsRequestFactory requestFactory;
+    private final SqsMetrics metrics;
+    private final SqsQueueResolver queueResolver;
+
+    /**
+     * Creates a sender using the supplied client and JSON encoder, with its own queue resolver.
+     *
+     * @param sqs          the blocking SQS client.
+     * @param objectMapper the JSON mapper used to encode message bodies.
+     */
+    public SqsSender(SqsClient sqs, JsonMapper objectMapper) {
+        this(sqs, objectMapper, new SqsQueueResolver(sqs));
+    }
+
+    /**
+     * Creates a sender using the supplied client, JSON encoder and shared queue resolver.
+     *
+     * @param sqs           the blocking SQS client.
+     * @param objectMapper  the JSON mapper used to encode message bodies.
+     * @param queueResolver resolves queue names to URLs and supplies queue metadata.
+     */
+    public SqsSender(SqsClient sqs, JsonMapper objectMapper, SqsQueueResolver queueResolver) {
+        this(sqs, objectMapper, queueResolver, null);
+    }
+
+    /**
+     * Creates a sender that stores large bodies in S3 with a claim check.
+     *
+     * @param sqs           the blocking SQS client.
+     * @param objectMapper  the JSON mapper used to encode message bodies.
+     * @param queueResolver resolves queue names to URLs and supplies queue metadata.
+     * @param claimCheck    stores bodies above its threshold in S3, null to send every body inline.
+     */
+    public SqsSender(SqsClient sqs,
+                     JsonMapper objectMapper,
+                     SqsQueueResolver queueResolver,
+                     SqsClaimCheck claimCheck) {
+        this(sqs, objectMapper, queueResolver, claimCheck, null);
+    }
+
+    /**
+     * Creates a sender that compresses large bodies and stores those still too large in S3 with a claim check.
+     *
+     * @param sqs           the blocking SQS client.
+     * @param objectMapper  the JSON mapper used to encode message bodies.
+     * @param queueResolver resolves queue names to URLs and supplies queue metadata.
+     * @param claimCheck    stores bodies above its threshold in S3, null to send every body inline.
+     * @param bodyCodec     compresses bodies above its threshold, null to send every body as plain JSON.
+     */
+    public SqsSender(SqsClient sqs,
+                     JsonMapper objectMapper,
+                     SqsQueueResolver queueResolver,
+                     SqsClaimCheck claimCheck,
+                     SqsBodyCodec bodyCodec) {
+        this(sqs, objectMapper, queueResolver, claimCheck, bodyCodec, SqsMetrics.NONE);
+    }
+
+    /**
+     * Creates a sender that records send metrics.
+     *
+     * @param sqs           the blocking SQS client.
+     * @param objectMapper  the JSON mapper used to encode message bodies.
+     * @param queueResolver resolves queue names to URLs and supplies queue metadata.
+     * @param claimCheck    stores bodies above its threshold in S3, null to send every body inline.
+     * @param bodyCodec     compresses bodies above its threshold, null to send every body as plain JSON.
+     * @param metrics       meters for each send request, {@link SqsMetrics#NONE} to record nothing.
+     */
+    public SqsSender(SqsClient sqs,
+                     JsonMapper objectMapper,
+                     SqsQueueResolver queueResolver,
+                     SqsClaimCheck claimCheck,
+                     SqsBodyCodec bodyCodec,
+                     SqsMetrics metrics) {
+        this.sqs = sqs;
+        this.requestFactory = new SqsRequestFactory(objectMapper, claimCheck, bodyCodec);
+        this.queueResolver = queueResolver;
+        this.metrics = metrics;
+    }
 
     /**
      * Sends a message to a specified queue URL.
@@ -130,19 +218,23 @@ public class SqsSender {
      * @see #ATTRIBUTE_MESSAGE_GROUP_ID
      */
     public void send(String queueUrl, Object message, Map<String, Object> attributeValues) {
-        assertFifo(queueUrl, attributeValues);
-        SendMessageRequest.Builder r = SendMessageRequest.builder();
-        r.queueUrl(queueUrl);
-        final String body = toJson(message);
-        r.messageBody(body);
-        fifoOptions(r, queueUrl, attributeValues);
-        if (attributeValues != null && !attributeValues.isEmpty()) {
-            r.messageAttributes(sqsAttrFrom(
-                    body.length(),
-                    attributeValues));
+        final SendMessageRequest request = requestFactory.sendRequest(queueResolver.resolve(queueUrl),
+                                                                      message,
+                                                                      attributeValues);
+        final long start = System.nanoTime();
+        boolean success = false;
+        try {
+            sqs.sendMessage(request);
+            success = true;
+        } finally {
+            metrics.recordSend(request.queueUrl(),
+                               1,
+                               SqsRequestFactory.sizeOf(request),
+                               System.nanoTime() - start,
+                               0,
+                               success);
         }
-        sqs.sendMessage(r.build());
-        log.info("Sent message: {} {} to {}", message, attributeValues, queueUrl);
+        log.debug("Sent message: {} {} to {}", message, attributeValues, queueUrl);
     }
 
     /**
@@ -157,11 +249,7 @@ public class SqsSender {
      */
     public SendMessageBatchResponse sendBatch(String queueUrl,
                                               Collection<Object> messages) {
-        Map<Object, Map<String, Object>> messageAttributeMap = new LinkedHashMap<>();
-        for (Object message : messages) {
-            messageAttributeMap.put(message, emptyMap());
-        }
-        return sendBatch(queueUrl, messageAttributeMap);
+        return sendBatch(queueUrl, SqsRequestFactory.withoutAttributes(messages));
     }
 
     /**
@@ -169,143 +257,159 @@ public class SqsSender {
      * <p>
      * The message will be enriched with standard attributes and the body as json.To send fifo information, you must include
      * ATTRIBUTE_MESSAGE_DEDUPLICATION_ID and ATTRIBUTE_MESSAGE_GROUP_ID in the attributeValues.
+     * <p>
+     * Any number of messages may be supplied.  They are packed into as few SQS batch requests as the entry count and
+     * byte size limits allow, with entry ids unique across the whole call.  Requests are sent concurrently on virtual
+     * threads, except for FIFO queues where they are sent one after another to preserve ordering.  The results of every
+     * request are merged into the returned response.  If a request throws, the remaining requests still complete before
+     * the first failure is rethrown.
      *
      * @param queueUrl            the URL of the queue to send the message to
      * @param messageAttributeMap Map of message object to message attributes.
      * @return Message batch sent.
+     * @throws IllegalArgumentException if the queue is FIFO and the FIFO headers are missing, or a single message is
+     *                                  too large for SQS.
      * @see #ATTRIBUTE_MESSAGE_DEDUPLICATION_ID
      * @see #ATTRIBUTE_MESSAGE_GROUP_ID
+     * @see SqsRequestFactory#MAX_BATCH_ENTRIES
+     * @see SqsRequestFactory#MAX_BATCH_BYTES
      */
     public SendMessageBatchResponse sendBatch(String queueUrl,
                                               Map<Object, Map<String, Object>> messageAttributeMap) {
-        messageAttributeMap.values().forEach(att -> assertFifo(queueUrl, att));
-        SendMessageBatchRequest.Builder r = SendMessageBatchRequest.builder();
-        r.queueUrl(queueUrl);
-        final List<SendMessageBatchRequestEntry> entries = new ArrayList<>(messageAttributeMap.size());
-        int i = 0;
-        for (Map.Entry<Object, Map<String, Object>> messageEntry : messageAttributeMap.entrySet()) {
-            final SendMessageBatchRequestEntry entry = createBatchEntry(queueUrl,
-                                                                        i,
-                                                                        messageEntry.getKey(),
-                                                                        messageEntry.getValue());
-            entries.add(entry);
+        if (messageAttributeMap.isEmpty()) {
+            return SendMessageBatchResponse.builder().build();
         }
-        r.entries(entries);
-        log.info("Sending batch request for {} size {}", queueUrl, messageAttributeMap.size());
-        return sqs.sendMessageBatch(r.build());
+        final SqsQueue queue = queueResolver.resolve(queueUrl);
+        return sendRequests(queue,
+                            messageAttributeMap.size(),
+                            requestFactory.batchRequests(queue, messageAttributeMap));
     }
 
-    private void assertFifo(String queueUrl, Map<String, Object> attributeValues) {
-        if (isFifo(queueUrl)) {
-            if (attributeValues == null
-                    || attributeValues.isEmpty()
-                    || !attributeValues.containsKey(ATTRIBUTE_MESSAGE_DEDUPLICATION_ID)
-                    || !attributeValues.containsKey(ATTRIBUTE_MESSAGE_GROUP_ID)) {
-                throw new IllegalArgumentException(
-                        "If you want to send a fifo message, you must include %s and %s in the attributeValues".formatted(
-                                ATTRIBUTE_MESSAGE_GROUP_ID,
-                                ATTRIBUTE_MESSAGE_DEDUPLICATION_ID));
-            }
+    /**
+     * Sends a list of messages to the specified queue using batch requests, as for {@link #sendBatch(String, Map)}.
+     * <p>
+     * Equal messages are sent as separate entries and the entry id of each message is its index in the list, so
+     * failed entries in the response can be matched back to the message that failed.
+     *
+     * @param queueUrl the URL of the queue to send the message to
+     * @param messages the messages and their attributes.
+     * @return Message batch sent.
+     * @throws IllegalArgumentException if the queue is FIFO and the FIFO headers are missing, or a single message is
+     *                                  too large for SQS.
+     */
+    public SendMessageBatchResponse sendBatchMessages(String queueUrl, List<SqsBatchMessage> messages) {
+        if (messages.isEmpty()) {
+            return SendMessageBatchResponse.builder().build();
         }
+        final SqsQueue queue = queueResolver.resolve(queueUrl);
+        return sendRequests(queue, messages.size(), requestFactory.batchRequests(queue, messages));
     }
 
-    private Map<String, MessageAttributeValue> sqsAttrFrom(int contentLength,
-                                                           Map<String, Object> attributes) {
-        Map<String, MessageAttributeValue> attributeMap = new LinkedHashMap<>();
-        if (attributes != null) {
-            attributes.forEach((key, value) -> {
-                if (notFifoHeader(key)) {
-                    attributeMap.put(key, toValue(value));
-                }
-            });
+    /**
+     * Sends already encoded messages to the specified queue using batch requests, as for
+     * {@link #sendBatchMessages(String, List)}.  No JSON encoding or attribute generation happens here, only packing
+     * and I/O.
+     *
+     * @param queueUrl the URL of the queue to send the message to
+     * @param messages the encoded messages.
+     * @return Message batch sent.
+     * @see #encode(String, Object, Map)
+     */
+    public SendMessageBatchResponse sendEncoded(String queueUrl, List<SqsEncodedMessage> messages) {
+        if (messages.isEmpty()) {
+            return SendMessageBatchResponse.builder().build();
         }
-        checkValue(attributeMap, ATTRIBUTE_ID, UUID::randomUUID);
-        checkValue(attributeMap, ATTRIBUTE_TIMESTAMP, System::currentTimeMillis);
-        checkValue(attributeMap, ATTRIBUTE_SPRING_CONTENT_TYPE, () -> JSON_CONTENT);
-        checkValue(attributeMap, ATTRIBUTE_CONTENT_TYPE, () -> JSON_CONTENT);
-        checkValue(attributeMap, ATTRIBUTE_CONTENT_LENGTH, () -> contentLength);
-        log.trace("Generated attribute map {}", attributeMap);
-        return attributeMap;
-    }
-
-    private static boolean notFifoHeader(String key) {
-        return !(ATTRIBUTE_MESSAGE_DEDUPLICATION_ID.equals(key) || (ATTRIBUTE_MESSAGE_GROUP_ID.equals(key)));
+        final SqsQueue queue = queueResolver.resolve(queueUrl);
+        return sendRequests(queue, messages.size(), requestFactory.batchRequestsEncoded(queue, messages));
     }
 
-    private static MessageAttributeValue toValue(Object value) {
-        return (value instanceof Number) ? attr("Number", value)
-                                         : attr("String", value);
+    /**
+     * Encodes a message to JSON with the standard attributes and FIFO options exactly as it would be sent, so that
+     * encoding can happen ahead of the send, for example on a producer thread.
+     *
+     * @param queueUrl        the URL of the queue the message will be sent to
+     * @param message         the message to encode
+     * @param attributeValues additional attribute values for the message
+     * @return the encoded message.
+     * @throws IllegalArgumentException if the queue is FIFO and the FIFO headers are missing.
+     * @see #sendEncoded(String, List)
+     */
+    public SqsEncodedMessage encode(String queueUrl, Object message, Map<String, Object> attributeValues) {
+        return requestFactory.encode(queueResolver.resolve(queueUrl), message, attributeValues);
     }
 
-    private void checkValue(Map<String, MessageAttributeValue> map,
-                            String id,
-                            Supplier<Object> supplier) {
-        if (map.get(id) == null) {
-            map.put(id, toValue(supplier.get()));
-        }
+    /**
+     * Resolves a queue name or URL to the queue URL and metadata through the sender's queue resolver.
+     *
+     * @param queueUrl queue URL or name.
+     * @return the queue URL and metadata.
+     */
+    public SqsQueue resolve(String queueUrl) {
+        return queueResolver.resolve(queueUrl);
     }
 
-    private static MessageAttributeValue attr(String dataType, Object value) {
-        return MessageAttributeValue.builder()
-                                    .dataType(dataType)
-                                    .stringValue(value.toString())
-                                    .build();
+    /**
+     * The meters this sender records to, shared with senders built on it such as the pump.
+     *
+     * @return the sender's metrics.
+     */
+    public SqsMetrics getMetrics() {
+        return metrics;
     }
 
-    private SendMessageBatchRequestEntry createBatchEntry(String queueUrl,
-                                                          int index,
-                                                          Object message,
-                                                          Map<String, Object> attributes) {
-        final String body = toJson(message);
-        final int length = body.length();
-        final SendMessageBatchRequestEntry.Builder entry;
-        entry = SendMessageBatchRequestEntry.builder()
-                                            .id(Integer.toString(index))
-                                            .messageBody(body);
-        if (isFifo(queueUrl) && attributes != null) {
-            attributes.keySet().forEach(key -> checkFifoOption(entry, attributes, key));
+    private SendMessageBatchResponse sendRequests(SqsQueue queue, int size, List<SendMessageBatchRequest> requests) {
+        log.info("Sending batch request for {} size {} in {} requests", queue.url(), size, requests.size());
+        if (requests.size() == 1 || queue.fifo()) {
+            final List<SendMessageBatchResponse> responses = new ArrayList<>(requests.size());
+            requests.forEach(request -> responses.add(send(request)));
+            return SqsRequestFactory.merge(responses);
         }
-        entry.messageAttributes(sqsAttrFrom(length, attributes));
-        return entry.build();
-
-    }
-
-    private static boolean isFifo(String queueUrl) {
-        return queueUrl.endsWith("fifo");
+        return SqsRequestFactory.merge(sendConcurrently(requests));
     }
 
-    @SneakyThrows
-    private String toJson(Object object) {
-        return objectMapper.writeValueAsString(object);
-    }
-
-    private void fifoOptions(SendMessageRequest.Builder r, String queueUrl, Map<String, Object> attributeValues) {
-        if (isFifo(queueUrl) && attributeValues != null) {
-            for (String key : attributeValues.keySet()) {
-                checkFifoOption(r, attributeValues, key);
+    private List<SendMessageBatchResponse> sendConcurrently(List<SendMessageBatchRequest> requests) {
+        final List<Future<SendMessageBatchResponse>> futures = new ArrayList<>(requests.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            requests.forEach(request -> futures.add(executor.submit(() -> send(request))));
+        }
+        final List<SendMessageBatchResponse> responses = new ArrayList<>(requests.size());
+        RuntimeException failure = null;
+        for (Future<SendMessageBatchResponse> future : futures) {
+            try {
+                responses.add(future.get());
+            } catch (ExecutionException e) {
+                failure = firstFailure(failure, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = firstFailure(failure, e);
             }
         }
+        if (failure != null) {
+            throw failure;
+        }
+        return responses;
     }
 
-    private static void checkFifoOption(SendMessageBatchRequestEntry.Builder entry,
-                                        Map<String, Object> attributes,
-                                        String key) {
-        final Object value = attributes.get(key);
-        if (key.equals(ATTRIBUTE_MESSAGE_DEDUPLICATION_ID)) {
-            entry.messageDeduplicationId(value.toString());
-        } else if (key.equals(ATTRIBUTE_MESSAGE_GROUP_ID)) {
-            entry.messageGroupId(value.toString());
+    private SendMessageBatchResponse send(SendMessageBatchRequest request) {
+        final long start = System.nanoTime();
+        SendMessageBatchResponse response = null;
+        try {
+            response = sqs.sendMessageBatch(request);
+            return response;
+        } finally {
+            metrics.recordBatch(request.queueUrl(),
+                                request,
+                                System.nanoTime() - start,
+                                response == null ? 0 : response.failed().size(),
+                                response != null);
         }
     }
 
-    private static void checkFifoOption(SendMessageRequest.Builder request,
-                                        Map<String, Object> attributeValues,
-                                        String key) {
-        final Object value = attributeValues.get(key);
-        if (ATTRIBUTE_MESSAGE_DEDUPLICATION_ID.equals(key)) {
-            request.messageDeduplicationId(value.toString());
-        } else if (ATTRIBUTE_MESSAGE_GROUP_ID.equals(key)) {
-            request.messageGroupId(value.toString());
+    private static RuntimeException firstFailure(RuntimeException current, Throwable next) {
+        if (current != null) {
+            current.addSuppressed(next);
+            return current;
         }
+        return next instanceof RuntimeException runtime ? runtime : new IllegalStateException(next);
     }
 }
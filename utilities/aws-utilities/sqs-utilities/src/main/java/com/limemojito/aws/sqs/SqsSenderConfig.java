@@ -18,14 +18,30 @@
 package com.limemojito.aws.sqs;
 
 import com.limemojito.json.spring.LimeJacksonJsonConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Lazy;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
 import tools.jackson.databind.json.JsonMapper;
 
+import java.time.Duration;
+
 /**
- * Configuration to create a SQS sender that uses all the standard attributes.
+ * Configuration to create SQS senders that use all the standard attributes.  The asynchronous sender is lazy so that
+ * an {@link SqsAsyncClient} is only required when it is injected.  Set {@code com.limemojito.sqs.claimCheckBucket},
+ * with the optional S3 SDK on the classpath and an {@link S3Client} bean, or define a {@link SqsClaimCheck} bean, to
+ * have the blocking sender store large bodies in S3.  Define a {@link SqsBodyCodec} bean to have both senders compress
+ * large bodies.  When a {@link MeterRegistry} bean is present the blocking sender, and any pump built on it, record
+ * {@link SqsMetrics}.
  */
 @Configuration
 @Import(LimeJacksonJsonConfiguration.class)
@@ -36,12 +52,109 @@ public class SqsSenderConfig {
      * Creates a new instance of {@link SqsSender} using the provided {@link SqsClient} and {@link JsonMapper}.
      * This method is used to configure a SQS sender that uses all the standard attributes.
      *
-     * @param sqs          the {@link SqsClient} used to interact with Amazon Simple Queue Service (SQS)
-     * @param objectMapper the {@link JsonMapper} used to convert objects to JSON
+     * @param sqs              the {@link SqsClient} used to interact with Amazon Simple Queue Service (SQS)
+     * @param objectMapper     the {@link JsonMapper} used to convert objects to JSON
+     * @param sqsQueueResolver the shared resolver of queue names and metadata
+     * @param claimCheck       a {@link SqsClaimCheck} bean if one is defined, to store large bodies in S3
+     * @param bodyCodec        a {@link SqsBodyCodec} bean if one is defined, to compress large bodies
+     * @param metrics          the {@link SqsMetrics} bean when Micrometer is on the classpath, otherwise
+     *                         {@link SqsMetrics#NONE}
      * @return a new instance of {@link SqsSender} configured with the provided {@link SqsClient} and {@link JsonMapper}
      */
     @Bean
-    public SqsSender sqsSender(SqsClient sqs, JsonMapper objectMapper) {
-        return new SqsSender(sqs, objectMapper);
+    public SqsSender sqsSender(SqsClient sqs,
+                               JsonMapper objectMapper,
+                               SqsQueueResolver sqsQueueResolver,
+                               ObjectProvider<SqsClaimCheck> claimCheck,
+                               ObjectProvider<SqsBodyCodec> bodyCodec,
+                               ObjectProvider<SqsMetrics> metrics) {
+        return new SqsSender(sqs,
+                             objectMapper,
+                             sqsQueueResolver,
+                             claimCheck.getIfAvailable(),
+                             bodyCodec.getIfAvailable(),
+                             metrics.getIfAvailable(() -> SqsMetrics.NONE));
+    }
+
+    /**
+     * Creates the shared resolver of queue names to URLs and queue metadata.
+     *
+     * @param sqs        the {@link SqsClient} used to look up queues.
+     * @param ttlSeconds how long a resolved queue is cached, property {@code com.limemojito.sqs.queueCacheTtlSeconds}.
+     * @return the queue resolver.
+     */
+    @Bean
+    public SqsQueueResolver sqsQueueResolver(SqsClient sqs,
+                                             @Value("${com.limemojito.sqs.queueCacheTtlSeconds:300}") long ttlSeconds) {
+        return new SqsQueueResolver(sqs, Duration.ofSeconds(ttlSeconds));
+    }
+
+    /**
+     * Creates a new instance of {@link SqsAsyncSender} using the provided {@link SqsAsyncClient} and {@link JsonMapper}.
+     * Created on first injection so applications without an async client are unaffected.
+     *
+     * @param sqs          the {@link SqsAsyncClient} used to interact with Amazon Simple Queue Service (SQS)
+     * @param objectMapper the {@link JsonMapper} used to convert objects to JSON
+     * @param bodyCodec    a {@link SqsBodyCodec} bean if one is defined, to compress large bodies
+     * @return a new instance of {@link SqsAsyncSender} configured with the provided {@link SqsAsyncClient} and {@link JsonMapper}
+     */
+    @Bean
+    @Lazy
+    public SqsAsyncSender sqsAsyncSender(SqsAsyncClient sqs,
+                                         JsonMapper objectMapper,
+                                         ObjectProvider<SqsBodyCodec> bodyCodec) {
+        return new SqsAsyncSender(sqs, objectMapper, bodyCodec.getIfAvailable());
+    }
+
+    /**
+     * Creates the {@link SqsMetrics} from the application's {@link MeterRegistry}.  Only processed when the optional
+     * Micrometer dependency is on the classpath, so the sender falls back to {@link SqsMetrics#NONE} without it.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class SqsMetricsConfig {
+
+        /**
+         * Creates metrics recording to the registry, or recording nothing when no registry bean is defined.
+         *
+         * @param meterRegistry a {@link MeterRegistry} bean if one is defined.
+         * @return the metrics.
+         */
+        @Bean
+        @ConditionalOnMissingBean(SqsMetrics.class)
+        public SqsMetrics sqsMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+            final MeterRegistry registry = meterRegistry.getIfAvailable();
+            return registry == null ? SqsMetrics.NONE : new SqsMetrics(registry);
+        }
+    }
+
+    /**
+     * Creates the claim check from the application's {@link S3Client} when a bucket is configured.  Only processed when
+     * the optional S3 SDK is on the classpath, so applications without it never load {@link SqsClaimCheck}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "software.amazon.awssdk.services.s3.S3Client")
+    @ConditionalOnProperty("com.limemojito.sqs.claimCheckBucket")
+    static class SqsClaimCheckConfig {
+
+        /**
+         * Creates a claim check storing large bodies in the configured bucket.
+         *
+         * @param s3             the {@link S3Client} bean used to store and fetch bodies.
+         * @param objectMapper   the {@link JsonMapper} used to read and write pointers.
+         * @param bucket         the bucket, property {@code com.limemojito.sqs.claimCheckBucket}.
+         * @param thresholdBytes size above which bodies are stored, property
+         *                       {@code com.limemojito.sqs.claimCheckThresholdBytes}.
+         * @return the claim check.
+         */
+        @Bean
+        @ConditionalOnMissingBean(SqsClaimCheck.class)
+        public SqsClaimCheck sqsClaimCheck(S3Client s3,
+                                           JsonMapper objectMapper,
+                                           @Value("${com.limemojito.sqs.claimCheckBucket}") String bucket,
+                                           @Value("${com.limemojito.sqs.claimCheckThresholdBytes:"
+                                                  + SqsClaimCheck.DEFAULT_THRESHOLD_BYTES + "}") int thresholdBytes) {
+            return new SqsClaimCheck(s3, objectMapper, bucket, thresholdBytes);
+        }
     }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.pump;
+
+import com.limemojito.aws.sqs.SqsEncodedMessage;
+import com.limemojito.aws.sqs.SqsMetrics;
+import com.limemojito.aws.sqs.SqsSender;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Sends one batch for {@link SqsPump} and {@link SqsReactivePump}, resending the entries SQS fails without a sender
+ * fault with exponential backoff and full jitter, so that producers throttled together do not retry together.  For
+ * FIFO destinations the later entries of a failed entry's message group are resent behind it, so a retry never sends
+ * a group out of order; SQS deduplicates the entries it has already accepted.
+ */
+@Slf4j
+class SqsBatchRetry {
+    private final SqsSender sqsSender;
+    private final SqsMetrics metrics;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final long maxRetryBackoffMs;
+
+    /**
+     * Creates a retrying sender.
+     *
+     * @param sqsSender sender the batches are sent through.
+     * @param settings  retry settings.
+     */
+    SqsBatchRetry(SqsSender sqsSender, SqsPumpSettings settings) {
+        this.sqsSender = sqsSender;
+        this.metrics = sqsSender.getMetrics();
+        this.maxRetries = settings.getMaxRetries();
+        this.retryBackoffMs = settings.getRetryBackoffMs();
+        this.maxRetryBackoffMs = settings.getMaxRetryBackoffMs();
+    }
+
+    /**
+     * Sends the messages as one batch request, then retries as described above.  A request that throws ends the send,
+     * leaving the messages still outstanding without an outcome.
+     *
+     * @param destination    queue name or URL.
+     * @param messages       the messages, at most one batch.
+     * @param encoder        reads the encoding of a message, called again for each attempt the message is part of.
+     * @param messageGroupId reads the message group of a message on a FIFO destination.
+     * @param <T>            the message type.
+     * @return the outcome of each message, by index.
+     */
+    <T> Outcome send(String destination,
+                     List<T> messages,
+                     Function<T, SqsEncodedMessage> encoder,
+                     Function<T, String> messageGroupId) {
+        final boolean fifo = sqsSender.resolve(destination).fifo();
+        final Outcome outcome = new Outcome(messages.size());
+        List<Integer> outstanding = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            outstanding.add(i);
+        }
+        int attempt = 0;
+        while (!outstanding.isEmpty()) {
+            final List<SqsEncodedMessage> batch = new ArrayList<>(outstanding.size());
+            outstanding.forEach(index -> batch.add(encoder.apply(messages.get(index))));
+            final SendMessageBatchResponse response;
+            try {
+                response = sqsSender.sendEncoded(destination, batch);
+            } catch (RuntimeException e) {
+                outcome.error(outstanding, e);
+                return outcome;
+            }
+            for (SendMessageBatchResultEntry entry : response.successful()) {
+                outcome.sent(outstanding.get(Integer.parseInt(entry.id())), entry.messageId());
+            }
+            final Map<Integer, BatchResultErrorEntry> failures = HashMap.newHashMap(response.failed().size());
+            for (BatchResultErrorEntry entry : response.failed()) {
+                failures.put(Integer.parseInt(entry.id()), entry);
+            }
+            final List<Integer> retry = new ArrayList<>(failures.size());
+            final Set<String> retryingGroups = fifo ? new HashSet<>() : Set.of();
+            for (int i = 0; i < outstanding.size(); i++) {
+                final int index = outstanding.get(i);
+                final BatchResultErrorEntry entry = failures.get(i);
+                if (entry == null) {
+                    if (fifo && retryingGroups.contains(messageGroupId.apply(messages.get(index)))) {
+                        retry.add(index);
+                    }
+                } else {
+                    outcome.failed(index, entry);
+                    if (!entry.senderFault() && attempt < maxRetries) {
+                        retry.add(index);
+                        if (fifo) {
+                            retryingGroups.add(messageGroupId.apply(messages.get(index)));
+                        }
+                    }
+                }
+            }
+            outstanding = retry;
+            if (!outstanding.isEmpty() && !backoff(destination, ++attempt, outstanding.size())) {
+                break;
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Waits before a retry.
+     *
+     * @return false if interrupted while waiting, in which case no retry should be made.
+     */
+    private boolean backoff(String destination, int attempt, int count) {
+        final long ceiling = Math.min(maxRetryBackoffMs, retryBackoffMs << Math.min(attempt - 1, 30));
+        final long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        log.warn("Retrying {} messages to {} attempt {} in {}ms", count, destination, attempt, delay);
+        metrics.recordRetries(destination, count);
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * The outcome of each message of a batch.  A message is either sent with a message id, failed with the last error
+     * SQS returned for it, or has neither when the request carrying it threw.
+     */
+    static final class Outcome {
+        private final String[] messageIds;
+        private final BatchResultErrorEntry[] failures;
+        private RuntimeException error;
+
+        private Outcome(int size) {
+            this.messageIds = new String[size];
+            this.failures = new BatchResultErrorEntry[size];
+        }
+
+        String messageId(int index) {
+            return messageIds[index];
+        }
+
+        BatchResultErrorEntry failure(int index) {
+            return failures[index];
+        }
+
+        boolean isSent(int index) {
+            return messageIds[index] != null;
+        }
+
+        /**
+         * The exception thrown by the last request, if one did.
+         *
+         * @return the exception or null.
+         */
+        RuntimeException error() {
+            return error;
+        }
+
+        private void sent(int index, String messageId) {
+            messageIds[index] = messageId;
+            failures[index] = null;
+        }
+
+        private void failed(int index, BatchResultErrorEntry entry) {
+            messageIds[index] = null;
+            failures[index] = entry;
+        }
+
+        private void error(List<Integer> outstanding, RuntimeException e) {
+            error = e;
+            // a FIFO entry resent behind its group was accepted earlier, so only failed entries lose their outcome.
+            for (int index : outstanding) {
+                failures[index] = null;
+            }
+        }
+    }
+}
@@ -17,21 +17,28 @@
 
 package com.limemojito.aws.sqs.pump;
 
+import com.limemojito.aws.sqs.SqsEncodedMessage;
+import com.limemojito.aws.sqs.SqsMetrics;
+import com.limemojito.aws.sqs.SqsRequestFactory;
 import com.limemojito.aws.sqs.SqsSender;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
-import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
 
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * SQS Pump is designed to be used in a multithreaded context where with exclusive flush semantics.  Two threads writing
- * to the same destination will get one batch sent.  Attributes are set to be compatible with spring cloud messaging.
+ * SQS Pump is designed to be used in a multithreaded context with exclusive flush semantics per destination.  Two
+ * threads writing to the same destination will get one batch sent, while different destinations flush in parallel so
+ * a slow queue does not hold up any other.  Producers keep enqueuing while a batch for their destination is in flight.
+ * Attributes are set to be compatible with spring cloud messaging.
  *
  * <ul>
  *     <li>id - unique id for each message</li>
@@ -40,32 +47,126 @@ import java.util.concurrent.ConcurrentLinkedDeque;
  *     <li>Content-Type - Mime like attribute</li>
  *     <li>Content-Length - Mime like attribute</li>
  * </ul>
+ * <p>
+ * When a linger time is configured a background flusher running on a virtual thread sends any destination whose
+ * oldest message has waited longer than the linger time, bounding latency for slow trickles of messages.  The flusher
+ * is stopped by {@link #close()}.
+ * <p>
+ * Entries that SQS fails without a sender fault, such as throttling or internal errors, are resent on their own with a
+ * jittered exponential backoff.  For FIFO destinations the later entries of a failed entry's message group are resent
+ * behind it, so a retry never sends a group out of order.  Only entries that still fail once the retry budget is spent,
+ * or that failed with a sender fault, cause the flush to throw.
+ * <p>
+ * Buffers may be bounded per destination and in total, with a {@link SqsPumpOverflowPolicy} deciding whether a
+ * producer blocks, fails or flushes when full, keeping memory predictable when SQS slows down.
+ * <p>
+ * Messages are encoded to JSON with their attributes on the producer thread when sent, so flushing under the
+ * destination lock is pure I/O and a message too large for SQS is rejected before it is buffered.
+ * <p>
+ * With a journal directory configured the pump is durable.  Each message is encoded and written to a memory-mapped
+ * journal before send returns, leaving only a reference on heap, and messages without a final outcome are replayed
+ * in the background when the pump is next started, up to {@value SqsPumpJournal#MAX_REPLAYS} times.
+ * <p>
+ * FIFO destinations may flush several batches at once when a FIFO group concurrency above one is configured.  Buffered
+ * messages are partitioned by message group, batches are packed across groups, and no two batches in flight hold the
+ * same group, so distinct groups send concurrently while each group stays in order.
+ * <p>
+ * Buffered depth, flush durations and retries are recorded to the {@link SqsMetrics} of the sender.
+ *
+ * @see SqsPumpSettings
  */
 @Component
 @Slf4j
 public class SqsPump implements AutoCloseable {
+    private static final long FLUSHER_STOP_SECONDS = 30;
+    private static final long FLUSH_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
     private final SqsSender sqsSender;
+    private final SqsMetrics metrics;
     private final int pumpMaxBatchSize;
-    private final Map<String, ConcurrentLinkedDeque<SqsPumpMessage>> localPump;
+    private final long lingerMs;
+    private final SqsBatchRetry batchRetry;
+    private final int destinationCapacity;
+    private final Semaphore totalSpace;
+    private final SqsPumpOverflowPolicy overflowPolicy;
+    private final SqsPumpJournal journal;
+    private final int fifoGroupConcurrency;
+    private final Map<String, SqsPumpBuffer> localPump;
+    private final ExecutorService flushExecutor;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean closed;
+    private final Map<String, List<SqsPumpJournal.Record>> recovered;
 
     /**
-     * Constructs a new instance of the SqsPump class.
+     * Constructs a new instance of the SqsPump class with no background flushing.
      *
      * @param sqsSender        Use SQS Sender to send messages with attributes set.
      * @param pumpMaxBatchSize The maximum number of messages to send in a single batch from SQS.
      */
-    public SqsPump(SqsSender sqsSender,
-                   @Value("${com.limemojito.sqs.batchSize:10}") int pumpMaxBatchSize) {
+    public SqsPump(SqsSender sqsSender, int pumpMaxBatchSize) {
+        this(sqsSender, SqsPumpSettings.builder().maxBatchSize(pumpMaxBatchSize).build());
+    }
+
+    /**
+     * Constructs a new instance of the SqsPump class.
+     *
+     * @param sqsSender Use SQS Sender to send messages with attributes set.
+     * @param settings  Batch size and linger settings for the pump.
+     */
+    @Autowired
+    @SuppressWarnings("this-escape") // the linger flusher's first run is scheduled a period after construction.
+    public SqsPump(SqsSender sqsSender, SqsPumpSettings settings) {
+        settings.validate();
         this.sqsSender = sqsSender;
-        this.pumpMaxBatchSize = pumpMaxBatchSize;
+        this.metrics = sqsSender.getMetrics();
+        this.pumpMaxBatchSize = settings.getMaxBatchSize();
+        this.lingerMs = settings.getLingerMs();
+        this.batchRetry = new SqsBatchRetry(sqsSender, settings);
+        this.destinationCapacity = settings.getDestinationCapacity();
+        this.totalSpace = settings.getTotalCapacity() > 0 ? new Semaphore(settings.getTotalCapacity()) : null;
+        this.overflowPolicy = settings.getOverflowPolicy();
+        this.journal = settings.isDurable()
+                       ? new SqsPumpJournal(Path.of(settings.getJournalDirectory()), settings.getJournalSegmentBytes())
+                       : null;
+        this.fifoGroupConcurrency = settings.getFifoGroupConcurrency();
         this.localPump = new ConcurrentHashMap<>();
-        log.info("Initialized SQS Pump with max batch size {}", pumpMaxBatchSize);
+        this.flushExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                                                                      .name("sqs-pump-flush-", 0)
+                                                                      .factory());
+        this.flusher = lingerMs > 0 ? startFlusher() : null;
+        this.closed = new AtomicBoolean();
+        this.recovered = journal != null ? journal.recover() : new LinkedHashMap<>();
+        log.info("Initialized SQS Pump with max batch size {} linger {}ms", pumpMaxBatchSize, lingerMs);
+    }
+
+    /**
+     * Replays messages recovered from the journal.  Called by Spring once the pump is constructed; call it before the
+     * first send when constructing a durable pump directly.  The recovered messages are buffered before this returns,
+     * so they go ahead of anything sent since, and are flushed in the background.  Only a start counts as a replay, so
+     * recovered messages stay in the journal, replays unused, for the next start if this is never called.  Calling
+     * start more than once has no further effect.
+     */
+    @PostConstruct
+    public void start() {
+        synchronized (recovered) {
+            final long now = System.nanoTime();
+            recovered.forEach((destination, records) -> {
+                final SqsPumpBuffer buffer = bufferFor(destination);
+                for (SqsPumpJournal.Record record : records) {
+                    journal.replaying(record);
+                    buffer.addUnreserved(SqsPumpMessage.journaled(record, now));
+                }
+                log.info("Replaying {} journaled messages to {}", records.size(), destination);
+                flushExecutor.execute(() -> replay(destination));
+            });
+            recovered.clear();
+        }
     }
 
     /**
      * Sends a message by adding it to the batch to be flushed by more message sends, or the flush method.
      *
-     * @param destination     Destination to send message batch to.  May be qName or qUrl, url is more efficient.
+     * @param destination     Destination to send message batch to.  May be qName or qUrl, names are resolved and
+     *                        cached.
      * @param jsonableMessage message to send
      * @see #flush(String)
      * @see #flushAll()
@@ -78,90 +179,510 @@ public class SqsPump implements AutoCloseable {
      * Sends a message by adding it to the batch to be flushed by more message sends, or the flush method.  For FIFO
      * queues message-group-id and message-deduplication-id must be supplied.
      * <p>
+     * When the destination has a full batch waiting the calling thread sends it, unless another thread is already
+     * flushing that destination in which case the message is left for that thread.
+     * <p>
+     * If a capacity limit is reached the configured {@link SqsPumpOverflowPolicy} applies: the call blocks until
+     * there is room, throws {@link IllegalStateException} without buffering the message, or flushes on the calling
+     * thread until there is room.
+     * <p>
      * Note headers for ID, contentType and Timestamp (epoch millis) are set to ensure spring messaging compatibility.
      *
-     * @param destination     Destination to send message batch to.  May be qName or qUrl, url is more efficient.
+     * @param destination     Destination to send message batch to.  May be qName or qUrl, names are resolved and
+     *                        cached.
      * @param jsonableMessage message to send
      * @param attributes      attributes to apply to message as SQS Attributes.  May also include FIFO info as headers.
+     * @throws IllegalArgumentException if FIFO headers are missing for a FIFO queue, or the encoded message is too
+     *                                  large for SQS.
      * @see #flush(String)
      * @see #flushAll()
      * @see SqsSender#ATTRIBUTE_MESSAGE_GROUP_ID
      * @see SqsSender#ATTRIBUTE_MESSAGE_DEDUPLICATION_ID
      */
     public void send(String destination, Object jsonableMessage, Map<String, Object> attributes) {
-        if (pumpFor(destination).size() >= pumpMaxBatchSize) {
-            flush(destination);
+        // encode on the producer thread, so flushing is only I/O and oversized messages are never buffered.
+        final SqsEncodedMessage encoded = sqsSender.encode(destination, jsonableMessage, attributes);
+        final int maximumMessageSize = Math.min(sqsSender.resolve(destination).maximumMessageSize(),
+                                                SqsRequestFactory.MAX_BATCH_BYTES);
+        if (encoded.size() > maximumMessageSize) {
+            throw new IllegalArgumentException("Message for %s is %d bytes, the queue limit is %d bytes".formatted(
+                    destination,
+                    encoded.size(),
+                    maximumMessageSize));
         }
-        pumpFor(destination).add(new SqsPumpMessage(jsonableMessage, attributes));
+        final SqsPumpBuffer buffer = bufferFor(destination);
+        reserve(destination, buffer);
+        buffer.add(enqueue(destination, buffer, encoded));
+        drainFullBatches(destination, buffer);
     }
 
     /**
-     * Flushes messages to the specified destination.
+     * Flushes messages to the specified destination.  Waits for any flush of the destination already in progress,
+     * then sends every message buffered for the destination.  Other destinations are not blocked.
      *
      * @param destination the destination to flush messages to.
      */
-    public synchronized void flush(String destination) {
-        final Deque<SqsPumpMessage> volatileMessages = pumpFor(destination);
-        while (!volatileMessages.isEmpty()) {
-            final List<SqsPumpMessage> messages = removeMessagesToSend(volatileMessages);
-            log.trace("Flushing {} messages to {}", messages.size(), destination);
-            Map<Object, Map<String, Object>> toRaw = new LinkedHashMap<>();
-            messages.forEach(message -> toRaw.put(message.getMessage(), message.getAttributes()));
-            final SendMessageBatchResponse sendMessageBatchResult = sqsSender.sendBatch(destination, toRaw);
-            final List<BatchResultErrorEntry> failed = sendMessageBatchResult.failed();
-            if (!failed.isEmpty()) {
-                log.error("{} messages failed to {}", failed.size(), destination);
-                for (BatchResultErrorEntry batchResultErrorEntry : failed) {
-                    log.error("Failure onSender={} {}:{}",
-                              batchResultErrorEntry.senderFault(),
-                              batchResultErrorEntry.code(),
-                              batchResultErrorEntry.message());
-                }
-                throw new IllegalStateException("Could not send all messages to SQS " + destination);
-            } else {
-                log.debug("Sent {} messages to {} ok", messages.size(), destination);
+    public void flush(String destination) {
+        final SqsPumpBuffer buffer = localPump.get(destination);
+        if (buffer != null) {
+            buffer.lock();
+            try {
+                drain(destination, buffer, 1);
+            } finally {
+                buffer.unlock();
             }
+            drainFullBatches(destination, buffer);
         }
     }
 
     /**
-     * Flushes all destinations by iterating over the set of destinations maintained in the localPump object and calling the flush method for each destination.
-     * This method should be called before destroying the object.
-     * <p>
-     * {@code @PreDestroy } annotation is used to indicate that this method should be called before the object is destroyed.
-     * It is important to call this method to ensure that any pending data in the destinations is flushed before destroying the object.
+     * Flushes all destinations maintained in the localPump object in parallel, waiting for every destination to
+     * complete.  If any destination fails the first failure is rethrown once all flushes have finished.
      *
      * @see #flush(String)
      */
-    @PreDestroy
     public void flushAll() {
-        final Set<String> destinations = localPump.keySet();
-        for (String destination : destinations) {
-            flush(destination);
+        if (flushExecutor.isShutdown()) {
+            // closed pump, flush in the calling thread.
+            localPump.keySet().forEach(this::flush);
+            return;
+        }
+        final List<Future<?>> flushes = new ArrayList<>(localPump.size());
+        for (String destination : localPump.keySet()) {
+            flushes.add(flushExecutor.submit(() -> flush(destination)));
+        }
+        RuntimeException failure = null;
+        for (Future<?> flush : flushes) {
+            try {
+                flush.get();
+            } catch (ExecutionException e) {
+                failure = firstFailure(failure, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = firstFailure(failure, e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
         }
     }
 
+    /**
+     * The number of messages currently buffered across all destinations, excluding batches already taken for sending.
+     *
+     * @return buffered message count.
+     */
+    public int getBufferedDepth() {
+        int depth = 0;
+        for (SqsPumpBuffer buffer : localPump.values()) {
+            depth += buffer.depth();
+        }
+        return depth;
+    }
+
+    /**
+     * The number of messages currently buffered for a destination, excluding batches already taken for sending.
+     *
+     * @param destination the destination to inspect.
+     * @return buffered message count, 0 for an unknown destination.
+     */
+    public int getBufferedDepth(String destination) {
+        final SqsPumpBuffer buffer = localPump.get(destination);
+        return buffer == null ? 0 : buffer.depth();
+    }
+
     /**
      * Closes the resource and flushes any pending data.
      * <p>
-     * This method overrides the close() method from the parent class. It should be called to release any resources held by the object and to ensure that any pending data is written
-     * before closing the resource.
+     * The background flusher, if running, is stopped before the final flush so that no further sends are attempted
+     * after this method returns.  {@code @PreDestroy } annotation is used to indicate that this method should be
+     * called before the object is destroyed.  Calling close more than once has no further effect.
+     *
+     * @see #flushAll()
      */
     @Override
+    @PreDestroy
     public void close() {
-        flushAll();
+        if (closed.compareAndSet(false, true)) {
+            if (flusher != null) {
+                flusher.shutdown();
+                awaitStop(flusher);
+            }
+            try {
+                flushAll();
+            } finally {
+                flushExecutor.shutdown();
+                awaitStop(flushExecutor);
+                if (journal != null) {
+                    journal.close();
+                }
+            }
+        }
+    }
+
+    private SqsPumpBuffer bufferFor(String destination) {
+        final SqsPumpBuffer existing = localPump.get(destination);
+        if (existing != null) {
+            return existing;
+        }
+        // resolved outside the map, as a cache miss calls SQS and would block every destination in the same bin.
+        final String queueUrl = sqsSender.resolve(destination).url();
+        final SqsPumpBuffer buffer = new SqsPumpBuffer(destinationCapacity, this::releaseTotal);
+        final SqsPumpBuffer raced = localPump.putIfAbsent(destination, buffer);
+        if (raced != null) {
+            return raced;
+        }
+        metrics.gaugeBuffered(queueUrl, buffer, SqsPumpBuffer::depth);
+        return buffer;
+    }
+
+    private void reserve(String destination, SqsPumpBuffer buffer) {
+        switch (overflowPolicy) {
+            case BLOCK -> reserveBlocking(destination, buffer);
+            case FAIL -> {
+                if (!tryReserve(buffer)) {
+                    throw new IllegalStateException("SQS pump is full, message for %s not accepted".formatted(
+                            destination));
+                }
+            }
+            case FLUSH -> reserveFlushing(destination, buffer);
+        }
+    }
+
+    private void reserveFlushing(String destination, SqsPumpBuffer buffer) {
+        if (tryReserve(buffer)) {
+            return;
+        }
+        flush(destination);
+        while (!tryReserve(buffer)) {
+            // the total capacity is held by other destinations.
+            localPump.keySet().forEach(this::flush);
+            if (tryReserve(buffer)) {
+                return;
+            }
+            // nothing was freed, so the space is held by batches other threads are sending.
+            LockSupport.parkNanos(FLUSH_RETRY_NANOS);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Interrupted waiting for SQS pump capacity for " + destination);
+            }
+        }
+    }
+
+    private SqsPumpMessage enqueue(String destination, SqsPumpBuffer buffer, SqsEncodedMessage encoded) {
+        if (journal == null) {
+            return SqsPumpMessage.encoded(encoded);
+        }
+        try {
+            return SqsPumpMessage.journaled(journal.append(destination, encoded), System.nanoTime());
+        } catch (RuntimeException e) {
+            buffer.release(1);
+            releaseTotal(1);
+            throw e;
+        }
     }
 
-    private Deque<SqsPumpMessage> pumpFor(String destination) {
-        return localPump.computeIfAbsent(destination, key -> new ConcurrentLinkedDeque<>());
+    private boolean tryReserve(SqsPumpBuffer buffer) {
+        if (totalSpace != null && !totalSpace.tryAcquire()) {
+            return false;
+        }
+        if (buffer.tryReserve()) {
+            return true;
+        }
+        releaseTotal(1);
+        return false;
     }
 
-    private List<SqsPumpMessage> removeMessagesToSend(Deque<SqsPumpMessage> volatileMessages) {
-        final List<SqsPumpMessage> messages = new ArrayList<>(pumpMaxBatchSize);
-        for (int i = 0; i < pumpMaxBatchSize && !volatileMessages.isEmpty(); i++) {
-            messages.add(volatileMessages.removeFirst());
+    private void reserveBlocking(String destination, SqsPumpBuffer buffer) {
+        try {
+            if (totalSpace != null) {
+                totalSpace.acquire();
+            }
+            try {
+                buffer.reserve();
+            } catch (InterruptedException e) {
+                releaseTotal(1);
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for SQS pump capacity for " + destination, e);
         }
-        return messages;
     }
 
+    private List<SqsPumpMessage> take(SqsPumpBuffer buffer) {
+        return buffer.take(pumpMaxBatchSize);
+    }
+
+    private void releaseTotal(int permits) {
+        if (totalSpace != null && permits > 0) {
+            totalSpace.release(permits);
+        }
+    }
+
+    /**
+     * Sends batches while at least minimum messages are buffered.  Called with the destination flush lock held.
+     */
+    private void drain(String destination, SqsPumpBuffer buffer, int minimum) {
+        if (isGroupConcurrent(destination)) {
+            drainGroups(destination, buffer, minimum);
+        } else {
+            while (buffer.depth() >= minimum) {
+                sendBatch(destination, take(buffer));
+            }
+        }
+    }
+
+    private boolean isGroupConcurrent(String destination) {
+        return fifoGroupConcurrency > 1 && !flushExecutor.isShutdown() && sqsSender.resolve(destination).fifo();
+    }
+
+    /**
+     * Sends a FIFO destination with up to fifoGroupConcurrency batches in flight, none sharing a message group.
+     * Messages are staged from the buffer a window at a time so memory stays bounded by the capacity settings.  Once a
+     * batch fails no more messages are staged, those already staged are still sent, and the first failure is thrown
+     * when nothing is in flight.
+     */
+    private void drainGroups(String destination, SqsPumpBuffer buffer, int minimum) {
+        final int window = pumpMaxBatchSize * fifoGroupConcurrency;
+        final Map<String, Deque<SqsPumpMessage>> groups = new LinkedHashMap<>();
+        final Set<String> inFlight = new HashSet<>();
+        final CompletionService<GroupFlush> completions = new ExecutorCompletionService<>(flushExecutor);
+        int staged = 0;
+        int running = 0;
+        boolean interrupted = false;
+        RuntimeException failure = null;
+        while (true) {
+            while (failure == null && staged < window && buffer.depth() >= minimum) {
+                for (SqsPumpMessage message : take(buffer)) {
+                    groups.computeIfAbsent(messageGroupId(message), key -> new ArrayDeque<>()).add(message);
+                    staged++;
+                }
+            }
+            while (running < fifoGroupConcurrency) {
+                final Set<String> batchGroups = new HashSet<>();
+                final List<SqsPumpMessage> batch = pack(groups, inFlight, batchGroups);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                inFlight.addAll(batchGroups);
+                staged -= batch.size();
+                running++;
+                completions.submit(() -> {
+                    try {
+                        sendBatch(destination, batch);
+                        return new GroupFlush(batchGroups, null);
+                    } catch (RuntimeException e) {
+                        return new GroupFlush(batchGroups, e);
+                    }
+                });
+            }
+            if (running == 0) {
+                break;
+            }
+            try {
+                final GroupFlush flushed = completions.take().get();
+                running--;
+                inFlight.removeAll(flushed.groups());
+                if (flushed.failure() != null) {
+                    failure = firstFailure(failure, flushed.failure());
+                }
+            } catch (ExecutionException e) {
+                // tasks report failures in their result, this is unexpected.
+                throw new IllegalStateException("FIFO group flush of " + destination + " failed", e.getCause());
+            } catch (InterruptedException e) {
+                // keep waiting so no batch outlives the flush lock, which would break group order.
+                interrupted = true;
+                failure = firstFailure(failure, e);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Packs a batch from groups that have nothing in flight, taking each group's messages in order.
+     */
+    private List<SqsPumpMessage> pack(Map<String, Deque<SqsPumpMessage>> groups,
+                                      Set<String> inFlight,
+                                      Set<String> batchGroups) {
+        final List<SqsPumpMessage> batch = new ArrayList<>(pumpMaxBatchSize);
+        final Iterator<Map.Entry<String, Deque<SqsPumpMessage>>> entries = groups.entrySet().iterator();
+        while (batch.size() < pumpMaxBatchSize && entries.hasNext()) {
+            final Map.Entry<String, Deque<SqsPumpMessage>> entry = entries.next();
+            if (!inFlight.contains(entry.getKey())) {
+                final Deque<SqsPumpMessage> group = entry.getValue();
+                while (batch.size() < pumpMaxBatchSize && !group.isEmpty()) {
+                    batch.add(group.poll());
+                }
+                batchGroups.add(entry.getKey());
+                if (group.isEmpty()) {
+                    entries.remove();
+                }
+            }
+        }
+        return batch;
+    }
+
+    private String messageGroupId(SqsPumpMessage message) {
+        return message.getJournalRecord() != null
+               ? journal.messageGroupId(message.getJournalRecord())
+               : message.getMessageGroupId();
+    }
+
+    private void sendBatch(String destination, List<SqsPumpMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        log.trace("Flushing {} messages to {}", messages.size(), destination);
+        final long start = System.nanoTime();
+        boolean success = false;
+        try {
+            sendWithRetries(destination, messages);
+            success = true;
+        } finally {
+            metrics.recordFlush(destination, System.nanoTime() - start, success);
+        }
+    }
+
+    private void sendWithRetries(String destination, List<SqsPumpMessage> messages) {
+        final SqsBatchRetry.Outcome outcome = batchRetry.send(destination,
+                                                              messages,
+                                                              this::encoded,
+                                                              this::messageGroupId);
+        final List<BatchResultErrorEntry> lost = new ArrayList<>();
+        // messages that may still succeed later, kept in the journal for replay.
+        final Set<SqsPumpMessage> unsent = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < messages.size(); i++) {
+            if (!outcome.isSent(i)) {
+                final BatchResultErrorEntry failure = outcome.failure(i);
+                if (failure != null) {
+                    lost.add(failure);
+                }
+                if (failure == null || !failure.senderFault()) {
+                    unsent.add(messages.get(i));
+                }
+            }
+        }
+        acknowledge(messages, unsent);
+        if (journal != null && !unsent.isEmpty()) {
+            log.warn("{} unsent messages to {} kept in the journal for replay on next start",
+                     unsent.size(),
+                     destination);
+        }
+        if (outcome.error() != null) {
+            throw outcome.error();
+        }
+        if (!lost.isEmpty()) {
+            log.error("{} messages failed to {}", lost.size(), destination);
+            for (BatchResultErrorEntry batchResultErrorEntry : lost) {
+                log.error("Failure onSender={} {}:{}",
+                          batchResultErrorEntry.senderFault(),
+                          batchResultErrorEntry.code(),
+                          batchResultErrorEntry.message());
+            }
+            throw new IllegalStateException("Could not send %d of %d messages to SQS %s".formatted(lost.size(),
+                                                                                                  messages.size(),
+                                                                                                  destination));
+        } else {
+            log.debug("Sent {} messages to {} ok", messages.size(), destination);
+        }
+    }
+
+    private SqsEncodedMessage encoded(SqsPumpMessage message) {
+        return message.getJournalRecord() != null ? journal.read(message.getJournalRecord()) : message.toEncoded();
+    }
+
+    private void acknowledge(List<SqsPumpMessage> messages, Set<SqsPumpMessage> unsent) {
+        for (SqsPumpMessage message : messages) {
+            if (message.getJournalRecord() != null && !unsent.contains(message)) {
+                journal.acknowledge(message.getJournalRecord());
+            }
+        }
+    }
+
+    private void replay(String destination) {
+        try {
+            flush(destination);
+        } catch (RuntimeException e) {
+            log.error("Replay to {} failed, unsent messages are replayed on next start: {}",
+                      destination,
+                      e.getMessage(),
+                      e);
+        }
+    }
+
+    private ScheduledExecutorService startFlusher() {
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("sqs-pump-flusher").factory());
+        final long period = Math.max(1, lingerMs / 2);
+        executor.scheduleWithFixedDelay(this::flushLingering, period, period, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    private void flushLingering() {
+        final long now = System.nanoTime();
+        localPump.forEach((destination, buffer) -> {
+            final SqsPumpMessage oldest = buffer.oldest();
+            if (oldest != null && (oldest.ageMillis(now) >= lingerMs || buffer.depth() >= pumpMaxBatchSize)) {
+                flushExecutor.execute(() -> flushIfIdle(destination, buffer));
+            }
+        });
+    }
+
+    private void flushIfIdle(String destination, SqsPumpBuffer buffer) {
+        try {
+            // a destination already being flushed is skipped, the owning thread drains it.
+            if (buffer.tryLock()) {
+                try {
+                    drain(destination, buffer, 1);
+                } finally {
+                    buffer.unlock();
+                }
+                drainFullBatches(destination, buffer);
+            }
+        } catch (RuntimeException e) {
+            // keep the flusher alive, the messages that failed have already been reported.
+            log.error("Background flush of {} failed: {}", destination, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sends full batches left by producers that found the destination locked.  Called after unlocking, as a producer
+     * that added a full batch while the lock was held may be parked waiting for the capacity that batch holds.
+     */
+    private void drainFullBatches(String destination, SqsPumpBuffer buffer) {
+        while (buffer.depth() >= pumpMaxBatchSize && buffer.tryLock()) {
+            try {
+                drain(destination, buffer, pumpMaxBatchSize);
+            } finally {
+                buffer.unlock();
+            }
+        }
+    }
+
+    private static RuntimeException firstFailure(RuntimeException current, Throwable next) {
+        if (current != null) {
+            current.addSuppressed(next);
+            return current;
+        }
+        return next instanceof RuntimeException runtime ? runtime : new IllegalStateException(next);
+    }
+
+    private static void awaitStop(ExecutorService executor) {
+        try {
+            if (!executor.awaitTermination(FLUSHER_STOP_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Pump flusher did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted waiting for pump flusher to stop");
+        }
+    }
+
+    private record GroupFlush(Set<String> groups, RuntimeException failure) {
+    }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.pump;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Messages buffered for a single destination.  Producers add without locking while the flush lock gives one thread
+ * at a time ownership of draining, so a slow send to one destination never blocks another destination.
+ * <p>
+ * A bounded buffer hands out one permit per message.  Producers reserve a permit before adding and permits are
+ * returned when messages are taken for sending.  Messages replayed from the journal on start are added without a
+ * permit, so the buffer may hold more than its capacity until they are taken.
+ */
+class SqsPumpBuffer {
+    private final ConcurrentLinkedDeque<SqsPumpMessage> messages = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicInteger unreserved = new AtomicInteger();
+    private final Semaphore space;
+    private final IntConsumer releaseTotal;
+
+    /**
+     * Creates an empty buffer.
+     *
+     * @param capacity     maximum messages held, 0 for unbounded.
+     * @param releaseTotal returns permits to the pump's total capacity as reserved messages are taken.
+     */
+    SqsPumpBuffer(int capacity, IntConsumer releaseTotal) {
+        this.space = capacity > 0 ? new Semaphore(capacity) : null;
+        this.releaseTotal = releaseTotal;
+    }
+
+    boolean tryReserve() {
+        return space == null || space.tryAcquire();
+    }
+
+    void reserve() throws InterruptedException {
+        if (space != null) {
+            space.acquire();
+        }
+    }
+
+    void add(SqsPumpMessage message) {
+        messages.addLast(message);
+        depth.incrementAndGet();
+    }
+
+    /**
+     * Adds a message that holds no permit, so taking it returns none.
+     *
+     * @param message the message to add.
+     */
+    void addUnreserved(SqsPumpMessage message) {
+        unreserved.incrementAndGet();
+        add(message);
+    }
+
+    /**
+     * Removes up to max messages from the head of the buffer, returning the permits of those that held one.  Callers
+     * must hold the flush lock so that batches are taken in order.
+     *
+     * @param max maximum number of messages to take.
+     * @return the messages removed, possibly empty.
+     */
+    List<SqsPumpMessage> take(int max) {
+        final List<SqsPumpMessage> batch = new ArrayList<>(max);
+        SqsPumpMessage message;
+        while (batch.size() < max && (message = messages.pollFirst()) != null) {
+            batch.add(message);
+        }
+        final int taken = batch.size();
+        depth.addAndGet(-taken);
+        final int reserved = taken - Math.min(taken, unreserved.getAndUpdate(count -> count - Math.min(count, taken)));
+        release(reserved);
+        releaseTotal.accept(reserved);
+        return batch;
+    }
+
+    SqsPumpMessage oldest() {
+        return messages.peekFirst();
+    }
+
+    int depth() {
+        return depth.get();
+    }
+
+    /**
+     * Returns permits for reservations that did not add a message, and for messages taken.
+     *
+     * @param permits number of permits to return.
+     */
+    void release(int permits) {
+        if (space != null && permits > 0) {
+            space.release(permits);
+        }
+    }
+
+    boolean tryLock() {
+        return flushLock.tryLock();
+    }
+
+    void lock() {
+        flushLock.lock();
+    }
+
+    void unlock() {
+        flushLock.unlock();
+    }
+}
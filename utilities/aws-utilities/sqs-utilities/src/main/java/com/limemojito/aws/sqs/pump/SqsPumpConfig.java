@@ -18,6 +18,8 @@
 package com.limemojito.aws.sqs.pump;
 
 import com.limemojito.aws.sqs.SqsSenderConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -36,13 +38,24 @@ import org.springframework.context.annotation.Import;
  * - ObjectMapper: The ObjectMapper used for serialization and deserialization of SQS messages.
  * <p>
  * Configuration Properties:
- * pumpMaxBatchSize: The maximum number of messages to send in a single batch from SQS.
+ * com.limemojito.sqs.batchSize: The maximum number of messages to send in a single batch from SQS.
+ * com.limemojito.sqs.lingerMs: The maximum time a message waits before a background flush.  0 disables.
+ * com.limemojito.sqs.maxRetries: Retries of entries SQS failed without a sender fault.  0 disables.
+ * com.limemojito.sqs.retryBackoffMs: Base delay of the jittered exponential retry backoff.
+ * com.limemojito.sqs.maxRetryBackoffMs: Maximum delay between retries.
+ * com.limemojito.sqs.destinationCapacity: Maximum messages buffered per destination.  0 is unbounded.
+ * com.limemojito.sqs.totalCapacity: Maximum messages buffered across all destinations.  0 is unbounded.
+ * com.limemojito.sqs.overflowPolicy: BLOCK, FAIL or FLUSH when a capacity is reached.
+ * com.limemojito.sqs.journalDirectory: Directory for the durable write-ahead journal.  Empty disables.
+ * com.limemojito.sqs.journalSegmentBytes: Size of each journal segment file.
+ * com.limemojito.sqs.fifoGroupConcurrency: Batches in flight per FIFO queue, each with distinct message groups.
  * <p>
  * Flush Behavior:
  * The SqsPumpConfig class provides methods for sending messages to a destination and for flushing
  * messages to a specified destination. It supports flushing a single destination or flushing all
  * destinations maintained in the localPump object. The flushAll() method should be called before
- * destroying the SqsPumpConfig object to ensure that any pending data in the destinations is flushed.
+ * destroying the SqsPumpConfig object to ensure that any pending data in the destinations is flushed.  With a linger
+ * time set, a background flusher sends partially filled batches once their oldest message reaches the linger time.
  * <p>
  * Message Serialization:
  * The SqsPumpConfig class uses the ObjectMapper provided in the constructor to serialize the message
@@ -57,8 +70,8 @@ import org.springframework.context.annotation.Import;
  * Threading:
  * The SqsPump component is designed to be used in a multithreaded context with exclusive flush semantics. It uses
  * a ConcurrentHashMap to store messages for each destination, allowing multiple threads to send messages at the same time.
- * However, when flushing messages to a destination, the flush() method is synchronized to ensure that only one thread
- * flushes messages at a time.
+ * Each destination has its own flush lock so that only one thread flushes a destination at a time, while different
+ * destinations flush in parallel.
  * <p>
  * Closeable:
  * The SqsPumpConfig class implements the AutoCloseable interface. It overrides the close() method to flush any pending
@@ -69,4 +82,54 @@ import org.springframework.context.annotation.Import;
 @Import(SqsSenderConfig.class)
 @ComponentScan(basePackageClasses = SqsPump.class)
 public class SqsPumpConfig {
+
+    /**
+     * Creates the pump settings from configuration properties.
+     *
+     * @param maxBatchSize         The maximum number of messages to send in a single batch from SQS.
+     * @param lingerMs             The maximum time in milliseconds a message waits before a background flush.  0
+     *                             disables.
+     * @param maxRetries           Retries of entries SQS failed without a sender fault.  0 disables.
+     * @param retryBackoffMs       Base delay in milliseconds of the retry backoff.
+     * @param maxRetryBackoffMs    Maximum delay in milliseconds between retries.
+     * @param destinationCapacity  Maximum messages buffered per destination.  0 is unbounded.
+     * @param totalCapacity        Maximum messages buffered across all destinations.  0 is unbounded.
+     * @param overflowPolicy       What a send does when a capacity is reached.
+     * @param journalDirectory     Directory for the durable write-ahead journal.  Empty disables.
+     * @param journalSegmentBytes  Size of each journal segment file.
+     * @param fifoGroupConcurrency Batches in flight per FIFO queue, never two holding the same message group.
+     * @return validated pump settings.
+     */
+    @Bean
+    public SqsPumpSettings sqsPumpSettings(@Value("${com.limemojito.sqs.batchSize:10}") int maxBatchSize,
+                                           @Value("${com.limemojito.sqs.lingerMs:0}") long lingerMs,
+                                           @Value("${com.limemojito.sqs.maxRetries:3}") int maxRetries,
+                                           @Value("${com.limemojito.sqs.retryBackoffMs:50}") long retryBackoffMs,
+                                           @Value("${com.limemojito.sqs.maxRetryBackoffMs:2000}")
+                                           long maxRetryBackoffMs,
+                                           @Value("${com.limemojito.sqs.destinationCapacity:0}")
+                                           int destinationCapacity,
+                                           @Value("${com.limemojito.sqs.totalCapacity:0}") int totalCapacity,
+                                           @Value("${com.limemojito.sqs.overflowPolicy:FLUSH}")
+                                           SqsPumpOverflowPolicy overflowPolicy,
+                                           @Value("${com.limemojito.sqs.journalDirectory:}") String journalDirectory,
+                                           @Value("${com.limemojito.sqs.journalSegmentBytes:67108864}")
+                                           int journalSegmentBytes,
+                                           @Value("${com.limemojito.sqs.fifoGroupConcurrency:1}")
+                                           int fifoGroupConcurrency) {
+        return SqsPumpSettings.builder()
+                              .maxBatchSize(maxBatchSize)
+                              .lingerMs(lingerMs)
+                              .maxRetries(maxRetries)
+                              .retryBackoffMs(retryBackoffMs)
+                              .maxRetryBackoffMs(maxRetryBackoffMs)
+                              .destinationCapacity(destinationCapacity)
+                              .totalCapacity(totalCapacity)
+                              .overflowPolicy(overflowPolicy)
+                              .journalDirectory(journalDirectory.isBlank() ? null : journalDirectory)
+                              .journalSegmentBytes(journalSegmentBytes)
+                              .fifoGroupConcurrency(fifoGroupConcurrency)
+                              .build()
+                              .validate();
+    }
 }
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.pump;
+
+import com.limemojito.aws.sqs.SqsEncodedMessage;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Write-ahead log of pump messages held in memory-mapped segment files.  Each record is written to the mapped segment
+ * before the send is acknowledged, so buffered messages survive the JVM dying and are replayed on the next start.
+ * Records are marked as acknowledged in place once their send has a final outcome, and a segment file is deleted when
+ * it is full and every record in it is acknowledged.
+ * <p>
+ * A record is laid out as {@code [int payload length][byte status][destination][int size][message group id]
+ * [deduplication id][int attribute count]([name][data type][value])*[body JSON]} where each string other than the
+ * body is an int length, -1 for null, followed by its UTF-8 bytes.  Messages are journaled already encoded so a replay
+ * sends exactly the attributes generated at the original send.  The payload length is written last so a record torn
+ * by a crash reads as the end of the segment.  Writes go to the page cache only, which survives the process but not the
+ * operating system.
+ * <p>
+ * The status byte counts replays.  A record still outstanding after {@link #MAX_REPLAYS} replays, such as one whose
+ * retries are exhausted on every start, is logged and acknowledged rather than replayed forever.
+ * <p>
+ * Java can not unmap a buffer explicitly, so a deleted segment's file stays mapped, holding address space and its disk
+ * blocks, until the buffer is garbage collected.  Size segments so that the number of recently deleted segments this
+ * can hold is acceptable.
+ */
+@Slf4j
+class SqsPumpJournal implements AutoCloseable {
+    private static final String SUFFIX = ".journal";
+    private static final int HEADER_BYTES = Integer.BYTES + 1;
+    private static final byte PENDING = 0;
+    private static final byte ACKNOWLEDGED = 1;
+    /**
+     * Number of times an outstanding record is replayed before it is dropped.
+     */
+    static final int MAX_REPLAYS = 3;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final ReentrantLock appendLock;
+    private long nextSegmentId;
+    private Segment active;
+
+    /**
+     * Opens a journal in the directory, creating it if required.
+     *
+     * @param directory    where segment files are kept.
+     * @param segmentBytes size of each mapped segment file.
+     */
+    SqsPumpJournal(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.appendLock = new ReentrantLock();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create journal directory " + directory, e);
+        }
+    }
+
+    /**
+     * A record written to a segment.
+     *
+     * @param segment the segment holding the record.
+     * @param offset  byte offset of the record within the segment.
+     */
+    record Record(Segment segment, int offset) {
+    }
+
+    /**
+     * Reads the segments left by a previous run and returns the records that were never acknowledged, grouped by
+     * destination in the order they were written.  Records already replayed {@link #MAX_REPLAYS} times are dropped, and
+     * segments with nothing outstanding are deleted.  Replay counts are left as they are until {@link #replaying} is
+     * called, so recovering without replaying uses up nothing.  Must be called before the first append.
+     *
+     * @return outstanding records by destination.
+     */
+    Map<String, List<Record>> recover() {
+        final Map<String, List<Record>> outstanding = new LinkedHashMap<>();
+        int dropped = 0;
+        for (Path path : segmentFiles()) {
+            final long id = segmentId(path);
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            final Segment segment = map(path, id, READ, WRITE);
+            segment.sealed = true;
+            int position = 0;
+            int payload;
+            while (position + HEADER_BYTES <= segment.buffer.capacity()
+                    && (payload = segment.buffer.getInt(position)) > 0) {
+                final byte status = segment.buffer.get(position + Integer.BYTES);
+                if (status != ACKNOWLEDGED) {
+                    // a replayed record's status is its replay count above ACKNOWLEDGED.
+                    final int replays = status == PENDING ? 0 : status - ACKNOWLEDGED;
+                    final String destination = destination(segment, position);
+                    if (replays >= MAX_REPLAYS) {
+                        log.error("Dropping journaled message for {} still unsent after {} replays",
+                                  destination,
+                                  replays);
+                        segment.buffer.put(position + Integer.BYTES, ACKNOWLEDGED);
+                        dropped++;
+                    } else {
+                        segment.outstanding.incrementAndGet();
+                        outstanding.computeIfAbsent(destination, key -> new ArrayList<>())
+                                   .add(new Record(segment, position));
+                    }
+                }
+                position += HEADER_BYTES + payload;
+            }
+            if (segment.outstanding.get() == 0) {
+                delete(segment);
+            }
+        }
+        log.info("Recovered {} pump messages from {}, dropped {}",
+                 outstanding.values().stream().mapToInt(List::size).sum(),
+                 directory,
+                 dropped);
+        return outstanding;
+    }
+
+    /**
+     * Counts a replay of a recovered record, called as the record is handed to the pump for sending.
+     *
+     * @param record the recovered record.
+     */
+    void replaying(Record record) {
+        final int position = record.offset + Integer.BYTES;
+        final byte status = record.segment.buffer.get(position);
+        // a replayed record's status is its replay count above ACKNOWLEDGED.
+        final int replays = status == PENDING ? 0 : status - ACKNOWLEDGED;
+        record.segment.buffer.put(position, (byte) (ACKNOWLEDGED + replays + 1));
+    }
+
+    /**
+     * Appends a message to the journal.
+     *
+     * @param destination the destination the message is for.
+     * @param message     the encoded message.
+     * @return the record written.
+     * @throws IllegalArgumentException if the record cannot fit in a segment.
+     */
+    Record append(String destination, SqsEncodedMessage message) {
+        final List<byte[]> strings = new ArrayList<>(5 + message.attributes().size() * 3);
+        strings.add(utf8(destination));
+        strings.add(utf8(message.messageGroupId()));
+        strings.add(utf8(message.messageDeduplicationId()));
+        message.attributes().forEach((name, value) -> {
+            strings.add(utf8(name));
+            strings.add(utf8(value.dataType()));
+            strings.add(utf8(value.stringValue()));
+        });
+        final byte[] body = message.body().getBytes(UTF_8);
+        int payload = Integer.BYTES * 2 + body.length;
+        for (byte[] string : strings) {
+            payload += Integer.BYTES + (string == null ? 0 : string.length);
+        }
+        final int recordBytes = HEADER_BYTES + payload;
+        if (recordBytes + Integer.BYTES > segmentBytes) {
+            throw new IllegalArgumentException("Message of %d bytes does not fit in a journal segment of %d bytes"
+                                                       .formatted(recordBytes, segmentBytes));
+        }
+        appendLock.lock();
+        try {
+            if (active == null || active.position + recordBytes + Integer.BYTES > segmentBytes) {
+                roll();
+            }
+            final Segment segment = active;
+            final int offset = segment.position;
+            final ByteBuffer buffer = segment.buffer.duplicate();
+            buffer.position(offset + HEADER_BYTES);
+            put(buffer, strings.get(0));
+            buffer.putInt(message.size());
+            put(buffer, strings.get(1));
+            put(buffer, strings.get(2));
+            buffer.putInt(message.attributes().size());
+            for (int i = 3; i < strings.size(); i++) {
+                put(buffer, strings.get(i));
+            }
+            buffer.put(body);
+            segment.buffer.put(offset + Integer.BYTES, PENDING);
+            segment.buffer.putInt(offset, payload);
+            segment.position += recordBytes;
+            segment.outstanding.incrementAndGet();
+            return new Record(segment, offset);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Reads a record back as the message to send.
+     *
+     * @param record the record to read.
+     * @return the encoded message as originally appended.
+     */
+    SqsEncodedMessage read(Record record) {
+        final ByteBuffer buffer = record.segment.buffer.duplicate();
+        buffer.position(record.offset);
+        final int end = record.offset + HEADER_BYTES + buffer.getInt();
+        buffer.get();
+        skip(buffer);
+        final int size = buffer.getInt();
+        final String messageGroupId = string(buffer);
+        final String messageDeduplicationId = string(buffer);
+        final int attributeCount = buffer.getInt();
+        final Map<String, MessageAttributeValue> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < attributeCount; i++) {
+            attributes.put(string(buffer),
+                           MessageAttributeValue.builder()
+                                                .dataType(string(buffer))
+                                                .stringValue(string(buffer))
+                                                .build());
+        }
+        final byte[] body = new byte[end - buffer.position()];
+        buffer.get(body);
+        return new SqsEncodedMessage(new String(body, UTF_8),
+                                     attributes,
+                                     messageGroupId,
+                                     messageDeduplicationId,
+                                     size);
+    }
+
+    /**
+     * Reads only the message group id of a record, so FIFO batches can be partitioned without decoding the message.
+     *
+     * @param record the record to read.
+     * @return the message group id, null for a standard queue message.
+     */
+    String messageGroupId(Record record) {
+        final ByteBuffer buffer = record.segment.buffer.duplicate();
+        buffer.position(record.offset + HEADER_BYTES);
+        skip(buffer);
+        buffer.getInt();
+        return string(buffer);
+    }
+
+    /**
+     * Marks a record as having a final outcome so it is not replayed.
+     *
+     * @param record the record to acknowledge.
+     */
+    void acknowledge(Record record) {
+        final Segment segment = record.segment;
+        segment.buffer.put(record.offset + Integer.BYTES, ACKNOWLEDGED);
+        if (segment.outstanding.decrementAndGet() == 0 && segment.sealed) {
+            delete(segment);
+        }
+    }
+
+    /**
+     * Seals the active segment, deleting it if nothing in it is outstanding.
+     */
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            if (active != null) {
+                seal(active);
+                active = null;
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void roll() {
+        if (active != null) {
+            seal(active);
+        }
+        final long id = nextSegmentId++;
+        active = map(directory.resolve("%019d%s".formatted(id, SUFFIX)), id, CREATE_NEW, READ, WRITE);
+        log.debug("Started journal segment {}", active.path);
+    }
+
+    private void seal(Segment segment) {
+        segment.sealed = true;
+        if (segment.outstanding.get() == 0) {
+            delete(segment);
+        }
+    }
+
+    private Segment map(Path path, long id, OpenOption... options) {
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            final long size = Math.max(channel.size(), segmentBytes);
+            return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map journal segment " + path, e);
+        }
+    }
+
+    private static String destination(Segment segment, int offset) {
+        final ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(offset + HEADER_BYTES);
+        return string(buffer);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(UTF_8);
+    }
+
+    private static void put(ByteBuffer buffer, byte[] string) {
+        if (string == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(string.length).put(string);
+        }
+    }
+
+    private static String string(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void skip(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        buffer.position(buffer.position() + Math.max(0, length));
+    }
+
+    private static void delete(Segment segment) {
+        if (segment.deleted.compareAndSet(false, true)) {
+            try {
+                Files.deleteIfExists(segment.path);
+                log.debug("Deleted journal segment {}", segment.path);
+            } catch (IOException e) {
+                log.warn("Could not delete journal segment {}: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    private List<Path> segmentFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                        .sorted(Comparator.comparingLong(SqsPumpJournal::segmentId))
+                        .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list journal directory " + directory, e);
+        }
+    }
+
+    private static long segmentId(Path path) {
+        final String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * A mapped segment file.  The write position is only used by the appending thread under the append lock.
+     */
+    static final class Segment {
+        private final long id;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicBoolean deleted = new AtomicBoolean();
+        private volatile boolean sealed;
+        private int position;
+
+        private Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public String toString() {
+            return "Segment " + id;
+        }
+    }
+}
@@ -17,46 +17,82 @@
 
 package com.limemojito.aws.sqs.pump;
 
+import com.limemojito.aws.sqs.SqsEncodedMessage;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Value;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
 
 import java.util.Map;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 /**
- * The {@code SqsPumpMessage} class represents a message received from an Amazon Simple Queue Service (SQS) queue.
- * Each instance of this class contains the actual message payload and optional attributes associated with the message.
- *
- * <p>
- * This class is immutable and follows the value object pattern. Once created, the values of the {@code SqsPumpMessage}
- * instance cannot be modified.
- * </p>
- *
- * <p>
- * The message payload is stored in the {@code message} field, which can hold any Java object. The optional attributes
- * associated with the message are stored in the {@code attributes} field, which is a map of string keys to arbitrary
- * object values.
- * </p>
- *
- *
- * <h2>Usage:</h2>
- *
- * <pre>
- * SqsPumpMessage message = new SqsPumpMessage(payload, attributes);
- * </pre>
- *
- * <h2>Serialization:</h2>
- *
- * <p>
- * This class is annotated with Lombok's {@code @Value} annotation, and therefore provides both {@code equals()},
- * {@code hashCode()}, and {@code toString()} methods based on the values of its fields.
- * </p>
- *
+ * A message buffered in the pump.  Messages are encoded on the producer thread so that flushing is only I/O: the body
+ * is held as UTF-8 bytes along with the complete SQS attributes, FIFO options and size.  A message in a durable pump
+ * holds only a reference to its journal record.  The {@code enqueuedNanos} field records when the message entered the
+ * pump so that the background flusher can honour the linger time.
  * <p>
- * To serialize/deserialize instances of this class, a framework such as JSON or XML serialization can be used.
- * </p>
+ * This class is internal to the pump and immutable.
  */
 @Value
-@SuppressWarnings("RedundantModifiersValueLombok")
-public class SqsPumpMessage {
-    private Object message;
-    private Map<String, Object> attributes;
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+class SqsPumpMessage {
+    byte[] body;
+    Map<String, MessageAttributeValue> attributes;
+    String messageGroupId;
+    String messageDeduplicationId;
+    int size;
+    long enqueuedNanos;
+    /**
+     * Where the message is held in the durable journal, null when the pump is not durable.  A journaled message keeps
+     * its encoded form on disk only.
+     */
+    SqsPumpJournal.Record journalRecord;
+
+    /**
+     * Creates a message held on heap, stamped with the current time as the enqueue time.
+     *
+     * @param encoded the message encoded for sending.
+     * @return the pump message.
+     */
+    static SqsPumpMessage encoded(SqsEncodedMessage encoded) {
+        return new SqsPumpMessage(encoded.body().getBytes(UTF_8),
+                                  encoded.attributes(),
+                                  encoded.messageGroupId(),
+                                  encoded.messageDeduplicationId(),
+                                  encoded.size(),
+                                  System.nanoTime(),
+                                  null);
+    }
+
+    /**
+     * Creates a message held in the durable journal.
+     *
+     * @param record        where the message is journaled.
+     * @param enqueuedNanos the {@link System#nanoTime()} the message entered the pump.
+     * @return the pump message.
+     */
+    static SqsPumpMessage journaled(SqsPumpJournal.Record record, long enqueuedNanos) {
+        return new SqsPumpMessage(null, null, null, null, 0, enqueuedNanos, record);
+    }
+
+    /**
+     * The message as it is sent, for a message held on heap.
+     *
+     * @return the encoded message.
+     */
+    SqsEncodedMessage toEncoded() {
+        return new SqsEncodedMessage(new String(body, UTF_8), attributes, messageGroupId, messageDeduplicationId, size);
+    }
+
+    /**
+     * Calculates how long this message has been waiting in the pump.
+     *
+     * @param nowNanos the current {@link System#nanoTime()}.
+     * @return the age of the message in milliseconds.
+     */
+    long ageMillis(long nowNanos) {
+        return (nowNanos - enqueuedNanos) / 1_000_000L;
+    }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.pump;
+
+/**
+ * What {@link SqsPump#send(String, Object, java.util.Map)} does when the pump has no capacity for another message.
+ *
+ * @see SqsPumpSettings#getOverflowPolicy()
+ */
+public enum SqsPumpOverflowPolicy {
+    /**
+     * The producer waits until a flush makes room.
+     */
+    BLOCK,
+    /**
+     * The send is rejected with an {@link IllegalStateException} and the message is not buffered.
+     */
+    FAIL,
+    /**
+     * The producer flushes on the calling thread until there is room.
+     */
+    FLUSH
+}
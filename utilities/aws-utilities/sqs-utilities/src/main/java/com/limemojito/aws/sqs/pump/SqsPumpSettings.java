@@ -0,0 +1,179 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.pump;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Tuning settings for a {@link SqsPump}.  Defaults match the original pump behaviour of batching to 10 messages with
+ * no background flushing.
+ *
+ * <pre>
+ * SqsPumpSettings settings = SqsPumpSettings.builder()
+ *                                           .maxBatchSize(10)
+ *                                           .lingerMs(250)
+ *                                           .build();
+ * </pre>
+ *
+ * @see SqsPumpConfig
+ */
+@Value
+@Builder
+@SuppressWarnings("RedundantModifiersValueLombok")
+public class SqsPumpSettings {
+    private static final int MIN_JOURNAL_SEGMENT_BYTES = 1024 * 1024;
+
+    /**
+     * The maximum number of messages to send in a single batch to SQS.  Property {@code com.limemojito.sqs.batchSize}.
+     */
+    @Builder.Default
+    private int maxBatchSize = 10;
+
+    /**
+     * The maximum time in milliseconds a message may wait in the pump before a background flush sends it, even if the
+     * batch is not full.  Zero disables the background flusher so only full batches and explicit flushes send.
+     * Property {@code com.limemojito.sqs.lingerMs}.
+     */
+    @Builder.Default
+    private long lingerMs = 0;
+
+    /**
+     * The number of times entries that SQS failed without a sender fault are resent before the failure is reported.
+     * Zero disables retries.  Property {@code com.limemojito.sqs.maxRetries}.
+     */
+    @Builder.Default
+    private int maxRetries = 3;
+
+    /**
+     * The base delay in milliseconds before the first retry.  Each retry doubles the delay up to
+     * {@link #getMaxRetryBackoffMs()}, and a random delay up to that value is used to spread retries from competing
+     * producers.  Property {@code com.limemojito.sqs.retryBackoffMs}.
+     */
+    @Builder.Default
+    private long retryBackoffMs = 50;
+
+    /**
+     * The upper bound in milliseconds on the delay between retries.  Property
+     * {@code com.limemojito.sqs.maxRetryBackoffMs}.
+     */
+    @Builder.Default
+    private long maxRetryBackoffMs = 2_000;
+
+    /**
+     * The maximum number of messages buffered for a single destination.  Zero is unbounded, otherwise it must be at
+     * least {@link #getMaxBatchSize()}.  Property {@code com.limemojito.sqs.destinationCapacity}.
+     */
+    @Builder.Default
+    private int destinationCapacity = 0;
+
+    /**
+     * The maximum number of messages buffered across all destinations.  Zero is unbounded, otherwise it must be at
+     * least {@link #getMaxBatchSize()}.  Property {@code com.limemojito.sqs.totalCapacity}.
+     */
+    @Builder.Default
+    private int totalCapacity = 0;
+
+    /**
+     * What a send does when a capacity limit is reached.  {@link SqsPumpOverflowPolicy#BLOCK} with a total capacity
+     * needs a linger time, as partial batches spread over many destinations are only sent by the background flusher.
+     * Property {@code com.limemojito.sqs.overflowPolicy}.
+     */
+    @Builder.Default
+    private SqsPumpOverflowPolicy overflowPolicy = SqsPumpOverflowPolicy.FLUSH;
+
+    /**
+     * Directory for the durable write-ahead journal.  When set, every message is written to a memory-mapped journal
+     * segment before send returns and only a reference is kept on heap.  Messages not yet sent when the JVM stops are
+     * replayed when a pump is next started on the same directory, so delivery is at least once.  Null disables the
+     * journal.  Property {@code com.limemojito.sqs.journalDirectory}.
+     */
+    private String journalDirectory;
+
+    /**
+     * Size in bytes of each journal segment file, at least 1 MiB.  Property
+     * {@code com.limemojito.sqs.journalSegmentBytes}.
+     */
+    @Builder.Default
+    private int journalSegmentBytes = 64 * 1024 * 1024;
+
+    /**
+     * The number of batches a FIFO destination may have in flight at once.  Buffered messages are partitioned by
+     * message group and no two batches in flight share a group, so distinct groups flush concurrently while order
+     * within each group is kept.  One sends FIFO batches strictly one after another.  Property
+     * {@code com.limemojito.sqs.fifoGroupConcurrency}.
+     */
+    @Builder.Default
+    private int fifoGroupConcurrency = 1;
+
+    /**
+     * Checks the settings for consistency.
+     *
+     * @return this settings object.
+     * @throws IllegalArgumentException if a setting is out of range.
+     */
+    public SqsPumpSettings validate() {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1, was " + maxBatchSize);
+        }
+        if (lingerMs < 0) {
+            throw new IllegalArgumentException("lingerMs must not be negative, was " + lingerMs);
+        }
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative, was " + maxRetries);
+        }
+        if (retryBackoffMs < 0 || maxRetryBackoffMs < retryBackoffMs) {
+            throw new IllegalArgumentException("Retry backoff must satisfy 0 <= %d <= %d".formatted(retryBackoffMs,
+                                                                                                  maxRetryBackoffMs));
+        }
+        checkCapacity("destinationCapacity", destinationCapacity);
+        checkCapacity("totalCapacity", totalCapacity);
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("overflowPolicy is required");
+        }
+        if (overflowPolicy == SqsPumpOverflowPolicy.BLOCK && totalCapacity > 0 && lingerMs == 0) {
+            throw new IllegalArgumentException("BLOCK with a totalCapacity requires lingerMs so partial batches drain");
+        }
+        if (fifoGroupConcurrency < 1) {
+            throw new IllegalArgumentException("fifoGroupConcurrency must be at least 1, was " + fifoGroupConcurrency);
+        }
+        if (journalDirectory != null && journalSegmentBytes < MIN_JOURNAL_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("journalSegmentBytes must be at least %d, was %d".formatted(
+                    MIN_JOURNAL_SEGMENT_BYTES,
+                    journalSegmentBytes));
+        }
+        return this;
+    }
+
+    /**
+     * True when the pump journals messages to disk.
+     *
+     * @return true if a journal directory is configured.
+     */
+    public boolean isDurable() {
+        return journalDirectory != null;
+    }
+
+    private void checkCapacity(String name, int capacity) {
+        if (capacity != 0 && capacity < maxBatchSize) {
+            throw new IllegalArgumentException("%s must be 0 or at least maxBatchSize %d, was %d".formatted(name,
+                                                                                                           maxBatchSize,
+                                                                                                           capacity));
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.pump;
+
+import com.limemojito.aws.sqs.SqsEncodedMessage;
+import com.limemojito.aws.sqs.SqsMetrics;
+import com.limemojito.aws.sqs.SqsRequestFactory;
+import com.limemojito.aws.sqs.SqsSender;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A reactive counterpart to {@link SqsPump} that sends every message of a {@link Publisher} to one destination and
+ * emits the result of each send, in the order the messages were published.
+ * <p>
+ * Messages are packed into batches of the configured batch size, then encoded and sent through the {@link SqsSender}
+ * on a scheduler suitable for blocking I/O, so a claim-check upload or queue lookup never blocks the publisher's
+ * thread.  Demand is driven by batch capacity: at most
+ * {@code maxInFlightBatches} batches are sent at once and the publisher is only asked for enough messages to fill
+ * them, so memory stays bounded however long the stream.  With a linger time configured a partially filled batch is
+ * sent once its oldest message has waited that long, otherwise it is sent when the publisher completes.  FIFO
+ * destinations send one batch at a time so message groups stay in order.
+ * <p>
+ * Entries SQS fails without a sender fault are retried as {@link SqsPump} retries them, with jittered exponential
+ * backoff and the rest of a failed entry's FIFO message group resent behind it.  A message that
+ * cannot be encoded or is too large for the queue, or that still fails once retries are spent, is emitted as a failed
+ * {@link SqsSendResult} rather than terminating the stream.  Serialisation failures are sender faults, while a failed
+ * claim-check upload is not, as the message may be sent once the upload succeeds.
+ * <p>
+ * Reactor is an optional dependency of this module, so add {@code reactor-core} to use this class.
+ *
+ * <pre>
+ * Flux&lt;SqsSendResult&gt; results = new SqsReactivePump(sqsSender, settings).send("orders", orderFlux);
+ * </pre>
+ *
+ * @see SqsPumpSettings
+ */
+@Slf4j
+public class SqsReactivePump {
+    /**
+     * Number of batches sent at once to a standard queue when not otherwise configured.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 4;
+
+    private final SqsSender sqsSender;
+    private final SqsMetrics metrics;
+    private final SqsBatchRetry batchRetry;
+    private final int maxBatchSize;
+    private final long lingerMs;
+    private final int maxInFlightBatches;
+    private final Scheduler scheduler;
+
+    /**
+     * Creates a reactive pump sending up to {@link #DEFAULT_MAX_IN_FLIGHT_BATCHES} batches at once on the bounded
+     * elastic scheduler.
+     *
+     * @param sqsSender Use SQS Sender to send messages with attributes set.
+     * @param settings  Batch size, linger and retry settings.  Capacity, journal and FIFO group settings are not used.
+     */
+    public SqsReactivePump(SqsSender sqsSender, SqsPumpSettings settings) {
+        this(sqsSender, settings, DEFAULT_MAX_IN_FLIGHT_BATCHES, Schedulers.boundedElastic());
+    }
+
+    /**
+     * Creates a reactive pump.
+     *
+     * @param sqsSender          Use SQS Sender to send messages with attributes set.
+     * @param settings           Batch size, linger and retry settings.  Capacity, journal and FIFO group settings are
+     *                           not used.
+     * @param maxInFlightBatches Maximum batches sent at once to a standard queue.
+     * @param scheduler          Scheduler the queue lookup and the blocking encoding and sending of batches run on.
+     */
+    public SqsReactivePump(SqsSender sqsSender, SqsPumpSettings settings, int maxInFlightBatches, Scheduler scheduler) {
+        settings.validate();
+        if (maxInFlightBatches < 1) {
+            throw new IllegalArgumentException("maxInFlightBatches must be at least 1");
+        }
+        this.sqsSender = sqsSender;
+        this.metrics = sqsSender.getMetrics();
+        this.batchRetry = new SqsBatchRetry(sqsSender, settings);
+        this.maxBatchSize = settings.getMaxBatchSize();
+        this.lingerMs = settings.getLingerMs();
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sends every message from the publisher to the destination.
+     *
+     * @param destination Destination to send messages to.  May be qName or qUrl, names are resolved and cached.
+     * @param messages    messages to send.
+     * @return the result of each send, in publication order.  Nothing is sent until the result is subscribed to.
+     */
+    public Flux<SqsSendResult> send(String destination, Publisher<?> messages) {
+        return send(destination, messages, message -> null);
+    }
+
+    /**
+     * Sends every message from the publisher to the destination with attributes derived from each message.  For FIFO
+     * queues the attributes must include message-group-id and message-deduplication-id.
+     *
+     * @param destination Destination to send messages to.  May be qName or qUrl, names are resolved and cached.
+     * @param messages    messages to send.
+     * @param attributes  attributes to apply to a message as SQS Attributes, may return null for none.
+     * @return the result of each send, in publication order.  Nothing is sent until the result is subscribed to.
+     * @see SqsSender#ATTRIBUTE_MESSAGE_GROUP_ID
+     * @see SqsSender#ATTRIBUTE_MESSAGE_DEDUPLICATION_ID
+     */
+    public Flux<SqsSendResult> send(String destination,
+                                    Publisher<?> messages,
+                                    Function<Object, Map<String, Object>> attributes) {
+        return Mono.fromCallable(() -> sqsSender.resolve(destination).fifo())
+                   .subscribeOn(scheduler)
+                   .flatMapMany(fifo -> batch(Flux.from(messages)).flatMapSequential(
+                           batch -> Mono.fromCallable(() -> sendBatch(destination, batch, attributes))
+                                        .subscribeOn(scheduler),
+                           fifo ? 1 : maxInFlightBatches,
+                           1))
+                   .concatMapIterable(results -> results);
+    }
+
+    private <T> Flux<List<T>> batch(Flux<T> messages) {
+        return lingerMs > 0
+               ? messages.bufferTimeout(maxBatchSize, Duration.ofMillis(lingerMs), true)
+               : messages.buffer(maxBatchSize);
+    }
+
+    private Pending encode(String destination, Object message, Function<Object, Map<String, Object>> attributes) {
+        try {
+            final SqsEncodedMessage encoded = sqsSender.encode(destination, message, attributes.apply(message));
+            final int maximumMessageSize = Math.min(sqsSender.resolve(destination).maximumMessageSize(),
+                                                    SqsRequestFactory.MAX_BATCH_BYTES);
+            if (encoded.size() > maximumMessageSize) {
+                return rejected(message, "Message for %s is %d bytes, the queue limit is %d bytes".formatted(
+                        destination,
+                        encoded.size(),
+                        maximumMessageSize));
+            }
+            return new Pending(message, encoded, null);
+        } catch (IllegalArgumentException e) {
+            return rejected(message, e.getMessage());
+        } catch (SdkException e) {
+            // a claim-check upload or queue lookup failed, which may succeed if the message is sent again.
+            return failed(destination, message, e, false);
+        } catch (RuntimeException e) {
+            // the message or its attributes cannot be serialised.
+            return failed(destination, message, e, true);
+        }
+    }
+
+    private static Pending rejected(Object message, String reason) {
+        return new Pending(message, null, SqsSendResult.failure(message, "InvalidParameterValue", reason, true));
+    }
+
+    private static Pending failed(String destination, Object message, RuntimeException e, boolean senderFault) {
+        log.error("Could not encode message for {}: {}", destination, e.getMessage());
+        return new Pending(message,
+                           null,
+                           SqsSendResult.failure(message, e.getClass().getSimpleName(), e.getMessage(), senderFault));
+    }
+
+    private List<SqsSendResult> sendBatch(String destination,
+                                          List<?> batch,
+                                          Function<Object, Map<String, Object>> attributes) {
+        final SqsSendResult[] results = new SqsSendResult[batch.size()];
+        final List<Integer> indexes = new ArrayList<>(batch.size());
+        final List<Pending> encoded = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            final Object message = batch.get(i);
+            final Pending pending = encode(destination, message, attributes);
+            if (pending.rejected() != null) {
+                results[i] = pending.rejected();
+            } else {
+                indexes.add(i);
+                encoded.add(pending);
+            }
+        }
+        log.trace("Sending {} messages to {}", encoded.size(), destination);
+        final long start = System.nanoTime();
+        final SqsBatchRetry.Outcome outcome = batchRetry.send(destination,
+                                                              encoded,
+                                                              Pending::encoded,
+                                                              pending -> pending.encoded().messageGroupId());
+        int failures = batch.size() - encoded.size();
+        for (int i = 0; i < encoded.size(); i++) {
+            final Object message = encoded.get(i).message();
+            final BatchResultErrorEntry failure = outcome.failure(i);
+            if (outcome.isSent(i)) {
+                results[indexes.get(i)] = SqsSendResult.success(message, outcome.messageId(i));
+            } else {
+                failures++;
+                results[indexes.get(i)] = failure != null
+                                          ? SqsSendResult.failure(message,
+                                                                  failure.code(),
+                                                                  failure.message(),
+                                                                  failure.senderFault())
+                                          : SqsSendResult.failure(message,
+                                                                  outcome.error().getClass().getSimpleName(),
+                                                                  outcome.error().getMessage(),
+                                                                  false);
+            }
+        }
+        metrics.recordFlush(destination, System.nanoTime() - start, failures == 0);
+        if (outcome.error() != null) {
+            log.error("Could not send messages to {}: {}", destination, outcome.error().getMessage());
+        }
+        if (failures > 0) {
+            log.error("{} of {} messages failed to {}", failures, batch.size(), destination);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * A published message with its encoding, or the result rejecting it before any send.
+     */
+    private record Pending(Object message, SqsEncodedMessage encoded, SqsSendResult rejected) {
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.pump;
+
+/**
+ * The outcome of sending one message through a {@link SqsReactivePump}.
+ *
+ * @param message      the message as supplied by the publisher.
+ * @param messageId    the SQS message id, null if the send failed.
+ * @param errorCode    the SQS error code or exception name, null if the send succeeded.
+ * @param errorMessage a description of the failure, null if the send succeeded.
+ * @param senderFault  true if the failure was caused by the message, so resending it would fail again.
+ */
+public record SqsSendResult(Object message,
+                            String messageId,
+                            String errorCode,
+                            String errorMessage,
+                            boolean senderFault) {
+
+    /**
+     * Whether SQS accepted the message.
+     *
+     * @return true if the message was sent.
+     */
+    public boolean isSuccess() {
+        return errorCode == null;
+    }
+
+    static SqsSendResult success(Object message, String messageId) {
+        return new SqsSendResult(message, messageId, null, null, false);
+    }
+
+    static SqsSendResult failure(Object message, String errorCode, String errorMessage, boolean senderFault) {
+        return new SqsSendResult(message, null, errorCode, errorMessage, senderFault);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.receiver;
+
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * Processes messages delivered by a {@link SqsReceiver}.  A message is deleted from the queue when the handler returns
+ * normally and left on the queue for redelivery when it throws.
+ *
+ * @param <T> the type the message body is decoded to.
+ */
+@FunctionalInterface
+public interface SqsMessageHandler<T> {
+
+    /**
+     * Handles a message.
+     *
+     * @param body    the message body decoded from JSON.
+     * @param message the SQS message with its attributes and receipt handle.
+     * @throws Exception if the message could not be processed and should be redelivered.
+     */
+    void handle(T body, Message message) throws Exception;
+}
@@ -0,0 +1,560 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.receiver;
+
+import com.limemojito.aws.sqs.SqsBodyCodec;
+import com.limemojito.aws.sqs.SqsClaimCheck;
+import com.limemojito.aws.sqs.SqsQueue;
+import com.limemojito.aws.sqs.SqsQueueResolver;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.JavaType;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName.ALL;
+import static software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName.MESSAGE_GROUP_ID;
+
+/**
+ * Consumes a queue with several concurrent long-poll loops, complementing {@link com.limemojito.aws.sqs.SqsSender}.
+ * Each loop receives up to ten messages at a time and dispatches them on virtual threads to a
+ * {@link SqsMessageHandler}, with bodies decoded from JSON by the shared {@link JsonMapper}.  Messages handled
+ * successfully are collected and deleted with one {@code DeleteMessageBatch} call once ten are waiting, once every
+ * message of their receive is handled, or after {@link SqsReceiverSettings#getDeleteLingerMs()}, whichever is first, so
+ * a slow handler does not hold back deleting the rest.  A message whose body cannot be decoded, or whose handler
+ * throws, is left on the queue to be redelivered after its visibility timeout, and so reaches the queue's dead letter
+ * queue if one is configured.
+ * <p>
+ * The number of messages received and not yet handled is bounded by {@link SqsReceiverSettings#getPrefetch()}.  On a
+ * FIFO queue the messages of one message group within a receive are handled one after another in order, and a failure
+ * stops the rest of that group so they are redelivered in order.
+ * <p>
+ * With {@link SqsReceiverSettings#isVisibilityHeartbeat()} set, every message is kept invisible by a
+ * {@link SqsVisibilityHeartbeat} from when it is received until it is deleted or its handler fails.
+ * <p>
+ * Given a {@link SqsClaimCheck}, bodies the sender stored in S3 are streamed from S3 straight into the JSON decoder.
+ * Bodies compressed by a {@link SqsBodyCodec} are decompressed as they are decoded.
+ *
+ * <pre>
+ * try (SqsReceiver&lt;Order&gt; receiver = new SqsReceiver&lt;&gt;(sqs, jsonMapper, "orders", Order.class, handler,
+ *                                                      SqsReceiverSettings.builder().build())) {
+ *     receiver.start();
+ *     ...
+ * }
+ * </pre>
+ *
+ * @param <T> the type message bodies are decoded to.
+ * @see SqsReceiverSettings
+ */
+@Slf4j
+public class SqsReceiver<T> implements AutoCloseable {
+    private static final long STOP_SECONDS = 30;
+    private static final long RECEIVE_ERROR_BACKOFF_MS = 1_000;
+    private static final int MAX_DELETE_BATCH = 10;
+    private final SqsClient sqs;
+    private final JsonMapper jsonMapper;
+    private final String destination;
+    private final JavaType bodyType;
+    private final SqsMessageHandler<T> handler;
+    private final SqsClaimCheck claimCheck;
+    private final SqsQueueResolver queueResolver;
+    private final SqsReceiverSettings settings;
+    private final Semaphore prefetch;
+    private final AtomicBoolean started;
+    private final AtomicBoolean closed;
+    private final Object deleteLock;
+    private List<Message> pendingDeletes;
+    private long deleteGeneration;
+    private volatile boolean running;
+    private SqsQueue queue;
+    private ReceiveMessageRequest receiveRequest;
+    private ExecutorService pollers;
+    private ExecutorService handlers;
+    private ScheduledExecutorService deleteFlusher;
+    private SqsVisibilityHeartbeat heartbeat;
+
+    /**
+     * Creates a receiver decoding message bodies to a class.
+     *
+     * @param sqs         the client used to receive and delete messages.
+     * @param jsonMapper  the JSON mapper used to decode message bodies.
+     * @param destination queue name or URL.
+     * @param bodyType    the class message bodies are decoded to.
+     * @param handler     processes each message.
+     * @param settings    concurrency and prefetch settings.
+     */
+    public SqsReceiver(SqsClient sqs,
+                       JsonMapper jsonMapper,
+                       String destination,
+                       Class<T> bodyType,
+                       SqsMessageHandler<T> handler,
+                       SqsReceiverSettings settings) {
+        this(sqs, jsonMapper, destination, jsonMapper.constructType(bodyType), handler, settings, null, null);
+    }
+
+    /**
+     * Creates a receiver decoding message bodies to a class, fetching bodies stored in S3 with a claim check.
+     *
+     * @param sqs         the client used to receive and delete messages.
+     * @param jsonMapper  the JSON mapper used to decode message bodies.
+     * @param destination queue name or URL.
+     * @param bodyType    the class message bodies are decoded to.
+     * @param handler     processes each message.
+     * @param settings    concurrency and prefetch settings.
+     * @param claimCheck  fetches bodies the sender stored in S3.
+     */
+    public SqsReceiver(SqsClient sqs,
+                       JsonMapper jsonMapper,
+                       String destination,
+                       Class<T> bodyType,
+                       SqsMessageHandler<T> handler,
+                       SqsReceiverSettings settings,
+                       SqsClaimCheck claimCheck) {
+        this(sqs, jsonMapper, destination, jsonMapper.constructType(bodyType), handler, settings, claimCheck, null);
+    }
+
+    /**
+     * Creates a receiver decoding message bodies to a class, resolving the destination with a shared queue resolver.
+     *
+     * @param sqs           the client used to receive and delete messages.
+     * @param jsonMapper    the JSON mapper used to decode message bodies.
+     * @param destination   queue name or URL.
+     * @param bodyType      the class message bodies are decoded to.
+     * @param handler       processes each message.
+     * @param settings      concurrency and prefetch settings.
+     * @param claimCheck    fetches bodies the sender stored in S3, may be null.
+     * @param queueResolver the shared resolver of queue names and metadata.
+     */
+    public SqsReceiver(SqsClient sqs,
+                       JsonMapper jsonMapper,
+                       String destination,
+                       Class<T> bodyType,
+                       SqsMessageHandler<T> handler,
+                       SqsReceiverSettings settings,
+                       SqsClaimCheck claimCheck,
+                       SqsQueueResolver queueResolver) {
+        this(sqs,
+             jsonMapper,
+             destination,
+             jsonMapper.constructType(bodyType),
+             handler,
+             settings,
+             claimCheck,
+             queueResolver);
+    }
+
+    /**
+     * Creates a receiver decoding message bodies to a generic type.
+     *
+     * @param sqs         the client used to receive and delete messages.
+     * @param jsonMapper  the JSON mapper used to decode message bodies.
+     * @param destination queue name or URL.
+     * @param bodyType    the type message bodies are decoded to.
+     * @param handler     processes each message.
+     * @param settings    concurrency and prefetch settings.
+     */
+    public SqsReceiver(SqsClient sqs,
+                       JsonMapper jsonMapper,
+                       String destination,
+                       TypeReference<T> bodyType,
+                       SqsMessageHandler<T> handler,
+                       SqsReceiverSettings settings) {
+        this(sqs, jsonMapper, destination, jsonMapper.constructType(bodyType), handler, settings, null, null);
+    }
+
+    /**
+     * Creates a receiver decoding message bodies to a generic type, fetching bodies stored in S3 with a claim check.
+     *
+     * @param sqs         the client used to receive and delete messages.
+     * @param jsonMapper  the JSON mapper used to decode message bodies.
+     * @param destination queue name or URL.
+     * @param bodyType    the type message bodies are decoded to.
+     * @param handler     processes each message.
+     * @param settings    concurrency and prefetch settings.
+     * @param claimCheck  fetches bodies the sender stored in S3.
+     */
+    public SqsReceiver(SqsClient sqs,
+                       JsonMapper jsonMapper,
+                       String destination,
+                       TypeReference<T> bodyType,
+                       SqsMessageHandler<T> handler,
+                       SqsReceiverSettings settings,
+                       SqsClaimCheck claimCheck) {
+        this(sqs, jsonMapper, destination, jsonMapper.constructType(bodyType), handler, settings, claimCheck, null);
+    }
+
+    /**
+     * Creates a receiver decoding message bodies to a generic type, resolving the destination with a shared queue
+     * resolver.
+     *
+     * @param sqs           the client used to receive and delete messages.
+     * @param jsonMapper    the JSON mapper used to decode message bodies.
+     * @param destination   queue name or URL.
+     * @param bodyType      the type message bodies are decoded to.
+     * @param handler       processes each message.
+     * @param settings      concurrency and prefetch settings.
+     * @param claimCheck    fetches bodies the sender stored in S3, may be null.
+     * @param queueResolver the shared resolver of queue names and metadata.
+     */
+    public SqsReceiver(SqsClient sqs,
+                       JsonMapper jsonMapper,
+                       String destination,
+                       TypeReference<T> bodyType,
+                       SqsMessageHandler<T> handler,
+                       SqsReceiverSettings settings,
+                       SqsClaimCheck claimCheck,
+                       SqsQueueResolver queueResolver) {
+        this(sqs,
+             jsonMapper,
+             destination,
+             jsonMapper.constructType(bodyType),
+             handler,
+             settings,
+             claimCheck,
+             queueResolver);
+    }
+
+    private SqsReceiver(SqsClient sqs,
+                        JsonMapper jsonMapper,
+                        String destination,
+                        JavaType bodyType,
+                        SqsMessageHandler<T> handler,
+                        SqsReceiverSettings settings,
+                        SqsClaimCheck claimCheck,
+                        SqsQueueResolver queueResolver) {
+        this.settings = settings.validate();
+        this.sqs = sqs;
+        this.jsonMapper = jsonMapper;
+        this.destination = destination;
+        this.bodyType = bodyType;
+        this.handler = handler;
+        this.claimCheck = claimCheck;
+        this.queueResolver = queueResolver != null ? queueResolver : new SqsQueueResolver(sqs);
+        this.prefetch = new Semaphore(settings.getPrefetch());
+        this.started = new AtomicBoolean();
+        this.closed = new AtomicBoolean();
+        this.deleteLock = new Object();
+        this.pendingDeletes = new ArrayList<>(MAX_DELETE_BATCH);
+    }
+
+    /**
+     * Resolves the queue and starts the poll loops.
+     *
+     * @throws IllegalStateException if the receiver has already been started.
+     */
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("Receiver for " + destination + " already started");
+        }
+        queue = queueResolver.resolve(destination);
+        receiveRequest = receiveRequest(queue.url(), settings);
+        if (settings.isVisibilityHeartbeat()) {
+            heartbeat = new SqsVisibilityHeartbeat(sqs, queue.url(), settings.getVisibilityTimeoutSeconds());
+        }
+        handlers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sqs-receiver-handler-", 0).factory());
+        pollers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sqs-receiver-poll-", 0).factory());
+        deleteFlusher = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual()
+                                                                         .name("sqs-receiver-delete")
+                                                                         .factory());
+        running = true;
+        for (int i = 0; i < settings.getConcurrency(); i++) {
+            pollers.execute(this::poll);
+        }
+        log.info("Started SQS receiver on {} with {} poll loops prefetch {}",
+                 queue.url(),
+                 settings.getConcurrency(),
+                 settings.getPrefetch());
+    }
+
+    /**
+     * The number of messages received and not yet handled.
+     *
+     * @return in flight message count.
+     */
+    public int getInFlight() {
+        return settings.getPrefetch() - prefetch.availablePermits();
+    }
+
+    /**
+     * Stops polling and waits for messages already received to be handled and deleted.  Calling close more than once
+     * has no further effect.
+     */
+    @Override
+    @PreDestroy
+    public void close() {
+        if (closed.compareAndSet(false, true) && started.get()) {
+            running = false;
+            // interrupts any long poll in progress, nothing has been received by an aborted poll.
+            pollers.shutdownNow();
+            awaitStop(pollers);
+            handlers.shutdown();
+            awaitStop(handlers);
+            deleteFlusher.shutdown();
+            awaitStop(deleteFlusher);
+            flushDeletes();
+            if (heartbeat != null) {
+                heartbeat.close();
+            }
+            log.info("Stopped SQS receiver on {}", queue.url());
+        }
+    }
+
+    private void poll() {
+        while (running) {
+            final int permits = settings.getMaxMessages();
+            try {
+                prefetch.acquire(permits);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            List<Message> messages = List.of();
+            try {
+                messages = sqs.receiveMessage(receiveRequest).messages();
+            } catch (RuntimeException e) {
+                if (running) {
+                    log.warn("Receive from {} failed: {}", queue.url(), e.getMessage());
+                    pause();
+                }
+            } finally {
+                prefetch.release(permits - messages.size());
+            }
+            if (!messages.isEmpty()) {
+                dispatch(messages);
+            }
+        }
+    }
+
+    private void dispatch(List<Message> messages) {
+        log.debug("Received {} messages from {}", messages.size(), queue.url());
+        if (heartbeat != null) {
+            messages.forEach(heartbeat::track);
+        }
+        final List<List<Message>> partitions = partition(messages);
+        final AtomicInteger remaining = new AtomicInteger(partitions.size());
+        for (List<Message> ordered : partitions) {
+            handlers.execute(() -> handleInOrder(ordered, remaining));
+        }
+    }
+
+    /**
+     * Each message of a standard queue is handled on its own, a FIFO message group is handled in order.
+     */
+    private List<List<Message>> partition(List<Message> messages) {
+        if (!queue.fifo()) {
+            return messages.stream().map(List::of).toList();
+        }
+        final Map<String, List<Message>> groups = new LinkedHashMap<>();
+        for (Message message : messages) {
+            groups.computeIfAbsent(message.attributes().get(MESSAGE_GROUP_ID), key -> new ArrayList<>()).add(message);
+        }
+        return List.copyOf(groups.values());
+    }
+
+    private void handleInOrder(List<Message> ordered, AtomicInteger remaining) {
+        boolean handling = true;
+        for (Message message : ordered) {
+            handling = handling && handle(message);
+            if (handling) {
+                deleteLater(message);
+            } else {
+                release(message);
+            }
+            prefetch.release();
+        }
+        // the last partition of a receive deletes what is waiting rather than leaving it for the linger.
+        if (remaining.decrementAndGet() == 0) {
+            flushDeletes();
+        }
+    }
+
+    /**
+     * Adds a handled message to the deletes waiting, deleting them at once when there are ten.  The first message
+     * waiting schedules a flush after the linger, which is ignored if its deletes have already been sent.
+     */
+    private void deleteLater(Message message) {
+        final List<Message> batch;
+        synchronized (deleteLock) {
+            pendingDeletes.add(message);
+            if (pendingDeletes.size() == 1) {
+                final long generation = deleteGeneration;
+                deleteFlusher.schedule(() -> flushDeletes(generation),
+                                       settings.getDeleteLingerMs(),
+                                       TimeUnit.MILLISECONDS);
+            }
+            if (pendingDeletes.size() < MAX_DELETE_BATCH) {
+                return;
+            }
+            batch = takeDeletes();
+        }
+        delete(batch);
+    }
+
+    private void flushDeletes(long generation) {
+        final List<Message> batch;
+        synchronized (deleteLock) {
+            if (generation != deleteGeneration) {
+                return;
+            }
+            batch = takeDeletes();
+        }
+        delete(batch);
+    }
+
+    private void flushDeletes() {
+        final List<Message> batch;
+        synchronized (deleteLock) {
+            batch = takeDeletes();
+        }
+        delete(batch);
+    }
+
+    /**
+     * Takes the deletes waiting.  Called holding the delete lock.
+     */
+    private List<Message> takeDeletes() {
+        if (pendingDeletes.isEmpty()) {
+            return List.of();
+        }
+        final List<Message> batch = pendingDeletes;
+        pendingDeletes = new ArrayList<>(MAX_DELETE_BATCH);
+        deleteGeneration++;
+        return batch;
+    }
+
+    private boolean handle(Message message) {
+        try {
+            handler.handle(decode(message), message);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted handling message {} from {}", message.messageId(), queue.url());
+            return false;
+        } catch (Exception e) {
+            log.error("Failed to handle message {} from {}: {}", message.messageId(), queue.url(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private T decode(Message message) throws IOException {
+        final Map<String, MessageAttributeValue> attributes = message.messageAttributes();
+        final boolean stored = claimCheck != null && SqsClaimCheck.isClaimCheck(attributes);
+        if (!stored && !SqsBodyCodec.isEncoded(attributes)) {
+            return jsonMapper.readValue(message.body(), bodyType);
+        }
+        try (InputStream body = SqsBodyCodec.decode(stored ? claimCheck.open(message)
+                                                           : new ByteArrayInputStream(message.body().getBytes(UTF_8)),
+                                                    attributes)) {
+            return jsonMapper.readValue(body, bodyType);
+        }
+    }
+
+    private void release(Message message) {
+        if (heartbeat != null) {
+            heartbeat.release(message);
+        }
+    }
+
+    private void delete(List<Message> handled) {
+        if (handled.isEmpty()) {
+            return;
+        }
+        final List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(handled.size());
+        for (int i = 0; i < handled.size(); i++) {
+            entries.add(DeleteMessageBatchRequestEntry.builder()
+                                                      .id(Integer.toString(i))
+                                                      .receiptHandle(handled.get(i).receiptHandle())
+                                                      .build());
+        }
+        final DeleteMessageBatchRequest request = DeleteMessageBatchRequest.builder()
+                                                                           .queueUrl(queue.url())
+                                                                           .entries(entries)
+                                                                           .build();
+        try {
+            final DeleteMessageBatchResponse response = sqs.deleteMessageBatch(request);
+            for (BatchResultErrorEntry failed : response.failed()) {
+                log.warn("Could not delete message {} from {}, it will be redelivered: {}",
+                         handled.get(Integer.parseInt(failed.id())).messageId(),
+                         queue.url(),
+                         failed.code());
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not delete {} messages from {}, they will be redelivered: {}",
+                      handled.size(),
+                      queue.url(),
+                      e.getMessage(),
+                      e);
+        } finally {
+            handled.forEach(this::release);
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(RECEIVE_ERROR_BACKOFF_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static ReceiveMessageRequest receiveRequest(String queueUrl, SqsReceiverSettings settings) {
+        final ReceiveMessageRequest.Builder request = ReceiveMessageRequest.builder()
+                                                                           .queueUrl(queueUrl)
+                                                                           .maxNumberOfMessages(settings.getMaxMessages())
+                                                                           .waitTimeSeconds(settings.getWaitTimeSeconds())
+                                                                           .messageAttributeNames("All")
+                                                                           .messageSystemAttributeNames(ALL);
+        if (settings.getVisibilityTimeoutSeconds() > 0) {
+            request.visibilityTimeout(settings.getVisibilityTimeoutSeconds());
+        }
+        return request.build();
+    }
+
+    private static void awaitStop(ExecutorService executor) {
+        try {
+            if (!executor.awaitTermination(STOP_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Receiver threads did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted waiting for receiver threads to stop");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.receiver;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Tuning settings for a {@link SqsReceiver}.  Defaults run two long-poll loops of 10 messages each with up to 20
+ * messages received and not yet handled.
+ *
+ * <pre>
+ * SqsReceiverSettings settings = SqsReceiverSettings.builder()
+ *                                                   .concurrency(4)
+ *                                                   .prefetch(80)
+ *                                                   .build();
+ * </pre>
+ */
+@Value
+@Builder
+@SuppressWarnings("RedundantModifiersValueLombok")
+public class SqsReceiverSettings {
+    private static final int MAX_RECEIVE_MESSAGES = 10;
+    private static final int MAX_WAIT_TIME_SECONDS = 20;
+
+    /**
+     * The number of long-poll loops receiving from the queue at once.
+     */
+    @Builder.Default
+    private int concurrency = 2;
+
+    /**
+     * The maximum number of messages each receive requests, 1 to 10.
+     */
+    @Builder.Default
+    private int maxMessages = MAX_RECEIVE_MESSAGES;
+
+    /**
+     * The long-poll wait in seconds, 0 to 20.  Zero short polls.
+     */
+    @Builder.Default
+    private int waitTimeSeconds = MAX_WAIT_TIME_SECONDS;
+
+    /**
+     * The maximum number of messages received and not yet handled.  A poll loop waits for room for a full receive
+     * before polling again, so slow handlers hold back receiving rather than letting visibility timeouts run out on
+     * messages waiting in memory.  Must be at least {@link #getMaxMessages()}.
+     */
+    @Builder.Default
+    private int prefetch = 2 * MAX_RECEIVE_MESSAGES;
+
+    /**
+     * The visibility timeout in seconds applied to received messages.  Zero uses the queue's own visibility timeout.
+     */
+    @Builder.Default
+    private int visibilityTimeoutSeconds = 0;
+
+    /**
+     * Keeps messages invisible while their handler runs by renewing their visibility timeout before it expires, so the
+     * timeout can be sized for recovering from a dead consumer rather than for the slowest handler.  Requires
+     * {@link #getVisibilityTimeoutSeconds()} to be set.
+     *
+     * @see SqsVisibilityHeartbeat
+     */
+    @Builder.Default
+    private boolean visibilityHeartbeat = false;
+
+    /**
+     * The longest time in milliseconds a handled message waits to be deleted along with others.  Handled messages are
+     * deleted ten at a time, and sooner once every message of their receive is handled.
+     */
+    @Builder.Default
+    private long deleteLingerMs = 100;
+
+    /**
+     * Checks the settings for consistency.
+     *
+     * @return this settings object.
+     * @throws IllegalArgumentException if a setting is out of range.
+     */
+    public SqsReceiverSettings validate() {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1, was " + concurrency);
+        }
+        if (maxMessages < 1 || maxMessages > MAX_RECEIVE_MESSAGES) {
+            throw new IllegalArgumentException("maxMessages must be 1 to %d, was %d".formatted(MAX_RECEIVE_MESSAGES,
+                                                                                             maxMessages));
+        }
+        if (waitTimeSeconds < 0 || waitTimeSeconds > MAX_WAIT_TIME_SECONDS) {
+            throw new IllegalArgumentException("waitTimeSeconds must be 0 to %d, was %d".formatted(MAX_WAIT_TIME_SECONDS,
+                                                                                                 waitTimeSeconds));
+        }
+        if (prefetch < maxMessages) {
+            throw new IllegalArgumentException("prefetch must be at least maxMessages %d, was %d".formatted(maxMessages,
+                                                                                                          prefetch));
+        }
+        if (visibilityTimeoutSeconds < 0) {
+            throw new IllegalArgumentException("visibilityTimeoutSeconds must not be negative, was "
+                                               + visibilityTimeoutSeconds);
+        }
+        if (visibilityHeartbeat && visibilityTimeoutSeconds == 0) {
+            throw new IllegalArgumentException("visibilityHeartbeat requires visibilityTimeoutSeconds");
+        }
+        if (deleteLingerMs < 0) {
+            throw new IllegalArgumentException("deleteLingerMs must not be negative, was " + deleteLingerMs);
+        }
+        return this;
+    }
+}
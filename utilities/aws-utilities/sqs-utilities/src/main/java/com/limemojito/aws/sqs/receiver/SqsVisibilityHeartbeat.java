@@ -0,0 +1,172 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.receiver;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps messages that are still being processed invisible on their queue.  Tracked receipt handles are renewed in
+ * bulk with {@code ChangeMessageVisibilityBatch}, ten to a request, once less than half of their visibility timeout
+ * remains, so a long-running handler is not redelivered to another consumer while a consumer that dies stops renewing
+ * and its messages come back after one short timeout.
+ * <p>
+ * Renewal runs on a virtual thread every third of the visibility timeout.  A handle SQS refuses to renew, for example
+ * because the message was already deleted, is no longer tracked.  A failed request is retried on the next beat.  SQS
+ * itself limits the total visibility of a message to twelve hours from when it was received.
+ */
+@Slf4j
+public class SqsVisibilityHeartbeat implements AutoCloseable {
+    private static final int MAX_BATCH_ENTRIES = 10;
+    private static final long STOP_SECONDS = 30;
+    private final SqsClient sqs;
+    private final String queueUrl;
+    private final int visibilityTimeoutSeconds;
+    private final long timeoutNanos;
+    private final Map<String, Long> expiries;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a heartbeat and starts renewing.
+     *
+     * @param sqs                      the client used to change message visibility.
+     * @param queueUrl                 the queue the messages were received from.
+     * @param visibilityTimeoutSeconds the visibility timeout the messages were received with, and that each renewal
+     *                                 applies.
+     */
+    @SuppressWarnings("this-escape")
+    public SqsVisibilityHeartbeat(SqsClient sqs, String queueUrl, int visibilityTimeoutSeconds) {
+        if (visibilityTimeoutSeconds < 1) {
+            throw new IllegalArgumentException("visibilityTimeoutSeconds must be at least 1, was "
+                                               + visibilityTimeoutSeconds);
+        }
+        this.sqs = sqs;
+        this.queueUrl = queueUrl;
+        this.visibilityTimeoutSeconds = visibilityTimeoutSeconds;
+        this.timeoutNanos = TimeUnit.SECONDS.toNanos(visibilityTimeoutSeconds);
+        this.expiries = new ConcurrentHashMap<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual()
+                                                                          .name("sqs-visibility-heartbeat")
+                                                                          .factory());
+        final long period = TimeUnit.SECONDS.toMillis(visibilityTimeoutSeconds) / 3;
+        scheduler.scheduleWithFixedDelay(this::renew, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts renewing a message that has just been received.
+     *
+     * @param message the received message.
+     */
+    public void track(Message message) {
+        expiries.put(message.receiptHandle(), System.nanoTime() + timeoutNanos);
+    }
+
+    /**
+     * Stops renewing a message, because it was deleted or should become visible again when its timeout runs out.
+     *
+     * @param message the message to release.
+     */
+    public void release(Message message) {
+        expiries.remove(message.receiptHandle());
+    }
+
+    /**
+     * The number of messages being kept invisible.
+     *
+     * @return tracked message count.
+     */
+    public int getTracked() {
+        return expiries.size();
+    }
+
+    /**
+     * Stops renewing.  Tracked messages become visible once their current timeout runs out.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(STOP_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Visibility heartbeat did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted waiting for visibility heartbeat to stop");
+        }
+    }
+
+    /**
+     * Renews every tracked message with less than half of its timeout left.
+     */
+    void renew() {
+        final long now = System.nanoTime();
+        final List<String> due = new ArrayList<>();
+        expiries.forEach((receiptHandle, expiry) -> {
+            if (expiry - now < timeoutNanos / 2) {
+                due.add(receiptHandle);
+            }
+        });
+        for (int i = 0; i < due.size(); i += MAX_BATCH_ENTRIES) {
+            renew(due.subList(i, Math.min(due.size(), i + MAX_BATCH_ENTRIES)), now);
+        }
+    }
+
+    private void renew(List<String> receiptHandles, long now) {
+        final List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(receiptHandles.size());
+        for (int i = 0; i < receiptHandles.size(); i++) {
+            entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                                                                .id(Integer.toString(i))
+                                                                .receiptHandle(receiptHandles.get(i))
+                                                                .visibilityTimeout(visibilityTimeoutSeconds)
+                                                                .build());
+        }
+        final ChangeMessageVisibilityBatchRequest request = ChangeMessageVisibilityBatchRequest.builder()
+                                                                                               .queueUrl(queueUrl)
+                                                                                               .entries(entries)
+                                                                                               .build();
+        try {
+            final List<BatchResultErrorEntry> failed = sqs.changeMessageVisibilityBatch(request).failed();
+            final long expiry = now + timeoutNanos;
+            receiptHandles.forEach(receiptHandle -> expiries.computeIfPresent(receiptHandle, (key, old) -> expiry));
+            for (BatchResultErrorEntry entry : failed) {
+                // a handle released while the request was in flight is expected to fail.
+                if (expiries.remove(receiptHandles.get(Integer.parseInt(entry.id()))) != null) {
+                    log.warn("Could not extend visibility of a message on {}: {}", queueUrl, entry.code());
+                }
+            }
+            log.debug("Extended visibility of {} messages on {}", receiptHandles.size() - failed.size(), queueUrl);
+        } catch (RuntimeException e) {
+            log.warn("Could not extend visibility of {} messages on {}: {}",
+                     receiptHandles.size(),
+                     queueUrl,
+                     e.getMessage());
+        }
+    }
+}
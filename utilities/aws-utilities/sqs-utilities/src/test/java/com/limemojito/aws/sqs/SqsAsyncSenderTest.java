@@ -0,0 +1,109 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import com.limemojito.json.JsonMapperPrototype;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static com.limemojito.aws.sqs.SqsSender.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SqsAsyncSenderTest {
+    private final String queueUrl = "sqs://queue/url";
+    @Mock
+    private SqsAsyncClient sqs;
+    @Captor
+    private ArgumentCaptor<SendMessageRequest> sendCaptor;
+    @Captor
+    private ArgumentCaptor<SendMessageBatchRequest> batchCaptor;
+    private SqsAsyncSender sender;
+
+    @BeforeEach
+    void setUp() {
+        sender = new SqsAsyncSender(sqs, JsonMapperPrototype.buildBootLikeMapper());
+    }
+
+    @Test
+    public void shouldSendAsynchronouslyWithStandardAttributes() {
+        final SendMessageResponse response = SendMessageResponse.builder().messageId("1").build();
+        doReturn(CompletableFuture.completedFuture(response)).when(sqs).sendMessage(any(SendMessageRequest.class));
+
+        final CompletableFuture<SendMessageResponse> result = sender.send(queueUrl, "hello", Map.of("custom", 42));
+
+        assertThat(result.join()).isSameAs(response);
+        verify(sqs).sendMessage(sendCaptor.capture());
+        final SendMessageRequest request = sendCaptor.getValue();
+        assertThat(request.queueUrl()).isEqualTo(queueUrl);
+        assertThat(request.messageBody()).isEqualTo("\"hello\"");
+        assertThat(request.messageAttributes()).containsKeys(ATTRIBUTE_ID,
+                                                            ATTRIBUTE_TIMESTAMP,
+                                                            ATTRIBUTE_CONTENT_TYPE,
+                                                            ATTRIBUTE_SPRING_CONTENT_TYPE,
+                                                            ATTRIBUTE_CONTENT_LENGTH,
+                                                            "custom");
+        assertThat(request.messageAttributes().get("custom").dataType()).isEqualTo("Number");
+    }
+
+    @Test
+    public void shouldSendBatchAsynchronously() {
+        final SendMessageBatchResponse response = SendMessageBatchResponse.builder().build();
+        doReturn(CompletableFuture.completedFuture(response)).when(sqs)
+                                                             .sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        final CompletableFuture<SendMessageBatchResponse> result = sender.sendBatch(queueUrl, List.of("one", "two"));
+
+        assertThat(result.join()).isSameAs(response);
+        verify(sqs).sendMessageBatch(batchCaptor.capture());
+        assertThat(batchCaptor.getValue().entries()).extracting(SendMessageBatchRequestEntry::messageBody)
+                                                    .containsExactly("\"one\"", "\"two\"");
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyOnServiceFailure() {
+        final SqsException failure = (SqsException) SqsException.builder().message("boom").build();
+        doReturn(CompletableFuture.failedFuture(failure)).when(sqs).sendMessage(any(SendMessageRequest.class));
+
+        final CompletableFuture<SendMessageResponse> result = sender.send(queueUrl, "hello");
+
+        assertThat(result).isCompletedExceptionally();
+    }
+
+    @Test
+    public void shouldValidateFifoBeforeSending() {
+        assertThatThrownBy(() -> sender.send(queueUrl + ".fifo", "hello"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verifyNoInteractions(sqs);
+    }
+}
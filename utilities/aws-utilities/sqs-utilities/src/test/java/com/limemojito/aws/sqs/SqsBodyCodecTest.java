@@ -0,0 +1,101 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import com.limemojito.json.JsonMapperPrototype;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import static com.limemojito.aws.sqs.SqsBodyCodec.ATTRIBUTE_CONTENT_ENCODING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class SqsBodyCodecTest {
+    private final JsonMapper objectMapper = JsonMapperPrototype.buildBootLikeMapper();
+    private final String queueUrl = "sqs://queue/url";
+    @Mock
+    private SqsClient sqs;
+    @Captor
+    private ArgumentCaptor<SendMessageBatchRequest> batchCaptor;
+
+    @Test
+    public void shouldCompressLargeBodiesKeepingContentLength() throws Exception {
+        final String large = "repeat ".repeat(2_000);
+        final SendMessageBatchRequestEntry entry = sendWithCodec(large);
+
+        final Map<String, MessageAttributeValue> attributes = entry.messageAttributes();
+        assertThat(attributes.get(ATTRIBUTE_CONTENT_ENCODING).stringValue()).isEqualTo(SqsBodyCodec.ENCODING_GZIP);
+        assertThat(attributes.get(SqsSender.ATTRIBUTE_CONTENT_LENGTH).stringValue()).isEqualTo("14002");
+        assertThat(entry.messageBody().length()).isLessThan(1_000);
+        try (InputStream body = SqsBodyCodec.decode(new ByteArrayInputStream(entry.messageBody().getBytes(UTF_8)),
+                                                    attributes)) {
+            assertThat(objectMapper.readValue(body, String.class)).isEqualTo(large);
+        }
+    }
+
+    @Test
+    public void shouldSendSmallBodiesAsPlainJson() {
+        final SendMessageBatchRequestEntry entry = sendWithCodec("small");
+
+        assertThat(entry.messageBody()).isEqualTo("\"small\"");
+        assertThat(SqsBodyCodec.isEncoded(entry.messageAttributes())).isFalse();
+    }
+
+    @Test
+    public void shouldRejectUnsupportedEncoding() {
+        final Map<String, MessageAttributeValue> attributes = Map.of(ATTRIBUTE_CONTENT_ENCODING,
+                                                                     MessageAttributeValue.builder()
+                                                                                          .dataType("String")
+                                                                                          .stringValue("br")
+                                                                                          .build());
+
+        assertThatThrownBy(() -> SqsBodyCodec.decode(new ByteArrayInputStream(new byte[0]), attributes))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private SendMessageBatchRequestEntry sendWithCodec(String message) {
+        doReturn(SendMessageBatchResponse.builder().build()).when(sqs)
+                                                            .sendMessageBatch(any(SendMessageBatchRequest.class));
+        final SqsSender sender = new SqsSender(sqs, objectMapper, new SqsQueueResolver(sqs), null, new SqsBodyCodec());
+
+        sender.sendBatch(queueUrl, List.of(message));
+
+        verify(sqs).sendMessageBatch(batchCaptor.capture());
+        return batchCaptor.getValue().entries().getFirst();
+    }
+}
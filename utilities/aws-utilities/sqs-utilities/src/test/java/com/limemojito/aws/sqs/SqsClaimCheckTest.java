@@ -0,0 +1,142 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import com.limemojito.json.JsonMapperPrototype;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.limemojito.aws.sqs.SqsClaimCheck.ATTRIBUTE_EXTENDED_PAYLOAD_SIZE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SqsClaimCheckTest {
+    private final JsonMapper objectMapper = JsonMapperPrototype.buildBootLikeMapper();
+    private final String queueUrl = "sqs://queue/url";
+    private final String bucket = "claim-bucket";
+    @Mock
+    private SqsClient sqs;
+    @Mock
+    private S3Client s3;
+    @Captor
+    private ArgumentCaptor<SendMessageBatchRequest> batchCaptor;
+    @Captor
+    private ArgumentCaptor<PutObjectRequest> putCaptor;
+    private SqsClaimCheck claimCheck;
+    private SqsSender sender;
+
+    @BeforeEach
+    void setUp() {
+        claimCheck = new SqsClaimCheck(s3, objectMapper, bucket);
+        sender = new SqsSender(sqs, objectMapper, new SqsQueueResolver(sqs), claimCheck);
+    }
+
+    @Test
+    public void shouldStoreLargeBodiesInS3AndKeepBatchesOfTen() {
+        doReturn(PutObjectResponse.builder().build()).when(s3)
+                                                     .putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        doReturn(SendMessageBatchResponse.builder().build()).when(sqs)
+                                                            .sendMessageBatch(any(SendMessageBatchRequest.class));
+        final List<Object> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            messages.add(Integer.toString(i).repeat(100_000));
+        }
+
+        sender.sendBatch(queueUrl, messages);
+
+        verify(s3, times(10)).putObject(putCaptor.capture(), any(RequestBody.class));
+        assertThat(putCaptor.getAllValues()).extracting(PutObjectRequest::bucket).containsOnly(bucket);
+        verify(sqs).sendMessageBatch(batchCaptor.capture());
+        final List<SendMessageBatchRequestEntry> entries = batchCaptor.getValue().entries();
+        assertThat(entries).hasSize(10);
+        final SendMessageBatchRequestEntry entry = entries.getFirst();
+        assertThat(entry.messageBody()).contains(bucket, putCaptor.getAllValues().getFirst().key());
+        assertThat(entry.messageAttributes().get(ATTRIBUTE_EXTENDED_PAYLOAD_SIZE).stringValue()).isEqualTo("100002");
+        assertThat(entry.messageAttributes().get(SqsSender.ATTRIBUTE_CONTENT_LENGTH).stringValue()).isEqualTo("100002");
+    }
+
+    @Test
+    public void shouldSendSmallBodiesInline() {
+        doReturn(SendMessageBatchResponse.builder().build()).when(sqs)
+                                                            .sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        sender.sendBatch(queueUrl, List.of("small"));
+
+        verify(sqs).sendMessageBatch(batchCaptor.capture());
+        final SendMessageBatchRequestEntry entry = batchCaptor.getValue().entries().getFirst();
+        assertThat(entry.messageBody()).isEqualTo("\"small\"");
+        assertThat(entry.messageAttributes()).doesNotContainKey(ATTRIBUTE_EXTENDED_PAYLOAD_SIZE);
+        verifyNoInteractions(s3);
+    }
+
+    @Test
+    public void shouldOpenStoredBodyFromS3() throws Exception {
+        final String pointer = "[\"software.amazon.payloadoffloading.PayloadS3Pointer\","
+                               + "{\"s3BucketName\":\"" + bucket + "\",\"s3Key\":\"some-key\"}]";
+        final byte[] stored = "\"stored body\"".getBytes(UTF_8);
+        doReturn(new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                                           AbortableInputStream.create(new ByteArrayInputStream(stored))))
+                .when(s3)
+                .getObject(any(GetObjectRequest.class));
+        final Message message = Message.builder()
+                                       .body(pointer)
+                                       .messageAttributes(Map.of(ATTRIBUTE_EXTENDED_PAYLOAD_SIZE,
+                                                                 MessageAttributeValue.builder()
+                                                                                      .dataType("Number")
+                                                                                      .stringValue("13")
+                                                                                      .build()))
+                                       .build();
+
+        try (InputStream body = claimCheck.open(message)) {
+            assertThat(new String(body.readAllBytes(), UTF_8)).isEqualTo("\"stored body\"");
+        }
+        final ArgumentCaptor<GetObjectRequest> getCaptor = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3).getObject(getCaptor.capture());
+        assertThat(getCaptor.getValue().bucket()).isEqualTo(bucket);
+        assertThat(getCaptor.getValue().key()).isEqualTo("some-key");
+    }
+}
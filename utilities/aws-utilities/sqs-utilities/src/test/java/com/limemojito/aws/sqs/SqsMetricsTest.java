@@ -0,0 +1,140 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import com.limemojito.aws.sqs.pump.SqsPump;
+import com.limemojito.aws.sqs.pump.SqsPumpSettings;
+import com.limemojito.json.JsonMapperPrototype;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+
+import static com.limemojito.aws.sqs.SqsMetrics.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+@ExtendWith(MockitoExtension.class)
+public class SqsMetricsTest {
+    private final JsonMapper objectMapper = JsonMapperPrototype.buildBootLikeMapper();
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final String queueUrl = "https://sqs.ap-southeast-2.amazonaws.com/123456789012/orders";
+    @Mock
+    private SqsClient sqs;
+
+    @Test
+    public void shouldRecordBatchSendLatencySizeAndFailedEntries() {
+        doReturn(SendMessageBatchResponse.builder().failed(throttled("1")).build())
+                .when(sqs)
+                .sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        sender().sendBatch(queueUrl, List.of("one", "two", "three"));
+
+        assertThat(sendTimer("success").count()).isEqualTo(1);
+        assertThat(registry.get(SEND_BATCH_SIZE).summary().totalAmount()).isEqualTo(3);
+        assertThat(registry.get(SEND_BATCH_BYTES).summary().totalAmount()).isGreaterThan(3 * 5);
+        assertThat(registry.get(SEND_FAILED_ENTRIES).tag(TAG_DESTINATION, "orders").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRecordFailedSendRequests() {
+        doThrow(SqsException.builder().message("down").build()).when(sqs)
+                                                              .sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        assertThatThrownBy(() -> sender().sendBatch(queueUrl, List.of("one"))).isInstanceOf(SqsException.class);
+
+        assertThat(sendTimer("failure").count()).isEqualTo(1);
+        assertThat(sendTimer("success").count()).isZero();
+    }
+
+    @Test
+    public void shouldRecordPumpDepthFlushAndRetries() {
+        doReturn(SendMessageBatchResponse.builder().failed(throttled("0")).build(),
+                 SendMessageBatchResponse.builder().build())
+                .when(sqs)
+                .sendMessageBatch(any(SendMessageBatchRequest.class));
+        final SqsPumpSettings settings = SqsPumpSettings.builder().maxBatchSize(10).retryBackoffMs(1).build();
+
+        try (SqsPump pump = new SqsPump(sender(), settings)) {
+            pump.send(queueUrl, "one");
+            pump.send(queueUrl, "two");
+            assertThat(registry.get(PUMP_BUFFERED).tag(TAG_DESTINATION, "orders").gauge().value()).isEqualTo(2);
+
+            pump.flushAll();
+
+            assertThat(registry.get(PUMP_BUFFERED).tag(TAG_QUEUE_URL, queueUrl).gauge().value()).isZero();
+            assertThat(registry.get(PUMP_FLUSH).tag(TAG_OUTCOME, "success").timer().count()).isEqualTo(1);
+            assertThat(registry.get(PUMP_RETRIES).counter().count()).isEqualTo(1);
+            assertThat(sendTimer("success").count()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void shouldSumBuffersOfOneQueueUrlIntoOneGauge() {
+        final SqsMetrics metrics = new SqsMetrics(registry);
+        final String otherRegion = "https://sqs.us-east-1.amazonaws.com/123456789012/orders";
+
+        // the gauge holds buffers weakly, so keep them reachable until measured.
+        final List<List<String>> buffers = List.of(List.of("one", "two"), List.of("three"), List.of("four"));
+
+        metrics.gaugeBuffered(queueUrl, buffers.get(0), List::size);
+        metrics.gaugeBuffered(queueUrl, buffers.get(1), List::size);
+        metrics.gaugeBuffered(otherRegion, buffers.get(2), List::size);
+
+        assertThat(registry.get(PUMP_BUFFERED).tag(TAG_QUEUE_URL, queueUrl).gauge().value()).isEqualTo(3);
+        assertThat(registry.get(PUMP_BUFFERED).tag(TAG_QUEUE_URL, otherRegion).gauge().value()).isEqualTo(1);
+        assertThat(buffers).hasSize(3);
+    }
+
+    @Test
+    public void shouldRecordNothingWithoutRegistry() {
+        doReturn(SendMessageBatchResponse.builder().build()).when(sqs)
+                                                            .sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        new SqsSender(sqs, objectMapper).sendBatch(queueUrl, List.of("one"));
+
+        assertThat(registry.getMeters()).isEmpty();
+    }
+
+    private SqsSender sender() {
+        final SqsQueueResolver resolver = new SqsQueueResolver(sqs);
+        return new SqsSender(sqs, objectMapper, resolver, null, null, new SqsMetrics(registry));
+    }
+
+    private Timer sendTimer(String outcome) {
+        return registry.get(SEND).tag(TAG_DESTINATION, "orders").tag(TAG_OUTCOME, outcome).timer();
+    }
+
+    private static BatchResultErrorEntry throttled(String id) {
+        return BatchResultErrorEntry.builder().id(id).senderFault(false).code("ThrottlingException").build();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesResponse;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static software.amazon.awssdk.services.sqs.model.QueueAttributeName.FIFO_QUEUE;
+import static software.amazon.awssdk.services.sqs.model.QueueAttributeName.MAXIMUM_MESSAGE_SIZE;
+
+@ExtendWith(MockitoExtension.class)
+public class SqsQueueResolverTest {
+    private final String queueUrl = "http://localhost:4566/000000000000/orders.fifo";
+    @Mock
+    private SqsClient sqs;
+
+    @Test
+    public void shouldResolveNameOnceAndCache() {
+        whenQueueUrl();
+        whenAttributes(Map.of(FIFO_QUEUE, "true", MAXIMUM_MESSAGE_SIZE, "1024"));
+        final SqsQueueResolver resolver = new SqsQueueResolver(sqs);
+
+        final SqsQueue first = resolver.resolve("orders.fifo");
+        final SqsQueue second = resolver.resolve("orders.fifo");
+
+        assertThat(first).isEqualTo(new SqsQueue(queueUrl, true, 1024)).isSameAs(second);
+        verify(sqs).getQueueUrl(anyConsumer());
+        verify(sqs).getQueueAttributes(anyConsumer());
+    }
+
+    @Test
+    public void shouldNotLookUpUrlOfUrl() {
+        whenAttributes(Map.of(FIFO_QUEUE, "false", MAXIMUM_MESSAGE_SIZE, "2048"));
+        final SqsQueueResolver resolver = new SqsQueueResolver(sqs);
+
+        assertThat(resolver.resolve(queueUrl)).isEqualTo(new SqsQueue(queueUrl, false, 2048));
+        verify(sqs, never()).getQueueUrl(anyConsumer());
+    }
+
+    @Test
+    public void shouldDescribeFromUrlWhenAttributesDeniedAndCache() {
+        whenQueueUrl();
+        doThrow(SqsException.builder().message("denied").statusCode(403).build()).when(sqs)
+                                                                                 .getQueueAttributes(anyConsumer());
+        final SqsQueueResolver resolver = new SqsQueueResolver(sqs, Duration.ofMinutes(1), Duration.ofMillis(1));
+
+        assertThat(resolver.resolve("orders.fifo")).isEqualTo(SqsQueue.fromUrl(queueUrl));
+        assertThat(resolver.resolve("orders.fifo")).isEqualTo(SqsQueue.fromUrl(queueUrl));
+        verify(sqs).getQueueAttributes(anyConsumer());
+    }
+
+    @Test
+    public void shouldReadAttributesAgainSoonAfterTransientFailure() throws InterruptedException {
+        whenQueueUrl();
+        when(sqs.getQueueAttributes(anyConsumer()))
+                .thenThrow(SqsException.builder().message("throttled").statusCode(400).build())
+                .thenReturn(GetQueueAttributesResponse.builder()
+                                                      .attributes(Map.of(FIFO_QUEUE, "true",
+                                                                         MAXIMUM_MESSAGE_SIZE, "1024"))
+                                                      .build());
+        final SqsQueueResolver resolver = new SqsQueueResolver(sqs, Duration.ofMinutes(1), Duration.ofMillis(1));
+
+        assertThat(resolver.resolve("orders.fifo")).isEqualTo(SqsQueue.fromUrl(queueUrl));
+        Thread.sleep(5);
+        assertThat(resolver.resolve("orders.fifo")).isEqualTo(new SqsQueue(queueUrl, true, 1024));
+        verify(sqs, times(2)).getQueueAttributes(anyConsumer());
+    }
+
+    @Test
+    public void shouldLookUpAgainAfterTtlOrInvalidate() throws InterruptedException {
+        whenQueueUrl();
+        whenAttributes(Map.of(FIFO_QUEUE, "true"));
+        final SqsQueueResolver resolver = new SqsQueueResolver(sqs, Duration.ofMillis(1));
+
+        resolver.resolve("orders.fifo");
+        Thread.sleep(5);
+        resolver.resolve("orders.fifo");
+        verify(sqs, times(2)).getQueueUrl(anyConsumer());
+
+        final SqsQueueResolver cached = new SqsQueueResolver(sqs);
+        cached.resolve("orders.fifo");
+        cached.invalidate("orders.fifo");
+        cached.resolve("orders.fifo");
+        verify(sqs, times(4)).getQueueUrl(anyConsumer());
+    }
+
+    private void whenQueueUrl() {
+        doReturn(GetQueueUrlResponse.builder().queueUrl(queueUrl).build()).when(sqs).getQueueUrl(anyConsumer());
+    }
+
+    private void whenAttributes(Map<QueueAttributeName, String> attributes) {
+        doReturn(GetQueueAttributesResponse.builder().attributes(attributes).build()).when(sqs)
+                                                                                      .getQueueAttributes(anyConsumer());
+    }
+
+    private static <T> Consumer<T> anyConsumer() {
+        return any();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs;
+
+import com.limemojito.json.JsonMapperPrototype;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.*;
+
+import java.util.*;
+
+import static com.limemojito.aws.sqs.SqsSender.ATTRIBUTE_MESSAGE_DEDUPLICATION_ID;
+import static com.limemojito.aws.sqs.SqsSender.ATTRIBUTE_MESSAGE_GROUP_ID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SqsSenderTest {
+    private final String queueUrl = "sqs://queue/url";
+    @Mock
+    private SqsClient sqs;
+    @Captor
+    private ArgumentCaptor<SendMessageBatchRequest> batchCaptor;
+    private SqsSender sender;
+
+    @BeforeEach
+    void setUp() {
+        sender = new SqsSender(sqs, JsonMapperPrototype.buildBootLikeMapper());
+    }
+
+    @Test
+    public void shouldSplitLargeBatchIntoRequestsOfTen() {
+        doAnswer(invocation -> succeedAll(invocation.getArgument(0))).when(sqs)
+                                                                      .sendMessageBatch(any(SendMessageBatchRequest.class));
+        final List<Object> messages = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            messages.add("message-" + i);
+        }
+
+        final SendMessageBatchResponse response = sender.sendBatch(queueUrl, messages);
+
+        verify(sqs, times(3)).sendMessageBatch(batchCaptor.capture());
+        assertThat(batchCaptor.getAllValues()).extracting(request -> request.entries().size())
+                                              .containsExactlyInAnyOrder(10, 10, 5);
+        final List<String> ids = batchCaptor.getAllValues()
+                                            .stream()
+                                            .flatMap(request -> request.entries().stream())
+                                            .map(SendMessageBatchRequestEntry::id)
+                                            .toList();
+        assertThat(ids).doesNotHaveDuplicates().hasSize(25);
+        assertThat(response.successful()).hasSize(25);
+        assertThat(response.failed()).isEmpty();
+    }
+
+    @Test
+    public void shouldPackByUtf8ByteSize() {
+        doAnswer(invocation -> succeedAll(invocation.getArgument(0))).when(sqs)
+                                                                      .sendMessageBatch(any(SendMessageBatchRequest.class));
+        // 30,000 three byte characters is 90,000 bytes but only 30,000 chars, so only two fit in a request.
+        final String large = "€".repeat(30_000);
+
+        sender.sendBatch(queueUrl, List.of(large + "1", large + "2", large + "3", large + "4"));
+
+        verify(sqs, times(2)).sendMessageBatch(batchCaptor.capture());
+        for (SendMessageBatchRequest request : batchCaptor.getAllValues()) {
+            assertThat(request.entries()).hasSize(2);
+            assertThat(request.entries().stream().mapToInt(SqsRequestFactory::sizeOf).sum())
+                    .isLessThanOrEqualTo(SqsRequestFactory.MAX_BATCH_BYTES);
+            assertThat(request.entries().getFirst().messageAttributes().get(SqsSender.ATTRIBUTE_CONTENT_LENGTH)
+                              .stringValue()).isEqualTo("90003");
+        }
+    }
+
+    @Test
+    public void shouldMergeFailedEntriesFromEveryRequest() {
+        doAnswer(invocation -> failFirst(invocation.getArgument(0))).when(sqs)
+                                                                     .sendMessageBatch(any(SendMessageBatchRequest.class));
+        final List<Object> messages = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            messages.add(i);
+        }
+
+        final SendMessageBatchResponse response = sender.sendBatch(queueUrl, messages);
+
+        assertThat(response.successful()).hasSize(18);
+        assertThat(response.failed()).extracting(BatchResultErrorEntry::id).containsExactlyInAnyOrder("0", "10");
+    }
+
+    @Test
+    public void shouldSendFifoRequestsInOrder() {
+        doAnswer(invocation -> succeedAll(invocation.getArgument(0))).when(sqs)
+                                                                      .sendMessageBatch(any(SendMessageBatchRequest.class));
+        final Map<Object, Map<String, Object>> messages = new LinkedHashMap<>();
+        for (int i = 0; i < 15; i++) {
+            messages.put(i, Map.of(ATTRIBUTE_MESSAGE_GROUP_ID, "group", ATTRIBUTE_MESSAGE_DEDUPLICATION_ID, "d" + i));
+        }
+
+        sender.sendBatch(queueUrl + ".fifo", messages);
+
+        verify(sqs, times(2)).sendMessageBatch(batchCaptor.capture());
+        assertThat(batchCaptor.getAllValues().get(0).entries()).extracting(SendMessageBatchRequestEntry::id)
+                                                               .containsExactly("0", "1", "2", "3", "4",
+                                                                                "5", "6", "7", "8", "9");
+        assertThat(batchCaptor.getAllValues().get(1).entries()).extracting(SendMessageBatchRequestEntry::messageBody)
+                                                               .containsExactly("10", "11", "12", "13", "14");
+    }
+
+    @Test
+    public void shouldRejectMessageLargerThanSqsLimit() {
+        final String tooLarge = "x".repeat(SqsRequestFactory.MAX_BATCH_BYTES);
+
+        assertThatThrownBy(() -> sender.sendBatch(queueUrl, List.of(tooLarge)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verify(sqs, never()).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    public void shouldNotCallSqsForEmptyBatch() {
+        final SendMessageBatchResponse response = sender.sendBatch(queueUrl, List.of());
+
+        assertThat(response.successful()).isEmpty();
+        verifyNoInteractions(sqs);
+    }
+
+    @Test
+    public void shouldShareConstantAttributesAndGenerateUniqueIds() {
+        doAnswer(invocation -> succeedAll(invocation.getArgument(0))).when(sqs)
+                                                                      .sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        sender.sendBatch(queueUrl, List.of("one", "two", "three"));
+
+        verify(sqs).sendMessageBatch(batchCaptor.capture());
+        final List<Map<String, MessageAttributeValue>> attributes = batchCaptor.getValue()
+                                                                               .entries()
+                                                                               .stream()
+                                                                               .map(SendMessageBatchRequestEntry::messageAttributes)
+                                                                               .toList();
+        final MessageAttributeValue contentType = attributes.getFirst().get(SqsSender.ATTRIBUTE_CONTENT_TYPE);
+        assertThat(contentType.stringValue()).isEqualTo("application/json");
+        assertThat(attributes).allSatisfy(entry -> {
+            assertThat(entry.get(SqsSender.ATTRIBUTE_CONTENT_TYPE)).isSameAs(contentType);
+            assertThat(entry.get(SqsSender.ATTRIBUTE_SPRING_CONTENT_TYPE)).isSameAs(contentType);
+            assertThat(UUID.fromString(entry.get(SqsSender.ATTRIBUTE_ID).stringValue()).version()).isEqualTo(4);
+        });
+        assertThat(attributes).extracting(entry -> entry.get(SqsSender.ATTRIBUTE_ID).stringValue())
+                              .doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void shouldCountUtf8Bytes() {
+        assertThat(SqsRequestFactory.utf8Length("abc")).isEqualTo(3);
+        assertThat(SqsRequestFactory.utf8Length("é")).isEqualTo(2);
+        assertThat(SqsRequestFactory.utf8Length("€")).isEqualTo(3);
+        assertThat(SqsRequestFactory.utf8Length("😀")).isEqualTo(4);
+        assertThat(SqsRequestFactory.utf8Length(null)).isZero();
+    }
+
+    private static SendMessageBatchResponse succeedAll(SendMessageBatchRequest request) {
+        return SendMessageBatchResponse.builder()
+                                       .successful(request.entries()
+                                                          .stream()
+                                                          .map(entry -> SendMessageBatchResultEntry.builder()
+                                                                                                   .id(entry.id())
+                                                                                                   .build())
+                                                          .toList())
+                                       .build();
+    }
+
+    private static SendMessageBatchResponse failFirst(SendMessageBatchRequest request) {
+        final List<SendMessageBatchRequestEntry> entries = request.entries();
+        return SendMessageBatchResponse.builder()
+                                       .failed(BatchResultErrorEntry.builder()
+                                                                    .id(entries.getFirst().id())
+                                                                    .senderFault(false)
+                                                                    .code("InternalError")
+                                                                    .build())
+                                       .successful(entries.stream()
+                                                          .skip(1)
+                                                          .map(entry -> SendMessageBatchResultEntry.builder()
+                                                                                                   .id(entry.id())
+                                                                                                   .build())
+                                                          .toList())
+                                       .build();
+    }
+}
@@ -17,29 +17,47 @@
 
 package com.limemojito.aws.sqs.pump;
 
+import com.limemojito.aws.sqs.SqsEncodedMessage;
+import com.limemojito.aws.sqs.SqsRequestFactory;
 import com.limemojito.aws.sqs.SqsSender;
 import com.limemojito.json.JsonMapperPrototype;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
 import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
 import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
 import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
 import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
 import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.limemojito.aws.sqs.SqsSender.*;
 import static java.lang.String.format;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -95,6 +113,367 @@ public class SqsPumpTest {
         assertCommonAttributes(entry);
     }
 
+    @Test
+    public void shouldFlushLingeringMessagesInBackground() {
+        whenBatchSendOk();
+        final SqsPumpSettings settings = SqsPumpSettings.builder()
+                                                        .maxBatchSize(pumpMaxBatchSize)
+                                                        .lingerMs(50)
+                                                        .build();
+        try (SqsPump lingerPump = new SqsPump(new SqsSender(sqs, objectMapper), settings)) {
+            lingerPump.send(queueUrl, new TestMessage(1));
+            lingerPump.send(queueUrl, new TestMessage(2));
+
+            verify(sqs, timeout(2_000)).sendMessageBatch(requestCaptor.capture());
+            assertThat(requestCaptor.getValue().entries()).hasSize(2);
+        }
+        verify(sqs, times(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    public void shouldFlushDestinationsInParallel() throws Exception {
+        final int destinationCount = 4;
+        final int messagesPerDestination = pumpMaxBatchSize * 5;
+        final long sendLatencyMs = 100;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(sendLatencyMs);
+            inFlight.decrementAndGet();
+            return SendMessageBatchResponse.builder().build();
+        }).when(sqs).sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        produce(destinationCount, messagesPerDestination);
+
+        verify(sqs, times(expectedBatchSends(messagesPerDestination) * destinationCount))
+                .sendMessageBatch(any(SendMessageBatchRequest.class));
+        // a global monitor would never have more than one batch in flight.
+        assertThat(maxInFlight.get()).isGreaterThan(1);
+    }
+
+    @Test
+    public void shouldFlushFifoGroupsConcurrentlyKeepingGroupOrder() throws Exception {
+        final int groupCount = 4;
+        final int messagesPerGroup = pumpMaxBatchSize * 3;
+        final Set<String> groupsInFlight = ConcurrentHashMap.newKeySet();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final Map<String, List<String>> received = new ConcurrentHashMap<>();
+        doAnswer(invocation -> {
+            final SendMessageBatchRequest request = invocation.getArgument(0);
+            final Set<String> groups = request.entries()
+                                              .stream()
+                                              .map(SendMessageBatchRequestEntry::messageGroupId)
+                                              .collect(Collectors.toSet());
+            for (String group : groups) {
+                assertThat(groupsInFlight.add(group)).as("group %s already in flight", group).isTrue();
+            }
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            request.entries().forEach(entry -> received.computeIfAbsent(entry.messageGroupId(),
+                                                                        key -> new CopyOnWriteArrayList<>())
+                                                       .add(entry.messageBody()));
+            Thread.sleep(50);
+            inFlight.decrementAndGet();
+            groupsInFlight.removeAll(groups);
+            return SendMessageBatchResponse.builder().build();
+        }).when(sqs).sendMessageBatch(any(SendMessageBatchRequest.class));
+        final SqsPumpSettings settings = SqsPumpSettings.builder()
+                                                        .maxBatchSize(pumpMaxBatchSize)
+                                                        .fifoGroupConcurrency(groupCount)
+                                                        .build();
+
+        // a producer per group keeps buffering while another producer's flush is in flight.
+        try (SqsPump fifoPump = new SqsPump(new SqsSender(sqs, objectMapper), settings);
+             ExecutorService producers = Executors.newFixedThreadPool(groupCount)) {
+            final List<Future<?>> results = new ArrayList<>();
+            for (int group = 0; group < groupCount; group++) {
+                final String groupId = "group-" + group;
+                results.add(producers.submit(() -> {
+                    for (int i = 0; i < messagesPerGroup; i++) {
+                        fifoPump.send(queueUrl + ".fifo",
+                                      new TestMessage(i),
+                                      Map.of(ATTRIBUTE_MESSAGE_GROUP_ID, groupId,
+                                             ATTRIBUTE_MESSAGE_DEDUPLICATION_ID, groupId + "-" + i));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            fifoPump.flushAll();
+        }
+
+        assertThat(maxInFlight.get()).isGreaterThan(1);
+        assertThat(received).hasSize(groupCount);
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < messagesPerGroup; i++) {
+            expected.add(format("{\"index\":%d}", i));
+        }
+        received.values().forEach(bodies -> assertThat(bodies).containsExactlyElementsOf(expected));
+    }
+
+    @Test
+    public void shouldRejectInvalidSettings() {
+        final SqsPumpSettings settings = SqsPumpSettings.builder().lingerMs(-1).build();
+
+        assertThatThrownBy(() -> new SqsPump(new SqsSender(sqs, objectMapper), settings))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldRetryOnlyFailedEntries() {
+        sqsPump = retryingPump(3);
+        doReturn(failing("1", false), SendMessageBatchResponse.builder().build())
+                .when(sqs)
+                .sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        sqsPump.send(queueUrl, new TestMessage(0));
+        sqsPump.send(queueUrl, new TestMessage(1));
+        sqsPump.send(queueUrl, new TestMessage(2));
+        sqsPump.flush(queueUrl);
+
+        verify(sqs, times(2)).sendMessageBatch(requestCaptor.capture());
+        final SendMessageBatchRequest retry = requestCaptor.getAllValues().get(1);
+        assertThat(retry.entries()).extracting(SendMessageBatchRequestEntry::messageBody)
+                                   .containsExactly("{\"index\":1}");
+    }
+
+    @Test
+    public void shouldRetryRestOfFifoGroupBehindFailedEntry() {
+        sqsPump = retryingPump(3);
+        doReturn(failing("1", false), SendMessageBatchResponse.builder().build())
+                .when(sqs)
+                .sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        for (int i = 0; i < 4; i++) {
+            sqsPump.send(queueUrl + ".fifo",
+                         new TestMessage(i),
+                         Map.of(ATTRIBUTE_MESSAGE_GROUP_ID, i % 2 == 0 ? "even" : "odd",
+                                ATTRIBUTE_MESSAGE_DEDUPLICATION_ID, "dedup-" + i));
+        }
+        sqsPump.flush(queueUrl + ".fifo");
+
+        verify(sqs, times(2)).sendMessageBatch(requestCaptor.capture());
+        final SendMessageBatchRequest retry = requestCaptor.getAllValues().get(1);
+        // message 3 was accepted but follows failed message 1 in the odd group, the even group is untouched.
+        assertThat(retry.entries()).extracting(SendMessageBatchRequestEntry::messageBody)
+                                   .containsExactly("{\"index\":1}", "{\"index\":3}");
+    }
+
+    @Test
+    public void shouldNotRetrySenderFaults() {
+        sqsPump = retryingPump(3);
+        doReturn(failing("0", true)).when(sqs).sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        sqsPump.send(queueUrl, new TestMessage(0));
+        sqsPump.send(queueUrl, new TestMessage(1));
+
+        assertThatThrownBy(() -> sqsPump.flush(queueUrl)).isInstanceOf(IllegalStateException.class)
+                                                         .hasMessageContaining("1 of 2");
+        verify(sqs, times(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    public void shouldSurfaceFailuresOutstandingAfterRetryBudget() {
+        sqsPump = retryingPump(2);
+        doReturn(failing("0", false)).when(sqs).sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        sqsPump.send(queueUrl, new TestMessage(0));
+        sqsPump.send(queueUrl, new TestMessage(1));
+
+        assertThatThrownBy(() -> sqsPump.flush(queueUrl)).isInstanceOf(IllegalStateException.class)
+                                                         .hasMessageContaining("1 of 2");
+        verify(sqs, times(3)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    public void shouldSendEqualMessagesAsSeparateEntries() {
+        whenBatchSendOk();
+
+        sqsPump.send(queueUrl, new TestMessage(7));
+        sqsPump.send(queueUrl, new TestMessage(7));
+        sqsPump.flush(queueUrl);
+
+        verify(sqs).sendMessageBatch(requestCaptor.capture());
+        assertThat(requestCaptor.getValue().entries()).extracting(SendMessageBatchRequestEntry::id)
+                                                      .containsExactly("0", "1");
+    }
+
+    @Test
+    public void shouldFailFastWhenTotalCapacityReached() {
+        sqsPump = boundedPump(SqsPumpOverflowPolicy.FAIL, 0);
+        fillTotalCapacity();
+
+        assertThatThrownBy(() -> sqsPump.send(queueUrl + "/c", new TestMessage(10)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(sqsPump.getBufferedDepth()).isEqualTo(pumpMaxBatchSize);
+        assertThat(sqsPump.getBufferedDepth(queueUrl + "/c")).isZero();
+        verify(sqs, never()).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    public void shouldFlushOnCallingThreadWhenTotalCapacityReached() {
+        whenBatchSendOk();
+        sqsPump = boundedPump(SqsPumpOverflowPolicy.FLUSH, 0);
+        fillTotalCapacity();
+
+        sqsPump.send(queueUrl + "/c", new TestMessage(10));
+
+        verify(sqs, times(2)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        assertThat(sqsPump.getBufferedDepth()).isEqualTo(1);
+        assertThat(sqsPump.getBufferedDepth(queueUrl + "/c")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldBlockUntilLingerFlushMakesRoom() {
+        whenBatchSendOk();
+        sqsPump = boundedPump(SqsPumpOverflowPolicy.BLOCK, 50);
+        fillTotalCapacity();
+
+        sqsPump.send(queueUrl + "/c", new TestMessage(10));
+
+        // permits are returned as a batch is taken, so the send itself may still be in progress.
+        verify(sqs, timeout(2_000).atLeast(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        assertThat(sqsPump.getBufferedDepth()).isLessThanOrEqualTo(pumpMaxBatchSize);
+        sqsPump.close();
+    }
+
+    @Test
+    public void shouldRejectInvalidCapacitySettings() {
+        final SqsPumpSettings tooSmall = SqsPumpSettings.builder().destinationCapacity(5).build();
+        final SqsPumpSettings blockWithoutLinger = SqsPumpSettings.builder()
+                                                                  .totalCapacity(100)
+                                                                  .overflowPolicy(SqsPumpOverflowPolicy.BLOCK)
+                                                                  .build();
+
+        assertThatThrownBy(tooSmall::validate).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(blockWithoutLinger::validate).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldReplayJournaledMessagesOnRestart(@TempDir Path journalDirectory) throws Exception {
+        whenBatchSendOk();
+        final SqsPump crashed = durablePump(journalDirectory);
+        crashed.send(queueUrl, new TestMessage(0));
+        crashed.send(queueUrl, new TestMessage(1), Map.of("custom", 7));
+        assertThat(crashed.getBufferedDepth()).isEqualTo(2);
+
+        // the first pump is never flushed or closed, as if the JVM died.
+        try (SqsPump restarted = durablePump(journalDirectory)) {
+            verify(sqs, timeout(2_000)).sendMessageBatch(requestCaptor.capture());
+            final SendMessageBatchRequest replayed = requestCaptor.getValue();
+            assertThat(replayed.entries()).extracting(SendMessageBatchRequestEntry::messageBody)
+                                          .containsExactly("{\"index\":0}", "{\"index\":1}");
+            assertThat(replayed.entries().get(1).messageAttributes().get("custom").stringValue()).isEqualTo("7");
+            assertThat(restarted.getBufferedDepth()).isZero();
+        }
+        assertThat(journalFiles(journalDirectory)).isEmpty();
+    }
+
+    @Test
+    public void shouldNotReplayMessagesAlreadySent(@TempDir Path journalDirectory) throws Exception {
+        whenBatchSendOk();
+        try (SqsPump durable = durablePump(journalDirectory)) {
+            durable.send(queueUrl, new TestMessage(0));
+            durable.flush(queueUrl);
+        }
+        verify(sqs, times(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        try (SqsPump restarted = durablePump(journalDirectory)) {
+            assertThat(restarted.getBufferedDepth()).isZero();
+        }
+        verify(sqs, times(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        assertThat(journalFiles(journalDirectory)).isEmpty();
+    }
+
+    @Test
+    public void shouldDropJournaledMessagesAfterMaxReplays(@TempDir Path journalDirectory) throws Exception {
+        final SqsEncodedMessage message = new SqsEncodedMessage("{}", Map.of(), null, null, 2);
+        try (SqsPumpJournal journal = new SqsPumpJournal(journalDirectory, 1024)) {
+            journal.recover();
+            journal.append(queueUrl, message);
+        }
+
+        for (int i = 0; i < SqsPumpJournal.MAX_REPLAYS; i++) {
+            try (SqsPumpJournal journal = new SqsPumpJournal(journalDirectory, 1024)) {
+                final Map<String, List<SqsPumpJournal.Record>> recovered = journal.recover();
+                assertThat(recovered).containsOnlyKeys(queueUrl);
+                recovered.get(queueUrl).forEach(journal::replaying);
+            }
+        }
+        try (SqsPumpJournal journal = new SqsPumpJournal(journalDirectory, 1024)) {
+            assertThat(journal.recover()).isEmpty();
+        }
+        assertThat(journalFiles(journalDirectory)).isEmpty();
+    }
+
+    @Test
+    public void shouldNotCountReplaysOfPumpsNeverStarted(@TempDir Path journalDirectory) throws Exception {
+        whenBatchSendOk();
+        final SqsPump crashed = durablePump(journalDirectory);
+        crashed.send(queueUrl, new TestMessage(0));
+
+        for (int i = 0; i <= SqsPumpJournal.MAX_REPLAYS; i++) {
+            new SqsPump(new SqsSender(sqs, objectMapper), durableSettings(journalDirectory)).close();
+        }
+        verify(sqs, never()).sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        try (SqsPump restarted = durablePump(journalDirectory)) {
+            verify(sqs, timeout(2_000)).sendMessageBatch(requestCaptor.capture());
+            assertThat(requestCaptor.getValue().entries()).extracting(SendMessageBatchRequestEntry::messageBody)
+                                                          .containsExactly("{\"index\":0}");
+            assertThat(restarted.getBufferedDepth()).isZero();
+        }
+    }
+
+    @Test
+    public void shouldSendReplayedMessagesAheadOfLaterSends(@TempDir Path journalDirectory) throws Exception {
+        whenBatchSendOk();
+        final SqsPump crashed = durablePump(journalDirectory);
+        crashed.send(queueUrl, new TestMessage(0));
+
+        try (SqsPump restarted = durablePump(journalDirectory)) {
+            restarted.send(queueUrl, new TestMessage(1));
+            restarted.flush(queueUrl);
+
+            verify(sqs, atLeastOnce()).sendMessageBatch(requestCaptor.capture());
+            assertThat(requestCaptor.getAllValues()).flatExtracting(SendMessageBatchRequest::entries)
+                                                    .extracting(SendMessageBatchRequestEntry::messageBody)
+                                                    .containsExactly("{\"index\":0}", "{\"index\":1}");
+        }
+    }
+
+    @Test
+    public void shouldEncodeOnSendSoLaterChangesAreNotSent() {
+        whenBatchSendOk();
+        final Map<String, Object> payload = new HashMap<>(Map.of("value", "at-send"));
+
+        sqsPump.send(queueUrl, payload);
+        payload.put("value", "changed");
+        sqsPump.flush(queueUrl);
+
+        verify(sqs).sendMessageBatch(requestCaptor.capture());
+        assertThat(requestCaptor.getValue().entries().getFirst().messageBody()).isEqualTo("{\"value\":\"at-send\"}");
+    }
+
+    @Test
+    public void shouldRejectOversizedMessageWithoutBuffering() {
+        final String tooLarge = "x".repeat(SqsRequestFactory.MAX_BATCH_BYTES);
+
+        assertThatThrownBy(() -> sqsPump.send(queueUrl, tooLarge)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(sqsPump.getBufferedDepth()).isZero();
+    }
+
+    @Test
+    public void shouldRejectFifoMessageWithoutHeadersOnSend() {
+        assertThatThrownBy(() -> sqsPump.send(queueUrl + ".fifo", new TestMessage(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(sqsPump.getBufferedDepth()).isZero();
+    }
+
     @Test
     public void shouldNotPumpZeroMessages() {
         sqsPump.flush(queueUrl);
@@ -147,10 +526,84 @@ public class SqsPumpTest {
         }
     }
 
+    private void produce(int destinationCount, int messagesPerDestination) throws Exception {
+        try (ExecutorService producers = Executors.newFixedThreadPool(destinationCount)) {
+            final List<Future<?>> results = new ArrayList<>();
+            for (int d = 0; d < destinationCount; d++) {
+                final String destination = queueUrl + "/" + d;
+                results.add(producers.submit(() -> {
+                    for (int i = 0; i < messagesPerDestination; i++) {
+                        sqsPump.send(destination, new TestMessage(i));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        sqsPump.flushAll();
+    }
+
     private int expectedBatchSends(int sendSize) {
         return sendSize / pumpMaxBatchSize + (sendSize % pumpMaxBatchSize > 0 ? 1 : 0);
     }
 
+    private SqsPump retryingPump(int maxRetries) {
+        return new SqsPump(new SqsSender(sqs, objectMapper),
+                           SqsPumpSettings.builder()
+                                          .maxBatchSize(pumpMaxBatchSize)
+                                          .maxRetries(maxRetries)
+                                          .retryBackoffMs(1)
+                                          .maxRetryBackoffMs(5)
+                                          .build());
+    }
+
+    private SqsPump boundedPump(SqsPumpOverflowPolicy policy, long lingerMs) {
+        return new SqsPump(new SqsSender(sqs, objectMapper),
+                           SqsPumpSettings.builder()
+                                          .maxBatchSize(pumpMaxBatchSize)
+                                          .totalCapacity(pumpMaxBatchSize)
+                                          .overflowPolicy(policy)
+                                          .lingerMs(lingerMs)
+                                          .build());
+    }
+
+    private SqsPump durablePump(Path journalDirectory) {
+        final SqsPump pump = new SqsPump(new SqsSender(sqs, objectMapper), durableSettings(journalDirectory));
+        pump.start();
+        return pump;
+    }
+
+    private SqsPumpSettings durableSettings(Path journalDirectory) {
+        return SqsPumpSettings.builder()
+                              .maxBatchSize(pumpMaxBatchSize)
+                              .journalDirectory(journalDirectory.toString())
+                              .journalSegmentBytes(1024 * 1024)
+                              .build();
+    }
+
+    private static List<Path> journalFiles(Path journalDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            return files.toList();
+        }
+    }
+
+    private void fillTotalCapacity() {
+        for (int i = 0; i < pumpMaxBatchSize; i++) {
+            sqsPump.send(queueUrl + (i % 2 == 0 ? "/a" : "/b"), new TestMessage(i));
+        }
+    }
+
+    private static SendMessageBatchResponse failing(String id, boolean senderFault) {
+        return SendMessageBatchResponse.builder()
+                                       .failed(BatchResultErrorEntry.builder()
+                                                                    .id(id)
+                                                                    .senderFault(senderFault)
+                                                                    .code("ThrottlingException")
+                                                                    .build())
+                                       .build();
+    }
+
     private void whenBatchSendOk() {
         doReturn(SendMessageBatchResponse.builder().build())
                 .when(sqs)
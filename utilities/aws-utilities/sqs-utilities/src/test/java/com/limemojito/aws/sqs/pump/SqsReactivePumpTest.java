@@ -0,0 +1,189 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.pump;
+
+import com.limemojito.aws.sqs.SqsRequestFactory;
+import com.limemojito.aws.sqs.SqsSender;
+import com.limemojito.json.JsonMapperPrototype;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.limemojito.aws.sqs.SqsSender.ATTRIBUTE_MESSAGE_DEDUPLICATION_ID;
+import static com.limemojito.aws.sqs.SqsSender.ATTRIBUTE_MESSAGE_GROUP_ID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SqsReactivePumpTest {
+    private final String queueUrl = "sqs://queue/url";
+    @Mock
+    private SqsClient sqs;
+    private SqsReactivePump pump;
+
+    @BeforeEach
+    void setUp() {
+        pump = new SqsReactivePump(new SqsSender(sqs, JsonMapperPrototype.buildBootLikeMapper()),
+                                   SqsPumpSettings.builder().retryBackoffMs(1).build());
+    }
+
+    @Test
+    public void shouldEmitResultsInPublicationOrder() {
+        doAnswer(invocation -> succeedAll(invocation.getArgument(0))).when(sqs)
+                                                                      .sendMessageBatch(any(SendMessageBatchRequest.class));
+
+        final List<SqsSendResult> results = pump.send(queueUrl, Flux.range(0, 25)).collectList().block();
+
+        assertThat(results).extracting(SqsSendResult::message).containsExactlyElementsOf(Flux.range(0, 25)
+                                                                                             .toIterable());
+        assertThat(results).allMatch(SqsSendResult::isSuccess);
+        verify(sqs, times(3)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    public void shouldOnlyRequestWhatInFlightBatchesCanHold() {
+        doAnswer(invocation -> succeedAll(invocation.getArgument(0))).when(sqs)
+                                                                      .sendMessageBatch(any(SendMessageBatchRequest.class));
+        final List<Long> requests = new CopyOnWriteArrayList<>();
+
+        final List<SqsSendResult> results = pump.send(queueUrl, Flux.range(0, 1_000).doOnRequest(requests::add))
+                                                .collectList()
+                                                .block();
+
+        assertThat(results).hasSize(1_000);
+        assertThat(requests.getFirst()).isLessThanOrEqualTo(10L * SqsReactivePump.DEFAULT_MAX_IN_FLIGHT_BATCHES);
+    }
+
+    @Test
+    public void shouldRetryThrottledEntriesAndReportSenderFaults() {
+        when(sqs.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(SendMessageBatchResponse.builder()
+                                                    .failed(failure("0", "ThrottlingException", false),
+                                                            failure("1", "InvalidParameterValue", true))
+                                                    .successful(SendMessageBatchResultEntry.builder()
+                                                                                           .id("2")
+                                                                                           .messageId("m2")
+                                                                                           .build())
+                                                    .build())
+                .thenAnswer(invocation -> succeedAll(invocation.getArgument(0)));
+
+        final List<SqsSendResult> results = pump.send(queueUrl, Flux.just("a", "b", "c")).collectList().block();
+
+        assertThat(results).extracting(SqsSendResult::isSuccess).containsExactly(true, false, true);
+        assertThat(results.get(1).senderFault()).isTrue();
+        assertThat(results.get(1).errorCode()).isEqualTo("InvalidParameterValue");
+        verify(sqs, times(2)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    public void shouldResendRestOfFifoGroupBehindFailedEntry() {
+        when(sqs.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(SendMessageBatchResponse.builder()
+                                                    .failed(failure("1", "ThrottlingException", false))
+                                                    .successful(success("0"), success("2"), success("3"))
+                                                    .build())
+                .thenAnswer(invocation -> succeedAll(invocation.getArgument(0)));
+        final ArgumentCaptor<SendMessageBatchRequest> requests = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+
+        final List<SqsSendResult> results = pump.send(queueUrl + ".fifo",
+                                                      Flux.range(0, 4),
+                                                      message -> Map.<String, Object>of(
+                                                              ATTRIBUTE_MESSAGE_GROUP_ID,
+                                                              (Integer) message % 2 == 0 ? "even" : "odd",
+                                                              ATTRIBUTE_MESSAGE_DEDUPLICATION_ID,
+                                                              "dedup-" + message))
+                                                .collectList()
+                                                .block();
+
+        assertThat(results).allMatch(SqsSendResult::isSuccess);
+        verify(sqs, times(2)).sendMessageBatch(requests.capture());
+        // message 3 was accepted but follows failed message 1 in the odd group, the even group is untouched.
+        assertThat(requests.getAllValues().get(1).entries()).extracting(SendMessageBatchRequestEntry::messageBody)
+                                                             .containsExactly("1", "3");
+    }
+
+    @Test
+    public void shouldRejectOversizedMessagesWithoutEndingStream() {
+        doAnswer(invocation -> succeedAll(invocation.getArgument(0))).when(sqs)
+                                                                      .sendMessageBatch(any(SendMessageBatchRequest.class));
+        final String tooLarge = "x".repeat(SqsRequestFactory.MAX_BATCH_BYTES);
+
+        final List<SqsSendResult> results = pump.send(queueUrl, Flux.just("a", tooLarge, "c")).collectList().block();
+
+        assertThat(results).extracting(SqsSendResult::isSuccess).containsExactly(true, false, true);
+        assertThat(results.get(1).senderFault()).isTrue();
+    }
+
+    @Test
+    public void shouldFailUnserialisableMessagesWithoutEndingStream() {
+        doAnswer(invocation -> succeedAll(invocation.getArgument(0))).when(sqs)
+                                                                      .sendMessageBatch(any(SendMessageBatchRequest.class));
+        final Unserialisable unserialisable = new Unserialisable();
+
+        final List<SqsSendResult> results = pump.send(queueUrl, Flux.just("a", unserialisable, "c"))
+                                                .collectList()
+                                                .block();
+
+        assertThat(results).extracting(SqsSendResult::isSuccess).containsExactly(true, false, true);
+        assertThat(results.get(1).message()).isSameAs(unserialisable);
+        assertThat(results.get(1).senderFault()).isTrue();
+        verify(sqs).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    private static BatchResultErrorEntry failure(String id, String code, boolean senderFault) {
+        return BatchResultErrorEntry.builder().id(id).code(code).senderFault(senderFault).build();
+    }
+
+    private static SendMessageBatchResultEntry success(String id) {
+        return SendMessageBatchResultEntry.builder().id(id).messageId("m" + id).build();
+    }
+
+    private static SendMessageBatchResponse succeedAll(SendMessageBatchRequest request) {
+        return SendMessageBatchResponse.builder()
+                                       .successful(request.entries()
+                                                          .stream()
+                                                          .map(SendMessageBatchRequestEntry::id)
+                                                          .map(id -> SendMessageBatchResultEntry.builder()
+                                                                                                .id(id)
+                                                                                                .messageId("m" + id)
+                                                                                                .build())
+                                                          .toList())
+                                       .build();
+    }
+
+    public static class Unserialisable {
+        public String getValue() {
+            throw new IllegalStateException("Cannot serialise");
+        }
+    }
+}
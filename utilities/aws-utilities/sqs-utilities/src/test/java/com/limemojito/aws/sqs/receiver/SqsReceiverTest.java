@@ -0,0 +1,358 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.receiver;
+
+import com.limemojito.aws.sqs.SqsBodyCodec;
+import com.limemojito.aws.sqs.SqsClaimCheck;
+import com.limemojito.aws.sqs.SqsQueue;
+import com.limemojito.aws.sqs.SqsQueueResolver;
+import com.limemojito.json.JsonMapperPrototype;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SqsReceiverTest {
+    private final JsonMapper objectMapper = JsonMapperPrototype.buildBootLikeMapper();
+    private final String queueUrl = "sqs://queue/url";
+    private final ConcurrentLinkedQueue<List<Message>> receives = new ConcurrentLinkedQueue<>();
+    @Mock
+    private SqsClient sqs;
+    @Mock
+    private S3Client s3;
+    @Mock
+    private SqsQueueResolver queueResolver;
+    @Captor
+    private ArgumentCaptor<DeleteMessageBatchRequest> deleteCaptor;
+    private SqsReceiver<Payload> receiver;
+
+    @AfterEach
+    void tearDown() {
+        if (receiver != null) {
+            receiver.close();
+        }
+    }
+
+    @Test
+    public void shouldDecodeHandleAndDeleteEachMessage() throws Exception {
+        whenReceive(List.of(message(1, null), message(2, null), message(3, null)));
+        whenDeleteOk();
+        final List<Integer> handled = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(3);
+
+        startReceiver(queueUrl, (body, message) -> {
+            handled.add(body.index());
+            latch.countDown();
+        }, SqsReceiverSettings.builder().build());
+
+        assertThat(latch.await(2, TimeUnit.SECONDS)).isTrue();
+        verify(sqs, timeout(2_000)).deleteMessageBatch(deleteCaptor.capture());
+        assertThat(handled).containsExactlyInAnyOrder(1, 2, 3);
+        assertThat(deleteCaptor.getValue().queueUrl()).isEqualTo(queueUrl);
+        assertThat(deletedReceipts()).containsExactlyInAnyOrder("r1", "r2", "r3");
+    }
+
+    @Test
+    public void shouldLeaveFailedMessagesForRedelivery() {
+        whenReceive(List.of(message(1, null), message(2, null), message(3, null)));
+        whenDeleteOk();
+
+        startReceiver(queueUrl, (body, message) -> {
+            if (body.index() == 2) {
+                throw new IllegalStateException("boom");
+            }
+        }, SqsReceiverSettings.builder().build());
+
+        verify(sqs, timeout(2_000)).deleteMessageBatch(deleteCaptor.capture());
+        assertThat(deletedReceipts()).containsExactlyInAnyOrder("r1", "r3");
+    }
+
+    @Test
+    public void shouldDeleteTenHandledMessagesWithOneCall() {
+        final List<Message> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(message(i, null));
+        }
+        whenReceive(batch);
+        whenDeleteOk();
+
+        startReceiver(queueUrl, (body, message) -> {
+        }, SqsReceiverSettings.builder().build());
+
+        verify(sqs, after(500).times(1)).deleteMessageBatch(deleteCaptor.capture());
+        assertThat(deletedReceipts()).hasSize(10);
+    }
+
+    @Test
+    public void shouldDeleteHandledMessagesWithoutWaitingForSlowOnes() throws Exception {
+        whenReceive(List.of(message(1, null), message(2, null)));
+        whenDeleteOk();
+        final CountDownLatch slow = new CountDownLatch(1);
+
+        startReceiver(queueUrl, (body, message) -> {
+            if (body.index() == 1) {
+                slow.await();
+            }
+        }, SqsReceiverSettings.builder().build());
+
+        verify(sqs, timeout(2_000)).deleteMessageBatch(deleteCaptor.capture());
+        assertThat(deletedReceipts()).containsExactly("r2");
+        slow.countDown();
+        verify(sqs, timeout(2_000).times(2)).deleteMessageBatch(deleteCaptor.capture());
+    }
+
+    @Test
+    public void shouldHandleFifoGroupInOrderAndStopGroupOnFailure() {
+        whenReceive(List.of(message(1, "a"), message(2, "b"), message(3, "a"), message(4, "a")));
+        whenDeleteOk();
+        final List<Integer> groupA = new CopyOnWriteArrayList<>();
+
+        startReceiver(queueUrl + ".fifo", (body, message) -> {
+            if (body.index() == 1) {
+                // a slow first message must not let the rest of its group overtake it.
+                Thread.sleep(100);
+            }
+            if (body.index() == 3) {
+                throw new IllegalStateException("boom");
+            }
+            if (!"b".equals(message.attributes().get(MessageSystemAttributeName.MESSAGE_GROUP_ID))) {
+                groupA.add(body.index());
+            }
+        }, SqsReceiverSettings.builder().deleteLingerMs(5_000).build());
+
+        verify(sqs, timeout(2_000)).deleteMessageBatch(deleteCaptor.capture());
+        assertThat(groupA).containsExactly(1);
+        assertThat(deletedReceipts()).containsExactlyInAnyOrder("r1", "r2");
+    }
+
+    @Test
+    public void shouldNotReceiveBeyondPrefetch() {
+        final List<Message> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(message(i, null));
+        }
+        whenReceive(batch);
+        whenDeleteOk();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        startReceiver(queueUrl, (body, message) -> release.await(), SqsReceiverSettings.builder()
+                                                                                       .concurrency(2)
+                                                                                       .prefetch(10)
+                                                                                       .build());
+
+        verify(sqs, after(300).times(1)).receiveMessage(any(ReceiveMessageRequest.class));
+        assertThat(receiver.getInFlight()).isEqualTo(10);
+        release.countDown();
+        verify(sqs, timeout(2_000).atLeastOnce()).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+        verify(sqs, timeout(2_000).atLeast(2)).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    @Test
+    public void shouldKeepSlowMessagesInvisibleUntilDeleted() {
+        whenReceive(List.of(message(1, null)));
+        whenDeleteOk();
+        doReturn(ChangeMessageVisibilityBatchResponse.builder().build())
+                .when(sqs)
+                .changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+
+        startReceiver(queueUrl, (body, message) -> Thread.sleep(1_200), SqsReceiverSettings.builder()
+                                                                                           .visibilityTimeoutSeconds(1)
+                                                                                           .visibilityHeartbeat(true)
+                                                                                           .build());
+
+        verify(sqs, timeout(3_000)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+        verify(sqs, atLeastOnce()).changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+    }
+
+    @Test
+    public void shouldFetchClaimCheckedBodyFromS3() throws Exception {
+        final Message pointer = Message.builder()
+                                       .messageId("m1")
+                                       .receiptHandle("r1")
+                                       .body("[\"software.amazon.payloadoffloading.PayloadS3Pointer\","
+                                             + "{\"s3BucketName\":\"bucket\",\"s3Key\":\"key\"}]")
+                                       .messageAttributes(Map.of(SqsClaimCheck.ATTRIBUTE_EXTENDED_PAYLOAD_SIZE,
+                                                                 MessageAttributeValue.builder()
+                                                                                      .dataType("Number")
+                                                                                      .stringValue("12")
+                                                                                      .build()))
+                                       .build();
+        whenReceive(List.of(pointer));
+        whenDeleteOk();
+        final byte[] stored = objectMapper.writeValueAsBytes(new Payload(42));
+        doReturn(new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                                           AbortableInputStream.create(new ByteArrayInputStream(stored))))
+                .when(s3)
+                .getObject(any(GetObjectRequest.class));
+        final List<Integer> handled = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        receiver = new SqsReceiver<>(sqs, objectMapper, queueUrl, Payload.class, (body, message) -> {
+            handled.add(body.index());
+            latch.countDown();
+        }, SqsReceiverSettings.builder().build(), new SqsClaimCheck(s3, objectMapper, "bucket"));
+        receiver.start();
+
+        assertThat(latch.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).containsExactly(42);
+        verify(sqs, timeout(2_000)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    }
+
+    @Test
+    public void shouldDecompressEncodedBody() throws Exception {
+        final String body = new SqsBodyCodec().encode(objectMapper.writeValueAsString(new Payload(7)));
+        final MessageAttributeValue gzip = MessageAttributeValue.builder()
+                                                                .dataType("String")
+                                                                .stringValue(SqsBodyCodec.ENCODING_GZIP)
+                                                                .build();
+        final Message compressed = Message.builder()
+                                          .messageId("m1")
+                                          .receiptHandle("r1")
+                                          .body(body)
+                                          .messageAttributes(Map.of(SqsBodyCodec.ATTRIBUTE_CONTENT_ENCODING, gzip))
+                                          .build();
+        whenReceive(List.of(compressed));
+        whenDeleteOk();
+        final List<Integer> handled = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        startReceiver(queueUrl, (payload, message) -> {
+            handled.add(payload.index());
+            latch.countDown();
+        }, SqsReceiverSettings.builder().build());
+
+        assertThat(latch.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).containsExactly(7);
+    }
+
+    @Test
+    public void shouldResolveQueueNameWithSharedResolver() {
+        doReturn(SqsQueue.fromUrl(queueUrl)).when(queueResolver).resolve("orders");
+        whenReceive(List.of());
+
+        receiver = new SqsReceiver<>(sqs,
+                                     objectMapper,
+                                     "orders",
+                                     Payload.class,
+                                     (body, message) -> {
+                                     },
+                                     SqsReceiverSettings.builder().build(),
+                                     null,
+                                     queueResolver);
+        receiver.start();
+
+        verify(queueResolver).resolve("orders");
+        verify(sqs, timeout(2_000).atLeastOnce()).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    @Test
+    public void shouldRejectInvalidSettings() {
+        assertThatThrownBy(() -> SqsReceiverSettings.builder().maxMessages(11).build().validate())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SqsReceiverSettings.builder().prefetch(5).build().validate())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SqsReceiverSettings.builder().waitTimeSeconds(21).build().validate())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SqsReceiverSettings.builder().visibilityHeartbeat(true).build().validate())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SqsReceiverSettings.builder().deleteLingerMs(-1).build().validate())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void startReceiver(String destination, SqsMessageHandler<Payload> handler, SqsReceiverSettings settings) {
+        receiver = new SqsReceiver<>(sqs, objectMapper, destination, Payload.class, handler, settings);
+        receiver.start();
+    }
+
+    /**
+     * The first receive returns the messages, later receives return nothing after a short poll.
+     */
+    private void whenReceive(List<Message> messages) {
+        receives.add(messages);
+        doAnswer(invocation -> {
+            final List<Message> received = receives.poll();
+            if (received == null) {
+                Thread.sleep(20);
+                return ReceiveMessageResponse.builder().build();
+            }
+            return ReceiveMessageResponse.builder().messages(received).build();
+        }).when(sqs).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    private List<String> deletedReceipts() {
+        return deleteCaptor.getAllValues()
+                           .stream()
+                           .flatMap(request -> request.entries().stream())
+                           .map(DeleteMessageBatchRequestEntry::receiptHandle)
+                           .toList();
+    }
+
+    private void whenDeleteOk() {
+        doReturn(DeleteMessageBatchResponse.builder().build()).when(sqs)
+                                                               .deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    }
+
+    private Message message(int index, String group) {
+        final Message.Builder message = Message.builder()
+                                               .messageId("m" + index)
+                                               .receiptHandle("r" + index)
+                                               .body(objectMapper.writeValueAsString(new Payload(index)));
+        if (group != null) {
+            message.attributes(Map.of(MessageSystemAttributeName.MESSAGE_GROUP_ID, group));
+        }
+        return message.build();
+    }
+
+    record Payload(int index) {
+    }
+}
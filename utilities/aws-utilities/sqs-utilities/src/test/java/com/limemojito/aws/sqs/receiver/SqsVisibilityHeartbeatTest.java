@@ -0,0 +1,110 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.aws.sqs.receiver;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SqsVisibilityHeartbeatTest {
+    private final String queueUrl = "sqs://queue/url";
+    @Mock
+    private SqsClient sqs;
+    @Captor
+    private ArgumentCaptor<ChangeMessageVisibilityBatchRequest> changeCaptor;
+    private SqsVisibilityHeartbeat heartbeat;
+
+    @AfterEach
+    void tearDown() {
+        if (heartbeat != null) {
+            heartbeat.close();
+        }
+    }
+
+    @Test
+    public void shouldRenewTrackedMessagesInBatchesOfTen() {
+        doReturn(ChangeMessageVisibilityBatchResponse.builder().build())
+                .when(sqs)
+                .changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+        heartbeat = new SqsVisibilityHeartbeat(sqs, queueUrl, 1);
+        for (int i = 0; i < 12; i++) {
+            heartbeat.track(message(i));
+        }
+
+        verify(sqs, timeout(2_000).atLeast(2)).changeMessageVisibilityBatch(changeCaptor.capture());
+        final List<ChangeMessageVisibilityBatchRequest> requests = changeCaptor.getAllValues();
+        assertThat(requests.get(0).queueUrl()).isEqualTo(queueUrl);
+        assertThat(requests.get(0).entries()).hasSize(10);
+        assertThat(requests.get(1).entries()).hasSize(2);
+        assertThat(requests.stream().limit(2).flatMap(request -> request.entries().stream()))
+                .extracting(ChangeMessageVisibilityBatchRequestEntry::visibilityTimeout)
+                .containsOnly(1);
+        assertThat(heartbeat.getTracked()).isEqualTo(12);
+    }
+
+    @Test
+    public void shouldStopRenewingRefusedAndReleasedMessages() {
+        doReturn(ChangeMessageVisibilityBatchResponse.builder()
+                                                     .failed(BatchResultErrorEntry.builder()
+                                                                                  .id("1")
+                                                                                  .code("ReceiptHandleIsInvalid")
+                                                                                  .senderFault(true)
+                                                                                  .build())
+                                                     .build())
+                .when(sqs)
+                .changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+        heartbeat = new SqsVisibilityHeartbeat(sqs, queueUrl, 1);
+        final Message kept = message(0);
+        heartbeat.track(kept);
+        heartbeat.track(message(1));
+
+        verify(sqs, timeout(2_000)).changeMessageVisibilityBatch(changeCaptor.capture());
+        final String refused = changeCaptor.getValue().entries().get(1).receiptHandle();
+        assertThat(heartbeat.getTracked()).isEqualTo(1);
+        heartbeat.release(refused.equals(kept.receiptHandle()) ? message(1) : kept);
+        assertThat(heartbeat.getTracked()).isZero();
+    }
+
+    @Test
+    public void shouldRequireVisibilityTimeout() {
+        assertThatThrownBy(() -> new SqsVisibilityHeartbeat(sqs, queueUrl, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Message message(int index) {
+        return Message.builder().messageId("m" + index).receiptHandle("r" + index).build();
+    }
+}
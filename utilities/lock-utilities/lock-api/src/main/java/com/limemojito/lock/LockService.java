@@ -17,7 +17,12 @@
 
 package com.limemojito.lock;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * The LockService interface provides methods for acquiring and managing distributed locks.
@@ -32,6 +37,37 @@ public interface LockService {
      */
     Optional<DistributedLock> tryAcquire(String lockName);
 
+    /**
+     * Try to acquire a lock, waiting up to the timeout for it to become available.  By default this polls
+     * {@link #tryAcquire(String)} with exponential backoff and full jitter, from 25ms up to 1s, until the timeout has
+     * passed.  Implementations that can wait efficiently override this.
+     *
+     * @param lockName Name of lock to take (case-sensitive).
+     * @param timeout  Maximum time to wait for the lock.  Zero or negative makes a single attempt.
+     * @return Optional distributed lock resource, empty if the lock was not acquired in time or the wait was
+     *         interrupted.
+     */
+    default Optional<DistributedLock> tryAcquire(String lockName, Duration timeout) {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        long backoffMs = 25;
+        Optional<DistributedLock> lock = tryAcquire(lockName);
+        while (lock.isEmpty()) {
+            final long remainingMs = NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) {
+                return lock;
+            }
+            try {
+                Thread.sleep(Math.min(remainingMs, 1 + ThreadLocalRandom.current().nextLong(backoffMs)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return lock;
+            }
+            backoffMs = Math.min(1_000, backoffMs * 2);
+            lock = tryAcquire(lockName);
+        }
+        return lock;
+    }
+
     /**
      * Block and wait for the named lock to be acquired.
      *
@@ -40,6 +76,31 @@ public interface LockService {
      */
     DistributedLock acquire(String lockName);
 
+    /**
+     * Acquire the named lock without blocking the calling thread.  Cancelling the future abandons the wait, and a lock
+     * acquired after cancellation is released.  By default this waits in {@link #acquire(String)} on a virtual thread,
+     * so no platform thread is held for the wait.  Implementations that can wait without holding a thread or connection
+     * override this.  Implementations whose locks are bound to the caller's transaction cannot hand the wait to another
+     * thread, so they may wait on the calling thread and return an already completed future.
+     *
+     * @param lockName Name of lock to take (case-sensitive).
+     * @return Future completing with the lock resource, or exceptionally if the lock could not be acquired.
+     */
+    default CompletableFuture<DistributedLock> acquireAsync(String lockName) {
+        final CompletableFuture<DistributedLock> future = new CompletableFuture<>();
+        Thread.ofVirtual().name("lock-acquire").start(() -> {
+            try {
+                final DistributedLock lock = acquire(lockName);
+                if (!future.complete(lock)) {
+                    lock.close();
+                }
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
     /**
      * Lock Resource.  Designed for use in a try-with-resources block.
      */
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.lock;
+
+import com.limemojito.lock.LockService.DistributedLock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+public class LockServiceTest {
+
+    private final LockService lockService = mock(LockService.class, CALLS_REAL_METHODS);
+    private final DistributedLock lock = mock(DistributedLock.class);
+
+    @Test
+    public void shouldPollUntilLockIsAvailable() {
+        doReturn(Optional.empty(), Optional.empty(), Optional.of(lock)).when(lockService).tryAcquire("my-lock");
+
+        assertThat(lockService.tryAcquire("my-lock", Duration.ofSeconds(5))).contains(lock);
+
+        verify(lockService, times(3)).tryAcquire("my-lock");
+    }
+
+    @Test
+    public void shouldGiveUpPollingAfterTimeout() {
+        doReturn(Optional.empty()).when(lockService).tryAcquire("my-lock");
+
+        assertThat(lockService.tryAcquire("my-lock", Duration.ofMillis(100))).isEmpty();
+
+        verify(lockService, atLeast(2)).tryAcquire("my-lock");
+    }
+
+    @Test
+    public void shouldMakeSingleAttemptWithoutTimeout() {
+        doReturn(Optional.empty()).when(lockService).tryAcquire("my-lock");
+
+        assertThat(lockService.tryAcquire("my-lock", Duration.ZERO)).isEmpty();
+
+        verify(lockService).tryAcquire("my-lock");
+    }
+
+    @Test
+    public void shouldAcquireAsynchronouslyOnAnotherThread() throws Exception {
+        doReturn(lock).when(lockService).acquire("my-lock");
+
+        assertThat(lockService.acquireAsync("my-lock").get(5, SECONDS)).isSameAs(lock);
+
+        verify(lockService).acquire("my-lock");
+    }
+
+    @Test
+    public void shouldFailAsynchronousAcquireWithAcquireFailure() {
+        doThrow(new IllegalStateException("lock timeout")).when(lockService).acquire("my-lock");
+
+        assertThatThrownBy(() -> lockService.acquireAsync("my-lock").join())
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void shouldReleaseLockAcquiredAfterCancellation() {
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            assertThat(cancelled.await(5, SECONDS)).isTrue();
+            return lock;
+        }).when(lockService).acquire("my-lock");
+
+        final CompletableFuture<DistributedLock> future = lockService.acquireAsync("my-lock");
+        future.cancel(true);
+        cancelled.countDown();
+
+        verify(lock, timeout(5_000)).close();
+    }
+}
@@ -20,14 +20,21 @@ package com.limemojito.aws.lock;
 import com.amazonaws.services.dynamodbv2.AcquireLockOptions;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBLockClient;
 import com.amazonaws.services.dynamodbv2.LockItem;
+import com.amazonaws.services.dynamodbv2.model.LockCurrentlyUnavailableException;
+import com.amazonaws.services.dynamodbv2.model.LockNotGrantedException;
 import com.limemojito.lock.LockService;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * The DynamoDbLockService class is an implementation of the LockService interface that provides methods for acquiring and managing distributed locks using Amazon DynamoDB as the
@@ -37,21 +44,88 @@ import java.util.Optional;
  * <p>
  * Note: The DynamoDbLockService class assumes the existence of a DynamoDB table with the necessary schema for storing locks.
  * You should ensure that the table is set up and configured correctly before using this class.
+ * <p>
+ * This class is thread-safe.  The lock client arbitrates ownership through conditional writes to the lock table, so
+ * callers are not serialized in the JVM and locks with different names are acquired in parallel.
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class DynamoDbLockService implements LockService {
+    /**
+     * Lease duration assumed when not given, matching the lock client's default.
+     */
+    public static final Duration DEFAULT_LEASE_DURATION = Duration.ofSeconds(20);
+    private static final long INITIAL_WAIT_BACKOFF_MS = 25;
+    private static final long MAX_WAIT_BACKOFF_MS = 1_000;
 
     private final AmazonDynamoDBLockClient client;
+    private final Duration leaseDuration;
+
+    /**
+     * Creates a lock service for a client with the {@link #DEFAULT_LEASE_DURATION}.
+     *
+     * @param client Amazon Dynamodb Lock Client to delegate to.
+     */
+    public DynamoDbLockService(AmazonDynamoDBLockClient client) {
+        this(client, DEFAULT_LEASE_DURATION);
+    }
+
+    /**
+     * Creates a lock service.
+     *
+     * @param client        Amazon Dynamodb Lock Client to delegate to.
+     * @param leaseDuration The lease duration the client was configured with.
+     */
+    public DynamoDbLockService(AmazonDynamoDBLockClient client, Duration leaseDuration) {
+        this.client = client;
+        this.leaseDuration = leaseDuration;
+    }
 
     @Override
     @SneakyThrows
-    public synchronized Optional<DistributedLock> tryAcquire(String lockName) {
+    public Optional<DistributedLock> tryAcquire(String lockName) {
         return client.tryAcquireLock(AcquireLockOptions.builder(lockName).build())
                      .map(item -> new DynamoDbLock(item, lockName));
     }
 
+    /**
+     * Try to acquire the lock, waiting at most the timeout.  A timeout shorter than the lease duration cannot outlast a
+     * lease left by a failed holder, so each attempt is a single read and conditional write that does not wait out the
+     * holder's lease, and attempts are spaced with exponential backoff and full jitter so waiting callers do not hammer
+     * the lock table.  A longer timeout waits in the lock client, which takes over a lease that is not renewed within
+     * its duration, checking the lease at most every second.
+     *
+     * @param lockName Name of lock to take (case-sensitive).
+     * @param timeout  Maximum time to wait for the lock.  Zero or negative makes a single attempt.
+     * @return Optional lock resource if the lock was successful.
+     */
+    @Override
+    @SneakyThrows
+    public Optional<DistributedLock> tryAcquire(String lockName, Duration timeout) {
+        if (timeout.compareTo(leaseDuration) >= 0) {
+            return waitOutLease(lockName, timeout);
+        }
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        final AcquireLockOptions options = AcquireLockOptions.builder(lockName)
+                                                             .withShouldSkipBlockingWait(true)
+                                                             .withAdditionalTimeToWaitForLock(0L)
+                                                             .build();
+        long backoffMs = INITIAL_WAIT_BACKOFF_MS;
+        while (true) {
+            try {
+                return Optional.of(new DynamoDbLock(client.acquireLock(options), lockName));
+            } catch (LockCurrentlyUnavailableException | LockNotGrantedException e) {
+                final long remainingMs = NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    log.debug("Timed out after {} waiting for DynamoDb lock {}", timeout, lockName);
+                    return Optional.empty();
+                }
+                Thread.sleep(Math.min(remainingMs, 1 + ThreadLocalRandom.current().nextLong(backoffMs)));
+                backoffMs = Math.min(MAX_WAIT_BACKOFF_MS, backoffMs * 2);
+            }
+        }
+    }
+
     @Override
     @SneakyThrows
     public DistributedLock acquire(String lockName) {
@@ -59,6 +133,52 @@ public class DynamoDbLockService implements LockService {
         return new DynamoDbLock(lockItem, lockName);
     }
 
+    /**
+     * Acquire the lock on a virtual thread, which releases its carrier while the lock client sleeps between attempts.
+     * Cancelling the future interrupts the wait.
+     *
+     * @param lockName Name of lock to take (case-sensitive).
+     * @return Future completing with the lock resource.
+     */
+    @Override
+    public CompletableFuture<DistributedLock> acquireAsync(String lockName) {
+        final CompletableFuture<DistributedLock> future = new CompletableFuture<>();
+        final Thread waiter = Thread.ofVirtual().name("dynamodb-lock-" + lockName).start(() -> {
+            try {
+                final DistributedLock lock = acquire(lockName);
+                if (!future.complete(lock)) {
+                    lock.close();
+                }
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        future.whenComplete((lock, e) -> {
+            if (future.isCancelled()) {
+                waiter.interrupt();
+            }
+        });
+        return future;
+    }
+
+    private Optional<DistributedLock> waitOutLease(String lockName, Duration timeout) throws InterruptedException {
+        // the client waits up to the refresh period, the holder's lease and the additional time.
+        final long timeoutMs = timeout.toMillis();
+        final long refreshPeriodMs = Math.clamp(timeoutMs / 10, INITIAL_WAIT_BACKOFF_MS, MAX_WAIT_BACKOFF_MS);
+        final long additionalMs = Math.max(0, timeoutMs - leaseDuration.toMillis() - refreshPeriodMs);
+        final AcquireLockOptions options = AcquireLockOptions.builder(lockName)
+                                                             .withRefreshPeriod(refreshPeriodMs)
+                                                             .withAdditionalTimeToWaitForLock(additionalMs)
+                                                             .withTimeUnit(MILLISECONDS)
+                                                             .build();
+        try {
+            return Optional.of(new DynamoDbLock(client.acquireLock(options), lockName));
+        } catch (LockCurrentlyUnavailableException | LockNotGrantedException e) {
+            log.debug("Timed out after {} waiting for DynamoDb lock {}", timeout, lockName);
+            return Optional.empty();
+        }
+    }
+
     protected static class DynamoDbLock implements LockService.DistributedLock {
         private final LockItem lockItem;
         @Getter
@@ -25,6 +25,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -71,12 +72,15 @@ public class DynamodbLockServiceConfig {
     /**
      * {@code DynamoDbLockService} is a service class that provides methods for acquiring and managing distributed locks using Amazon DynamoDB as the underlying storage mechanism
      *
-     * @param client Amazon Dynamodb Lock Client to delegate to.
+     * @param client        Amazon Dynamodb Lock Client to delegate to.
+     * @param leaseDuration The duration of the lease for the locks, in seconds.
      * @return a lock service implementation.
      * @see com.limemojito.lock.LockService
      */
     @Bean
-    public DynamoDbLockService dynamoDbLockService(AmazonDynamoDBLockClient client) {
-        return new DynamoDbLockService(client);
+    public DynamoDbLockService dynamoDbLockService(AmazonDynamoDBLockClient client,
+                                                   @Value("${com.limemojito.aws.lock.leaseDuration:20}")
+                                                   long leaseDuration) {
+        return new DynamoDbLockService(client, Duration.ofSeconds(leaseDuration));
     }
 }
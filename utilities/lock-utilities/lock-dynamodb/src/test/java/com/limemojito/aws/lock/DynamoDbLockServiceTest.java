@@ -20,20 +20,31 @@ package com.limemojito.aws.lock;
 import com.amazonaws.services.dynamodbv2.AcquireLockOptions;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBLockClient;
 import com.amazonaws.services.dynamodbv2.LockItem;
+import com.amazonaws.services.dynamodbv2.model.LockCurrentlyUnavailableException;
+import com.amazonaws.services.dynamodbv2.model.LockNotGrantedException;
 import com.limemojito.lock.LockService.DistributedLock;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,11 +55,15 @@ public class DynamoDbLockServiceTest {
     private AmazonDynamoDBLockClient lockClient;
     @Mock
     private LockItem lockItem;
-    @InjectMocks
     private DynamoDbLockService lockService;
     @Captor
     private ArgumentCaptor<AcquireLockOptions> optionsCaptor;
 
+    @BeforeEach
+    public void setUp() {
+        lockService = new DynamoDbLockService(lockClient, Duration.ofSeconds(20));
+    }
+
     @AfterEach
     public void verifyMocks() {
         verifyNoMoreInteractions(lockClient, lockItem);
@@ -94,4 +109,105 @@ public class DynamoDbLockServiceTest {
         verify(lockClient).acquireLock(optionsCaptor.getValue());
         verify(lockItem).close();
     }
+
+    @Test
+    public void shouldWaitForLockToBecomeAvailable() throws InterruptedException {
+        doThrow(new LockCurrentlyUnavailableException("held"))
+                .doReturn(lockItem)
+                .when(lockClient)
+                .acquireLock(any(AcquireLockOptions.class));
+
+        final Optional<DistributedLock> lock = lockService.tryAcquire("my-lock", Duration.ofSeconds(5));
+
+        assertThat(lock).map(DistributedLock::getName).contains("my-lock");
+        verify(lockClient, times(2)).acquireLock(any(AcquireLockOptions.class));
+    }
+
+    @Test
+    public void shouldGiveUpWaitingAfterTimeout() throws InterruptedException {
+        doThrow(new LockCurrentlyUnavailableException("held")).when(lockClient)
+                                                              .acquireLock(any(AcquireLockOptions.class));
+
+        final Optional<DistributedLock> lock = lockService.tryAcquire("my-lock", Duration.ofMillis(100));
+
+        assertThat(lock).isEmpty();
+        verify(lockClient, atLeast(2)).acquireLock(any(AcquireLockOptions.class));
+    }
+
+    @Test
+    public void shouldWaitOutAbandonedLeaseWhenTimeoutCoversIt() throws InterruptedException {
+        doReturn(lockItem).when(lockClient).acquireLock(optionsCaptor.capture());
+
+        final Optional<DistributedLock> lock = lockService.tryAcquire("my-lock", Duration.ofSeconds(30));
+
+        assertThat(lock).map(DistributedLock::getName).contains("my-lock");
+        verify(lockClient).acquireLock(optionsCaptor.getValue());
+        // the client waits the refresh period, the holder's 20 second lease and the additional time.
+        assertThat(optionsCaptor.getValue()).extracting("refreshPeriod", "additionalTimeToWaitForLock", "timeUnit")
+                                            .containsExactly(1_000L, 9_000L, MILLISECONDS);
+    }
+
+    @Test
+    public void shouldGiveUpWaitingOutLeaseWhenLockIsNotGranted() throws InterruptedException {
+        doThrow(new LockNotGrantedException("held")).when(lockClient).acquireLock(any(AcquireLockOptions.class));
+
+        final Optional<DistributedLock> lock = lockService.tryAcquire("my-lock", Duration.ofSeconds(20));
+
+        assertThat(lock).isEmpty();
+        verify(lockClient).acquireLock(any(AcquireLockOptions.class));
+    }
+
+    @Test
+    public void shouldAcquireAsynchronously() throws Exception {
+        doReturn(lockItem).when(lockClient).acquireLock(any(AcquireLockOptions.class));
+
+        try (DistributedLock lock = lockService.acquireAsync("my-lock").get(5, SECONDS)) {
+            assertThat(lock.getName()).isEqualTo("my-lock");
+        }
+        verify(lockClient).acquireLock(any(AcquireLockOptions.class));
+        verify(lockItem).close();
+    }
+
+    @Test
+    public void shouldInterruptWaitWhenAsyncAcquireIsCancelled() throws Exception {
+        final CountDownLatch waiting = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            waiting.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return lockItem;
+        }).when(lockClient).acquireLock(any(AcquireLockOptions.class));
+
+        final CompletableFuture<DistributedLock> lock = lockService.acquireAsync("my-lock");
+        assertThat(waiting.await(5, SECONDS)).isTrue();
+        lock.cancel(true);
+
+        assertThat(interrupted.await(5, SECONDS)).isTrue();
+        verify(lockClient).acquireLock(any(AcquireLockOptions.class));
+    }
+
+    @Test
+    public void shouldTryToAcquireIndependentLocksInParallel() throws Exception {
+        // each attempt blocks in the lock client until both are waiting, which can only happen if they run in parallel.
+        final CountDownLatch bothWaiting = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            bothWaiting.countDown();
+            assertThat(bothWaiting.await(5, SECONDS)).isTrue();
+            return Optional.of(lockItem);
+        }).when(lockClient).tryAcquireLock(any(AcquireLockOptions.class));
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            final Future<Optional<DistributedLock>> first = executor.submit(() -> lockService.tryAcquire("lock-a"));
+            final Future<Optional<DistributedLock>> second = executor.submit(() -> lockService.tryAcquire("lock-b"));
+
+            assertThat(first.get()).map(DistributedLock::getName).contains("lock-a");
+            assertThat(second.get()).map(DistributedLock::getName).contains("lock-b");
+        }
+        verify(lockClient, times(2)).tryAcquireLock(any(AcquireLockOptions.class));
+    }
 }
@@ -20,16 +20,23 @@ package com.limemojito.lock.postgres;
 import com.limemojito.lock.LockService;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * The {@code PostgresLockService} class is an implementation of the {@link LockService} interface that provides methods for acquiring and managing distributed locks using PostgreSQL
@@ -40,20 +47,31 @@ import static java.lang.String.format;
  * </p>
  *
  * <p>
+ * Lock names are mapped to the 64-bit {@code bigint} advisory lock key space using the leading 8 bytes of the SHA-256
+ * digest of the UTF-8 name, so unrelated names do not collide and contend in practice.  Releases up to and including
+ * 18.0.300 keyed locks by {@code String.hashCode()}, so nodes on either side of that upgrade do not exclude each other;
+ * stop every old node before starting a new one rather than rolling the deploy.
+ * </p>
+ *
+ * <p>
  * To use {@code PostgresLockService}, an instance of {@link JdbcTemplate} is required to be passed in the constructor. The {@link JdbcTemplate} provides the necessary database access
  * for acquiring and releasing locks.
  * </p>
  *
  * <p>
- * This class is thread-safe, and the methods for acquiring locks are synchronized to ensure proper concurrency control.
+ * This class is thread-safe.  Each lock is taken on the connection bound to the caller's transaction, so the database
+ * arbitrates between lock holders and callers are not serialized in the JVM.  A blocking {@link #acquire(String)} only
+ * waits on holders of the same lock.
  * </p>
  *
  * @see LockService
+ * @see PostgresSessionLockService
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class PostgresLockService implements LockService {
+    private static final String SAVEPOINT = "limemojito_lock_wait";
 
     private final JdbcTemplate template;
 
@@ -67,8 +85,8 @@ public class PostgresLockService implements LockService {
      */
     @Override
     @Transactional(propagation = Propagation.MANDATORY)
-    public synchronized Optional<DistributedLock> tryAcquire(String lockName) {
-        final int lockNumber = name2Int(lockName);
+    public Optional<DistributedLock> tryAcquire(String lockName) {
+        final long lockNumber = lockKey(lockName);
         // If acquired this lock is released on transaction commit.
         final Boolean locked = template.queryForObject(format("SELECT pg_try_advisory_xact_lock(%d)", lockNumber),
                                                        Boolean.class);
@@ -79,6 +97,44 @@ public class PostgresLockService implements LockService {
         }
     }
 
+    /**
+     * Lock with pg_advisory_xact_lock expecting to be in a transaction, waiting at most the timeout by setting a local
+     * lock_timeout.  The wait runs in a savepoint so a timeout leaves the caller's transaction usable, and the caller's
+     * lock_timeout is restored once the lock is held.  Unlock is with transaction commit or rollback.
+     *
+     * @param lockName Name of lock to take (case-sensitive).
+     * @param timeout  Maximum time to wait for the lock.  Zero or negative makes a single attempt.
+     * @return Optional lock resource if the lock was successful.
+     * @throws DataAccessException on a db failure.
+     * @see PostgresDistributedLock
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<DistributedLock> tryAcquire(String lockName, Duration timeout) {
+        final long timeoutMs = timeout.toMillis();
+        // a lock_timeout of 0 disables the timeout, so short waits fall back to a single attempt.
+        if (timeoutMs <= 0) {
+            return tryAcquire(lockName);
+        }
+        final long lockNumber = lockKey(lockName);
+        final String previousTimeout = template.queryForObject("SELECT current_setting('lock_timeout')", String.class);
+        try {
+            template.execute(format("SAVEPOINT %s; SET LOCAL lock_timeout = %d; SELECT pg_advisory_xact_lock(%d)",
+                                    SAVEPOINT,
+                                    timeoutMs,
+                                    lockNumber));
+        } catch (PessimisticLockingFailureException e) {
+            log.debug("Timed out after {}ms waiting for DB lock {}", timeoutMs, lockName);
+            template.execute(format("ROLLBACK TO SAVEPOINT %1$s; RELEASE SAVEPOINT %1$s", SAVEPOINT));
+            return Optional.empty();
+        }
+        // releasing the savepoint keeps both the lock and the local lock_timeout, so put the caller's timeout back.
+        template.execute(format("SET LOCAL lock_timeout = '%s'; RELEASE SAVEPOINT %s",
+                                previousTimeout.replace("'", "''"),
+                                SAVEPOINT));
+        return Optional.of(new PostgresDistributedLock(lockName));
+    }
+
     /**
      * Lock with pg_advisory_xact_lock expecting to be in a transaction.  This will block for the database's lock timeout and throw a spring
      * jdbc failure on timeout.  Unlock is with transaction commit or rollback.
@@ -90,12 +146,31 @@ public class PostgresLockService implements LockService {
      */
     @Override
     @Transactional(propagation = Propagation.MANDATORY)
-    public synchronized DistributedLock acquire(String lockName) {
-        final int lockNumber = name2Int(lockName);
+    public DistributedLock acquire(String lockName) {
+        final long lockNumber = lockKey(lockName);
         template.execute(format("SELECT pg_advisory_xact_lock(%d)", lockNumber));
         return new PostgresDistributedLock(lockName);
     }
 
+    /**
+     * Transaction scoped locks are bound to the calling thread's transaction, so as {@link LockService} allows for such
+     * locks this falls back to a blocking {@link #acquire(String)} on the calling thread and returns a completed future.
+     * Use {@link PostgresSessionLockService#acquireAsync(String)} to wait without blocking.
+     *
+     * @param lockName Name of lock to take (case-sensitive).
+     * @return a future completed with the lock resource, or exceptionally on a lock timeout or db failure.
+     * @see PostgresDistributedLock
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public CompletableFuture<DistributedLock> acquireAsync(String lockName) {
+        try {
+            return CompletableFuture.completedFuture(acquire(lockName));
+        } catch (DataAccessException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * Unlock is with transaction commit or rollback.
      */
@@ -111,7 +186,7 @@ public class PostgresLockService implements LockService {
          */
         protected PostgresDistributedLock(String lockName) {
             this.name = lockName;
-            log.info("Acquired DB lock for {} -> {}", lockName, name2Int(lockName));
+            log.info("Acquired DB lock for {} -> {}", lockName, lockKey(lockName));
         }
 
         /**
@@ -124,7 +199,15 @@ public class PostgresLockService implements LockService {
         }
     }
 
-    private static int name2Int(String lockName) {
-        return lockName.hashCode();
+    /**
+     * Maps a lock name to a bigint advisory lock key.
+     *
+     * @param lockName Name of lock (case-sensitive).
+     * @return the leading 64 bits of the SHA-256 digest of the name.
+     */
+    @SneakyThrows
+    static long lockKey(String lockName) {
+        final byte[] digest = MessageDigest.getInstance("SHA-256").digest(lockName.getBytes(UTF_8));
+        return ByteBuffer.wrap(digest).getLong();
     }
 }
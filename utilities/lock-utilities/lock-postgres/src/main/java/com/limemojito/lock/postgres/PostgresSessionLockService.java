@@ -0,0 +1,336 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.lock.postgres;
+
+import com.limemojito.lock.LockService;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.limemojito.lock.postgres.PostgresLockService.lockKey;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A {@link LockService} using Postgres session level advisory locks, for locks that must be held outside of, or for
+ * longer than, a transaction.
+ * <p>
+ * Each lock borrows a connection from the supplied data source and holds it until the lock is closed, at which point
+ * the lock is released with {@code pg_advisory_unlock} and the connection returned.  No transaction is started, so a
+ * long held coordination lock does not pin a snapshot and hold back vacuum.  Use a small pool dedicated to locking,
+ * sized for the number of locks held at once, so lock holders can not exhaust the application's pool:
+ * </p>
+ *
+ * <pre>
+ * HikariDataSource lockPool = new HikariDataSource();
+ * lockPool.setJdbcUrl(url);
+ * lockPool.setMaximumPoolSize(4);
+ * LockService locks = new PostgresSessionLockService(lockPool);
+ * </pre>
+ *
+ * <p>
+ * Locks should be closed once, ideally in a try-with-resources block.  This class is thread-safe and is not
+ * registered as a bean by {@link PostgresLockConfig}.
+ * </p>
+ *
+ * @see PostgresLockService
+ */
+@Slf4j
+public class PostgresSessionLockService implements LockService {
+
+    private static final String TASK = "Postgres session lock";
+    private static final String LOCK_NOT_AVAILABLE = "55P03";
+    private static final long INITIAL_WAIT_BACKOFF_MS = 25;
+    private static final long MAX_WAIT_BACKOFF_MS = 1_000;
+    private static final Executor ATTEMPTS = command -> Thread.ofVirtual().name("postgres-lock-attempt").start(command);
+
+    private final DataSource lockDataSource;
+    private final SQLExceptionTranslator translator = new SQLStateSQLExceptionTranslator();
+
+    /**
+     * Creates a session lock service.
+     *
+     * @param lockDataSource Pool the lock connections are borrowed from, ideally dedicated to locking.
+     */
+    public PostgresSessionLockService(DataSource lockDataSource) {
+        this.lockDataSource = lockDataSource;
+    }
+
+    /**
+     * Lock with pg_try_advisory_lock, holding a connection until the lock is closed.
+     *
+     * @param lockName Name of lock to take (case-sensitive).
+     * @return Optional lock resource if the lock was successful.
+     * @throws DataAccessException on a db failure.
+     * @see PostgresSessionLock
+     */
+    @Override
+    public Optional<DistributedLock> tryAcquire(String lockName) {
+        return Optional.ofNullable(tryLock(lockName));
+    }
+
+    /**
+     * Lock with pg_advisory_lock, waiting at most the timeout and holding a connection until the lock is closed.  The
+     * wait runs in a short transaction with a local lock_timeout, so the pooled connection's settings are unchanged and
+     * no transaction remains open while the lock is held.
+     *
+     * @param lockName Name of lock to take (case-sensitive).
+     * @param timeout  Maximum time to wait for the lock.  Zero or negative makes a single attempt.
+     * @return Optional lock resource if the lock was successful.
+     * @throws DataAccessException on a db failure.
+     * @see PostgresSessionLock
+     */
+    @Override
+    public Optional<DistributedLock> tryAcquire(String lockName, Duration timeout) {
+        final long timeoutMs = timeout.toMillis();
+        // a lock_timeout of 0 disables the timeout, so short waits fall back to a single attempt.
+        if (timeoutMs <= 0) {
+            return tryAcquire(lockName);
+        }
+        final long lockNumber = lockKey(lockName);
+        final String sql = "SELECT pg_advisory_lock(?)";
+        Connection connection = null;
+        boolean locking = false;
+        try {
+            connection = lockDataSource.getConnection();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET LOCAL lock_timeout = " + timeoutMs);
+            }
+            locking = true;
+            lock(connection, sql, lockNumber);
+            // session locks survive the commit, the local lock_timeout does not.
+            connection.commit();
+            connection.setAutoCommit(true);
+            return Optional.of(new PostgresSessionLock(lockName, lockNumber, connection));
+        } catch (SQLException e) {
+            final boolean timedOut = LOCK_NOT_AVAILABLE.equals(e.getSQLState());
+            if (locking && !timedOut) {
+                // a rollback does not release a session lock, so a session that may hold it is ended instead.
+                abortQuietly(connection);
+            } else {
+                endQuietly(connection);
+            }
+            if (timedOut) {
+                log.debug("Timed out after {}ms waiting for DB session lock {}", timeoutMs, lockName);
+                return Optional.empty();
+            }
+            throw translate(sql, e);
+        }
+    }
+
+    /**
+     * Lock with pg_advisory_lock, holding a connection until the lock is closed.  This will block for the database's
+     * lock timeout and throw a spring jdbc failure on timeout.
+     *
+     * @param lockName Name of lock to take (case-sensitive).
+     * @return Lock resource if the lock was successful.
+     * @throws DataAccessException on a lock timeout or db failure.
+     * @see PostgresSessionLock
+     */
+    @Override
+    public DistributedLock acquire(String lockName) {
+        final long lockNumber = lockKey(lockName);
+        final String sql = "SELECT pg_advisory_lock(?)";
+        Connection connection = null;
+        try {
+            connection = lockDataSource.getConnection();
+            lock(connection, sql, lockNumber);
+            return new PostgresSessionLock(lockName, lockNumber, connection);
+        } catch (SQLException e) {
+            // the lock may have been granted before the failure, so the session must not go back to the pool.
+            abortQuietly(connection);
+            throw translate(sql, e);
+        }
+    }
+
+    /**
+     * Acquire the lock with repeated pg_try_advisory_lock attempts, spaced with exponential backoff and full jitter.
+     * Neither a thread nor a connection is held between attempts, so waiters do not exhaust the lock pool.  Waiters are
+     * not queued in the database, so a waiter is not guaranteed the lock in arrival order.
+     *
+     * @param lockName Name of lock to take (case-sensitive).
+     * @return Future completing with the lock resource, or exceptionally on a db failure.
+     */
+    @Override
+    public CompletableFuture<DistributedLock> acquireAsync(String lockName) {
+        final CompletableFuture<DistributedLock> future = new CompletableFuture<>();
+        attempt(lockName, future, INITIAL_WAIT_BACKOFF_MS, ATTEMPTS);
+        return future;
+    }
+
+    private void attempt(String lockName, CompletableFuture<DistributedLock> future, long backoffMs, Executor executor) {
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                final PostgresSessionLock lock = tryLock(lockName);
+                if (lock == null) {
+                    final long delay = 1 + ThreadLocalRandom.current().nextLong(backoffMs);
+                    attempt(lockName,
+                            future,
+                            Math.min(MAX_WAIT_BACKOFF_MS, backoffMs * 2),
+                            CompletableFuture.delayedExecutor(delay, MILLISECONDS, ATTEMPTS));
+                } else if (!future.complete(lock)) {
+                    lock.close();
+                }
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+    }
+
+    private PostgresSessionLock tryLock(String lockName) {
+        final long lockNumber = lockKey(lockName);
+        final String sql = "SELECT pg_try_advisory_lock(?)";
+        Connection connection = null;
+        try {
+            connection = lockDataSource.getConnection();
+            if (execute(connection, sql, lockNumber)) {
+                return new PostgresSessionLock(lockName, lockNumber, connection);
+            }
+            connection.close();
+            return null;
+        } catch (SQLException e) {
+            // the lock may have been granted before the failure, so the session must not go back to the pool.
+            abortQuietly(connection);
+            throw translate(sql, e);
+        }
+    }
+
+    private static void lock(Connection connection, String sql, long lockNumber) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, lockNumber);
+            // pg_advisory_lock returns void, which can not be read as a boolean, so the result is not read.
+            statement.execute();
+        }
+    }
+
+    private static boolean execute(Connection connection, String sql, long lockNumber) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, lockNumber);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private DataAccessException translate(String sql, SQLException e) {
+        final DataAccessException translated = translator.translate(TASK, sql, e);
+        return translated != null ? translated : new UncategorizedSQLException(TASK, sql, e);
+    }
+
+    private static void endQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                log.warn("Could not end lock wait transaction: {}", e.getMessage());
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("Could not close lock connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Aborts the connection, ending the session and with it any lock the session holds, then closes it so that a pool
+     * discards the connection rather than lending it out again.
+     */
+    private static void abortQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.abort(Runnable::run);
+            } catch (SQLException e) {
+                log.warn("Could not abort lock connection: {}", e.getMessage());
+            }
+            closeQuietly(connection);
+        }
+    }
+
+    /**
+     * A session advisory lock holding its connection.  Closing unlocks and returns the connection to the pool.
+     */
+    protected class PostgresSessionLock implements DistributedLock {
+        @Getter
+        private final String name;
+        private final long lockNumber;
+        private Connection connection;
+
+        /**
+         * Represents a session level advisory lock held on the supplied connection.
+         *
+         * @param lockName   the name of the lock
+         * @param lockNumber the advisory lock key
+         * @param connection the connection the lock was taken on
+         */
+        protected PostgresSessionLock(String lockName, long lockNumber, Connection connection) {
+            this.name = lockName;
+            this.lockNumber = lockNumber;
+            this.connection = connection;
+            log.info("Acquired DB session lock for {} -> {}", lockName, lockNumber);
+        }
+
+        /**
+         * Unlocks with pg_advisory_unlock and returns the connection.  Closing an already closed lock does nothing.
+         */
+        @Override
+        public void close() {
+            if (connection == null) {
+                return;
+            }
+            final Connection held = connection;
+            connection = null;
+            try {
+                if (!execute(held, "SELECT pg_advisory_unlock(?)", lockNumber)) {
+                    log.warn("DB session lock {} was not held on release", name);
+                }
+                held.close();
+                log.info("Released DB session lock {}", name);
+            } catch (SQLException e) {
+                // the lock lives as long as the session, so never return a connection that may still hold it.
+                abortQuietly(held);
+                throw translate("SELECT pg_advisory_unlock(?)", e);
+            }
+        }
+    }
+}
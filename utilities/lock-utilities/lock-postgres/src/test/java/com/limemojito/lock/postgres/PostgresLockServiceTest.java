@@ -24,11 +24,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,7 +53,7 @@ public class PostgresLockServiceTest {
 
     @Test
     public void shouldTryToAcquireLock() {
-        doReturn(true).when(jdbcTemplate).queryForObject("SELECT pg_try_advisory_xact_lock(1462666412)", Boolean.class);
+        doReturn(true).when(jdbcTemplate).queryForObject("SELECT pg_try_advisory_xact_lock(-1112729321572228523)", Boolean.class);
 
         final Optional<DistributedLock> lock = lockService.tryAcquire("my-lock");
         if (lock.isPresent()) {
@@ -53,19 +63,19 @@ public class PostgresLockServiceTest {
         }
 
         assertThat(lock).isPresent();
-        verify(jdbcTemplate).queryForObject("SELECT pg_try_advisory_xact_lock(1462666412)", Boolean.class);
+        verify(jdbcTemplate).queryForObject("SELECT pg_try_advisory_xact_lock(-1112729321572228523)", Boolean.class);
         verifyNoMoreInteractions(jdbcTemplate);
     }
 
     @Test
     public void shouldFailTryToAcquireLock() {
         doReturn(false).when(jdbcTemplate)
-                       .queryForObject("SELECT pg_try_advisory_xact_lock(1462666412)", Boolean.class);
+                       .queryForObject("SELECT pg_try_advisory_xact_lock(-1112729321572228523)", Boolean.class);
 
         final Optional<DistributedLock> lock = lockService.tryAcquire("my-lock");
 
         assertThat(lock).isEmpty();
-        verify(jdbcTemplate).queryForObject("SELECT pg_try_advisory_xact_lock(1462666412)", Boolean.class);
+        verify(jdbcTemplate).queryForObject("SELECT pg_try_advisory_xact_lock(-1112729321572228523)", Boolean.class);
         verifyNoMoreInteractions(jdbcTemplate);
     }
 
@@ -75,7 +85,90 @@ public class PostgresLockServiceTest {
             log.info("Hello I am in exclusive lock {}", lock.getName());
             assertThat(lock.getName()).isEqualTo("my-lock");
         }
-        verify(jdbcTemplate).execute("SELECT pg_advisory_xact_lock(1462666412)");
+        verify(jdbcTemplate).execute("SELECT pg_advisory_xact_lock(-1112729321572228523)");
         verifyNoMoreInteractions(jdbcTemplate);
     }
+
+    @Test
+    public void shouldWaitForLockWithLocalTimeout() {
+        doReturn("0").when(jdbcTemplate).queryForObject("SELECT current_setting('lock_timeout')", String.class);
+
+        final Optional<DistributedLock> lock = lockService.tryAcquire("my-lock", Duration.ofMillis(200));
+
+        assertThat(lock).isPresent();
+        verify(jdbcTemplate).queryForObject("SELECT current_setting('lock_timeout')", String.class);
+        verify(jdbcTemplate).execute("SAVEPOINT limemojito_lock_wait; SET LOCAL lock_timeout = 200; "
+                                     + "SELECT pg_advisory_xact_lock(-1112729321572228523)");
+        verify(jdbcTemplate).execute("SET LOCAL lock_timeout = '0'; RELEASE SAVEPOINT limemojito_lock_wait");
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void shouldRollBackToSavepointWhenLockWaitTimesOut() {
+        doReturn("0").when(jdbcTemplate).queryForObject("SELECT current_setting('lock_timeout')", String.class);
+        doThrow(new CannotAcquireLockException("canceling statement due to lock timeout"))
+                .when(jdbcTemplate)
+                .execute("SAVEPOINT limemojito_lock_wait; SET LOCAL lock_timeout = 200; "
+                         + "SELECT pg_advisory_xact_lock(-1112729321572228523)");
+
+        final Optional<DistributedLock> lock = lockService.tryAcquire("my-lock", Duration.ofMillis(200));
+
+        assertThat(lock).isEmpty();
+        verify(jdbcTemplate).queryForObject("SELECT current_setting('lock_timeout')", String.class);
+        verify(jdbcTemplate).execute("SAVEPOINT limemojito_lock_wait; SET LOCAL lock_timeout = 200; "
+                                     + "SELECT pg_advisory_xact_lock(-1112729321572228523)");
+        verify(jdbcTemplate).execute("ROLLBACK TO SAVEPOINT limemojito_lock_wait; "
+                                     + "RELEASE SAVEPOINT limemojito_lock_wait");
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void shouldAcquireTransactionLockAsynchronouslyOnCallingThread() {
+        final CompletableFuture<DistributedLock> future = lockService.acquireAsync("my-lock");
+
+        assertThat(future).isCompleted();
+        assertThat(future.join().getName()).isEqualTo("my-lock");
+        verify(jdbcTemplate).execute("SELECT pg_advisory_xact_lock(-1112729321572228523)");
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void shouldFailAsynchronousTransactionLockOnTimeout() {
+        doThrow(new CannotAcquireLockException("canceling statement due to lock timeout"))
+                .when(jdbcTemplate)
+                .execute("SELECT pg_advisory_xact_lock(-1112729321572228523)");
+
+        assertThatThrownBy(() -> lockService.acquireAsync("my-lock").join())
+                .hasCauseInstanceOf(CannotAcquireLockException.class);
+        verify(jdbcTemplate).execute("SELECT pg_advisory_xact_lock(-1112729321572228523)");
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void shouldAcquireIndependentLocksInParallel() throws Exception {
+        // each acquire blocks in the database until both are waiting, which can only happen if they run in parallel.
+        final CountDownLatch bothWaiting = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            bothWaiting.countDown();
+            assertThat(bothWaiting.await(5, SECONDS)).isTrue();
+            return null;
+        }).when(jdbcTemplate).execute(anyString());
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            final Future<DistributedLock> first = executor.submit(() -> lockService.acquire("lock-a"));
+            final Future<DistributedLock> second = executor.submit(() -> lockService.acquire("lock-b"));
+
+            assertThat(first.get().getName()).isEqualTo("lock-a");
+            assertThat(second.get().getName()).isEqualTo("lock-b");
+        }
+        verify(jdbcTemplate, times(2)).execute(anyString());
+    }
+
+    @Test
+    public void shouldMapNamesToDistinctBigintKeys() {
+        // "Aa" and "BB" share a String.hashCode() so collided under the previous int keys.
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+        assertThat(PostgresLockService.lockKey("Aa")).isNotEqualTo(PostgresLockService.lockKey("BB"));
+        assertThat(PostgresLockService.lockKey("my-lock")).isEqualTo(-1112729321572228523L);
+    }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.lock.postgres;
+
+import com.limemojito.lock.LockService.DistributedLock;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Optional;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@Slf4j
+public class PostgresSessionLockServiceTest {
+    private static final long MY_LOCK = -1112729321572228523L;
+
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement statement;
+    @Mock
+    private ResultSet resultSet;
+    @InjectMocks
+    private PostgresSessionLockService lockService;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        doReturn(connection).when(dataSource).getConnection();
+        doReturn(statement).when(connection).prepareStatement(anyString());
+        lenient().doReturn(resultSet).when(statement).executeQuery();
+        lenient().doReturn(true).when(resultSet).next();
+    }
+
+    @AfterEach
+    void verifyMocks() {
+        verifyNoMoreInteractions(dataSource, connection);
+    }
+
+    @Test
+    public void shouldHoldConnectionUntilTryAcquiredLockIsClosed() throws SQLException {
+        doReturn(true).when(resultSet).getBoolean(1);
+
+        final Optional<DistributedLock> lock = lockService.tryAcquire("my-lock");
+        assertThat(lock).isPresent();
+        verify(connection, never()).close();
+
+        try (DistributedLock distributedLock = lock.get()) {
+            log.info("Hello I am in exclusive lock {}", distributedLock.getName());
+        }
+        lock.get().close();
+
+        verify(dataSource).getConnection();
+        verify(connection).prepareStatement("SELECT pg_try_advisory_lock(?)");
+        verify(connection).prepareStatement("SELECT pg_advisory_unlock(?)");
+        verify(statement, times(2)).setLong(1, MY_LOCK);
+        verify(connection).close();
+    }
+
+    @Test
+    public void shouldReturnConnectionWhenTryAcquireFails() throws SQLException {
+        doReturn(false).when(resultSet).getBoolean(1);
+
+        assertThat(lockService.tryAcquire("my-lock")).isEmpty();
+
+        verify(dataSource).getConnection();
+        verify(connection).prepareStatement("SELECT pg_try_advisory_lock(?)");
+        verify(connection).close();
+    }
+
+    @Test
+    public void shouldPerformAcquire() throws SQLException {
+        // only the unlock returns a boolean, pg_advisory_lock returns void.
+        doReturn(true).when(resultSet).getBoolean(1);
+
+        try (DistributedLock lock = lockService.acquire("my-lock")) {
+            assertThat(lock.getName()).isEqualTo("my-lock");
+        }
+
+        verify(dataSource).getConnection();
+        verify(connection).prepareStatement("SELECT pg_advisory_lock(?)");
+        verify(connection).prepareStatement("SELECT pg_advisory_unlock(?)");
+        verify(statement).execute();
+        verify(statement).executeQuery();
+        verify(resultSet).getBoolean(1);
+        verify(connection).close();
+    }
+
+    @Test
+    public void shouldAbortConnectionWhenAcquireFails() throws SQLException {
+        doThrow(new SQLException("connection reset", "08006")).when(statement).execute();
+
+        assertThatThrownBy(() -> lockService.acquire("my-lock")).isInstanceOf(DataAccessException.class);
+
+        verify(dataSource).getConnection();
+        verify(connection).prepareStatement("SELECT pg_advisory_lock(?)");
+        verify(connection).abort(any());
+        verify(connection).close();
+    }
+
+    @Test
+    public void shouldWaitInShortTransactionAndGiveUpAfterTimeout() throws SQLException {
+        final Statement setTimeout = mock(Statement.class);
+        doReturn(setTimeout).when(connection).createStatement();
+        doThrow(new SQLException("canceling statement due to lock timeout", "55P03")).when(statement).execute();
+
+        assertThat(lockService.tryAcquire("my-lock", Duration.ofMillis(200))).isEmpty();
+
+        verify(setTimeout).execute("SET LOCAL lock_timeout = 200");
+        verify(dataSource).getConnection();
+        verify(connection).setAutoCommit(false);
+        verify(connection).createStatement();
+        verify(connection).prepareStatement("SELECT pg_advisory_lock(?)");
+        verify(connection).rollback();
+        verify(connection).setAutoCommit(true);
+        verify(connection).close();
+    }
+
+    @Test
+    public void shouldWaitInShortTransactionWithoutReadingVoidLockResult() throws SQLException {
+        final Statement setTimeout = mock(Statement.class);
+        doReturn(setTimeout).when(connection).createStatement();
+
+        final Optional<DistributedLock> lock = lockService.tryAcquire("my-lock", Duration.ofMillis(200));
+        assertThat(lock).isPresent();
+        verify(statement).execute();
+        verify(statement, never()).executeQuery();
+        verify(connection, never()).close();
+
+        // only the unlock returns a boolean, pg_advisory_lock returns void.
+        doReturn(true).when(resultSet).getBoolean(1);
+        lock.get().close();
+
+        verify(setTimeout).execute("SET LOCAL lock_timeout = 200");
+        verify(dataSource).getConnection();
+        verify(connection).setAutoCommit(false);
+        verify(connection).createStatement();
+        verify(connection).prepareStatement("SELECT pg_advisory_lock(?)");
+        verify(connection).commit();
+        verify(connection).setAutoCommit(true);
+        verify(connection).prepareStatement("SELECT pg_advisory_unlock(?)");
+        verify(connection).close();
+    }
+
+    @Test
+    public void shouldAbortConnectionWhenCommitFailsAfterTimedLock() throws SQLException {
+        final Statement setTimeout = mock(Statement.class);
+        doReturn(setTimeout).when(connection).createStatement();
+        doThrow(new SQLException("connection reset", "08006")).when(connection).commit();
+
+        assertThatThrownBy(() -> lockService.tryAcquire("my-lock", Duration.ofMillis(200)))
+                .isInstanceOf(DataAccessException.class);
+
+        verify(dataSource).getConnection();
+        verify(connection).setAutoCommit(false);
+        verify(connection).createStatement();
+        verify(connection).prepareStatement("SELECT pg_advisory_lock(?)");
+        verify(connection).commit();
+        verify(connection, never()).rollback();
+        verify(connection).abort(any());
+        verify(connection).close();
+    }
+
+    @Test
+    public void shouldAcquireAsynchronouslyWithoutHoldingConnectionBetweenAttempts() throws Exception {
+        doReturn(false, true, true).when(resultSet).getBoolean(1);
+
+        try (DistributedLock lock = lockService.acquireAsync("my-lock").get(5, SECONDS)) {
+            assertThat(lock.getName()).isEqualTo("my-lock");
+        }
+
+        verify(dataSource, times(2)).getConnection();
+        verify(connection, times(2)).prepareStatement("SELECT pg_try_advisory_lock(?)");
+        verify(connection).prepareStatement("SELECT pg_advisory_unlock(?)");
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    public void shouldAbortConnectionWhenUnlockFails() throws SQLException {
+        final DistributedLock lock = lockService.acquire("my-lock");
+        doThrow(new SQLException("connection reset", "08006")).when(connection)
+                                                               .prepareStatement("SELECT pg_advisory_unlock(?)");
+
+        assertThatThrownBy(lock::close).isInstanceOf(DataAccessException.class);
+
+        verify(dataSource).getConnection();
+        verify(connection).prepareStatement("SELECT pg_advisory_lock(?)");
+        verify(connection).prepareStatement("SELECT pg_advisory_unlock(?)");
+        verify(connection).abort(any());
+        verify(connection).close();
+    }
+}
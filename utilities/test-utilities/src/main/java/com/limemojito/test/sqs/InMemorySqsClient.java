@@ -0,0 +1,878 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.test.sqs;
+
+import com.limemojito.aws.sqs.SqsRequestFactory;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * An {@link SqsClient} that keeps its queues in memory, so that {@link com.limemojito.aws.sqs.SqsSender},
+ * {@link com.limemojito.aws.sqs.pump.SqsPump}, {@link com.limemojito.aws.sqs.receiver.SqsReceiver} and
+ * {@link SqsSupport} can be tested and load rehearsed at memory speed without localstack or Docker.
+ * <p>
+ * Supported operations:
+ * <ul>
+ *     <li>create, delete, purge, list and look up queues, and get and set queue attributes</li>
+ *     <li>single and batch sends, with the SQS size and batch limits</li>
+ *     <li>receives with long polling, and message and system attribute selection</li>
+ *     <li>single and batch deletes and visibility changes</li>
+ *     <li>visibility timeouts, with redelivery once a timeout expires</li>
+ *     <li>FIFO queues, where a message group is not delivered while any of its messages are in flight, with
+ *     deduplication by id or content within the five minute SQS window</li>
+ *     <li>dead letter redrive through the {@code RedrivePolicy} attribute</li>
+ * </ul>
+ * Other operations throw {@link UnsupportedOperationException}.  Delays, retention periods and MD5 digests are not
+ * modelled.  A receive interrupted while long polling throws {@link AbortedException} as the SDK clients do.
+ * <p>
+ * For Spring tests, define a primary {@link SqsClient} bean returning a new instance in place of
+ * {@link com.limemojito.aws.sqs.LocalstackSqsConfig}, and create queues with
+ * {@link com.limemojito.aws.sqs.LocalstackSqsConfig#createQueue(SqsClient, String)} or {@link SqsSupport#create(String)}.
+ */
+@Slf4j
+public class InMemorySqsClient implements SqsClient {
+    /**
+     * Prefix of the URL of every queue, followed by the queue name.
+     */
+    public static final String URL_PREFIX = "https://sqs.in-memory.localhost/000000000000/";
+
+    /**
+     * Prefix of the ARN of every queue, followed by the queue name.
+     */
+    public static final String ARN_PREFIX = "arn:aws:sqs:us-east-1:000000000000:";
+
+    private static final String ALL = "All";
+    private static final String FIFO = ".fifo";
+    private static final Pattern QUEUE_NAME = Pattern.compile("[A-Za-z0-9_-]{1,75}(\\.fifo)?");
+    private static final int MAX_BATCH_ENTRIES = 10;
+    private static final long DEDUPLICATION_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final Map<String, String> DEFAULT_ATTRIBUTES = Map.of("VisibilityTimeout", "30",
+                                                                         "MaximumMessageSize", "262144",
+                                                                         "MessageRetentionPeriod", "345600",
+                                                                         "DelaySeconds", "0",
+                                                                         "ReceiveMessageWaitTimeSeconds", "0");
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    private final Map<String, InMemoryQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public CreateQueueResponse createQueue(CreateQueueRequest request) {
+        final String name = request.queueName();
+        if (name == null || !QUEUE_NAME.matcher(name).matches()) {
+            throw invalid("InvalidParameterValue", "Invalid queue name " + name);
+        }
+        final Map<String, String> attributes = request.attributesAsStrings();
+        final boolean fifo = name.endsWith(FIFO);
+        if (fifo != Boolean.parseBoolean(attributes.getOrDefault("FifoQueue", Boolean.toString(fifo)))) {
+            throw invalid("InvalidParameterValue", "FifoQueue must match a queue name ending in " + FIFO);
+        }
+        final InMemoryQueue queue = queues.computeIfAbsent(name, key -> new InMemoryQueue(key, fifo, attributes));
+        if (!queue.hasAttributes(attributes)) {
+            throw QueueNameExistsException.builder()
+                                          .message("A queue named %s already exists with different attributes".formatted(
+                                                  name))
+                                          .build();
+        }
+        log.debug("Created in memory queue {}", queue.url);
+        return CreateQueueResponse.builder().queueUrl(queue.url).build();
+    }
+
+    @Override
+    public GetQueueUrlResponse getQueueUrl(GetQueueUrlRequest request) {
+        return GetQueueUrlResponse.builder().queueUrl(queue(request.queueName()).url).build();
+    }
+
+    @Override
+    public ListQueuesResponse listQueues(ListQueuesRequest request) {
+        final String prefix = request.queueNamePrefix() == null ? "" : request.queueNamePrefix();
+        return ListQueuesResponse.builder()
+                                 .queueUrls(queues.values()
+                                                  .stream()
+                                                  .filter(queue -> queue.name.startsWith(prefix))
+                                                  .map(queue -> queue.url)
+                                                  .sorted()
+                                                  .toList())
+                                 .build();
+    }
+
+    @Override
+    public DeleteQueueResponse deleteQueue(DeleteQueueRequest request) {
+        final InMemoryQueue queue = queue(request.queueUrl());
+        queues.remove(queue.name, queue);
+        queue.delete();
+        log.debug("Deleted in memory queue {}", queue.url);
+        return DeleteQueueResponse.builder().build();
+    }
+
+    @Override
+    public PurgeQueueResponse purgeQueue(PurgeQueueRequest request) {
+        queue(request.queueUrl()).purge();
+        return PurgeQueueResponse.builder().build();
+    }
+
+    @Override
+    public GetQueueAttributesResponse getQueueAttributes(GetQueueAttributesRequest request) {
+        final Map<String, String> attributes = queue(request.queueUrl()).attributes();
+        final List<String> names = request.attributeNamesAsStrings();
+        if (!names.contains(ALL)) {
+            attributes.keySet().retainAll(names);
+        }
+        return GetQueueAttributesResponse.builder().attributesWithStrings(attributes).build();
+    }
+
+    @Override
+    public SetQueueAttributesResponse setQueueAttributes(SetQueueAttributesRequest request) {
+        queue(request.queueUrl()).setAttributes(request.attributesAsStrings());
+        return SetQueueAttributesResponse.builder().build();
+    }
+
+    @Override
+    public SendMessageResponse sendMessage(SendMessageRequest request) {
+        final InMemoryQueue queue = queue(request.queueUrl());
+        assertSize(queue, SqsRequestFactory.sizeOf(request));
+        final StoredMessage message = queue.send(request.messageBody(),
+                                                 request.messageAttributes(),
+                                                 request.messageGroupId(),
+                                                 request.messageDeduplicationId());
+        return SendMessageResponse.builder()
+                                  .messageId(message.messageId)
+                                  .sequenceNumber(message.sequenceNumber)
+                                  .build();
+    }
+
+    @Override
+    public SendMessageBatchResponse sendMessageBatch(SendMessageBatchRequest request) {
+        final InMemoryQueue queue = queue(request.queueUrl());
+        final List<SendMessageBatchRequestEntry> entries = request.entries();
+        assertBatch(entries.stream().map(SendMessageBatchRequestEntry::id).toList());
+        if (entries.stream().mapToInt(SqsRequestFactory::sizeOf).sum() > SqsRequestFactory.MAX_BATCH_BYTES) {
+            throw BatchRequestTooLongException.builder()
+                                              .message("Batch requests cannot be longer than %d bytes".formatted(
+                                                      SqsRequestFactory.MAX_BATCH_BYTES))
+                                              .build();
+        }
+        final List<SendMessageBatchResultEntry> successful = new ArrayList<>(entries.size());
+        final List<BatchResultErrorEntry> failed = new ArrayList<>();
+        for (SendMessageBatchRequestEntry entry : entries) {
+            try {
+                assertSize(queue, SqsRequestFactory.sizeOf(entry));
+                final StoredMessage message = queue.send(entry.messageBody(),
+                                                         entry.messageAttributes(),
+                                                         entry.messageGroupId(),
+                                                         entry.messageDeduplicationId());
+                successful.add(SendMessageBatchResultEntry.builder()
+                                                          .id(entry.id())
+                                                          .messageId(message.messageId)
+                                                          .sequenceNumber(message.sequenceNumber)
+                                                          .build());
+            } catch (SqsException e) {
+                failed.add(failure(entry.id(), e));
+            }
+        }
+        return SendMessageBatchResponse.builder().successful(successful).failed(failed).build();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public ReceiveMessageResponse receiveMessage(ReceiveMessageRequest request) {
+        final InMemoryQueue queue = queue(request.queueUrl());
+        final int maxMessages = request.maxNumberOfMessages() == null ? 1 : request.maxNumberOfMessages();
+        final int waitSeconds = request.waitTimeSeconds() == null
+                                ? queue.intAttribute("ReceiveMessageWaitTimeSeconds")
+                                : request.waitTimeSeconds();
+        final int visibilitySeconds = request.visibilityTimeout() == null
+                                      ? queue.intAttribute("VisibilityTimeout")
+                                      : request.visibilityTimeout();
+        assertRange("MaxNumberOfMessages", maxMessages, 1, MAX_BATCH_ENTRIES);
+        assertRange("WaitTimeSeconds", waitSeconds, 0, 20);
+        assertRange("VisibilityTimeout", visibilitySeconds, 0, 43_200);
+        final Set<String> systemAttributes = new HashSet<>(request.messageSystemAttributeNamesAsStrings());
+        systemAttributes.addAll(request.attributeNamesAsStrings());
+        final List<Message> messages = queue.receive(maxMessages,
+                                                     TimeUnit.SECONDS.toNanos(waitSeconds),
+                                                     TimeUnit.SECONDS.toNanos(visibilitySeconds),
+                                                     request.messageAttributeNames(),
+                                                     systemAttributes);
+        return ReceiveMessageResponse.builder().messages(messages).build();
+    }
+
+    @Override
+    public DeleteMessageResponse deleteMessage(DeleteMessageRequest request) {
+        queue(request.queueUrl()).delete(request.receiptHandle());
+        return DeleteMessageResponse.builder().build();
+    }
+
+    @Override
+    public DeleteMessageBatchResponse deleteMessageBatch(DeleteMessageBatchRequest request) {
+        final InMemoryQueue queue = queue(request.queueUrl());
+        final List<DeleteMessageBatchRequestEntry> entries = request.entries();
+        assertBatch(entries.stream().map(DeleteMessageBatchRequestEntry::id).toList());
+        final List<DeleteMessageBatchResultEntry> successful = new ArrayList<>(entries.size());
+        final List<BatchResultErrorEntry> failed = new ArrayList<>();
+        for (DeleteMessageBatchRequestEntry entry : entries) {
+            try {
+                queue.delete(entry.receiptHandle());
+                successful.add(DeleteMessageBatchResultEntry.builder().id(entry.id()).build());
+            } catch (SqsException e) {
+                failed.add(failure(entry.id(), e));
+            }
+        }
+        return DeleteMessageBatchResponse.builder().successful(successful).failed(failed).build();
+    }
+
+    @Override
+    public ChangeMessageVisibilityResponse changeMessageVisibility(ChangeMessageVisibilityRequest request) {
+        assertRange("VisibilityTimeout", request.visibilityTimeout(), 0, 43_200);
+        queue(request.queueUrl()).changeVisibility(request.receiptHandle(),
+                                                   TimeUnit.SECONDS.toNanos(request.visibilityTimeout()));
+        return ChangeMessageVisibilityResponse.builder().build();
+    }
+
+    @Override
+    public ChangeMessageVisibilityBatchResponse changeMessageVisibilityBatch(ChangeMessageVisibilityBatchRequest request) {
+        final InMemoryQueue queue = queue(request.queueUrl());
+        final List<ChangeMessageVisibilityBatchRequestEntry> entries = request.entries();
+        assertBatch(entries.stream().map(ChangeMessageVisibilityBatchRequestEntry::id).toList());
+        final List<ChangeMessageVisibilityBatchResultEntry> successful = new ArrayList<>(entries.size());
+        final List<BatchResultErrorEntry> failed = new ArrayList<>();
+        for (ChangeMessageVisibilityBatchRequestEntry entry : entries) {
+            try {
+                assertRange("VisibilityTimeout", entry.visibilityTimeout(), 0, 43_200);
+                queue.changeVisibility(entry.receiptHandle(), TimeUnit.SECONDS.toNanos(entry.visibilityTimeout()));
+                successful.add(ChangeMessageVisibilityBatchResultEntry.builder().id(entry.id()).build());
+            } catch (SqsException e) {
+                failed.add(failure(entry.id(), e));
+            }
+        }
+        return ChangeMessageVisibilityBatchResponse.builder().successful(successful).failed(failed).build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        log.debug("Closed in memory SQS with {} queues", queues.size());
+    }
+
+    private InMemoryQueue queue(String urlOrName) {
+        final String name = urlOrName == null ? "" : urlOrName.substring(urlOrName.lastIndexOf('/') + 1);
+        final InMemoryQueue queue = queues.get(name);
+        if (queue == null) {
+            throw queueDoesNotExist(urlOrName);
+        }
+        return queue;
+    }
+
+    private static void assertSize(InMemoryQueue queue, int size) {
+        final int maximum = queue.intAttribute("MaximumMessageSize");
+        if (size > maximum) {
+            throw invalid("InvalidParameterValue",
+                          "Message of %d bytes is longer than the queue limit of %d bytes".formatted(size, maximum));
+        }
+    }
+
+    private static void assertBatch(List<String> ids) {
+        if (ids.isEmpty()) {
+            throw EmptyBatchRequestException.builder().message("There should be at least one entry").build();
+        }
+        if (ids.size() > MAX_BATCH_ENTRIES) {
+            throw TooManyEntriesInBatchRequestException.builder()
+                                                       .message("Maximum number of entries per request are %d".formatted(
+                                                               MAX_BATCH_ENTRIES))
+                                                       .build();
+        }
+        if (new HashSet<>(ids).size() != ids.size()) {
+            throw BatchEntryIdsNotDistinctException.builder().message("Entry ids must be distinct").build();
+        }
+    }
+
+    private static void assertRange(String name, Integer value, int minimum, int maximum) {
+        if (value == null || value < minimum || value > maximum) {
+            throw invalid("InvalidParameterValue",
+                          "%s must be between %d and %d, was %s".formatted(name, minimum, maximum, value));
+        }
+    }
+
+    private static BatchResultErrorEntry failure(String id, SqsException e) {
+        return BatchResultErrorEntry.builder()
+                                    .id(id)
+                                    .code(e.awsErrorDetails() == null ? "InternalError" : e.awsErrorDetails().errorCode())
+                                    .message(e.getMessage())
+                                    .senderFault(true)
+                                    .build();
+    }
+
+    private static SqsException invalid(String code, String message) {
+        return (SqsException) SqsException.builder()
+                                          .message(message)
+                                          .statusCode(400)
+                                          .awsErrorDetails(AwsErrorDetails.builder()
+                                                                          .errorCode(code)
+                                                                          .errorMessage(message)
+                                                                          .serviceName(SERVICE_NAME)
+                                                                          .build())
+                                          .build();
+    }
+
+    private static RuntimeException queueDoesNotExist(String queue) {
+        return QueueDoesNotExistException.builder()
+                                         .message("The specified queue %s does not exist".formatted(queue))
+                                         .statusCode(400)
+                                         .build();
+    }
+
+    private static RuntimeException invalidReceiptHandle(String receiptHandle) {
+        return ReceiptHandleIsInvalidException.builder()
+                                              .message("The receipt handle %s is not valid".formatted(receiptHandle))
+                                              .statusCode(400)
+                                              .awsErrorDetails(AwsErrorDetails.builder()
+                                                                              .errorCode("ReceiptHandleIsInvalid")
+                                                                              .build())
+                                              .build();
+    }
+
+    private static String randomId() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+
+    @SneakyThrows
+    private static String sha256(String body) {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body.getBytes(UTF_8)));
+    }
+
+    private static boolean isSelected(String name, Collection<String> selected) {
+        for (String selection : selected) {
+            if (ALL.equals(selection)
+                    || ".*".equals(selection)
+                    || selection.equals(name)
+                    || selection.endsWith(".*") && name.startsWith(selection.substring(0, selection.length() - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A message in a queue.  Fields are guarded by the lock of the queue holding the message.
+     */
+    private static final class StoredMessage {
+        private final String messageId;
+        private final String body;
+        private final Map<String, MessageAttributeValue> messageAttributes;
+        private final String messageGroupId;
+        private final String messageDeduplicationId;
+        private final String sequenceNumber;
+        private final long sentTimestamp;
+        private int receiveCount;
+        private long firstReceiveTimestamp;
+        private String receiptHandle;
+        private boolean inFlight;
+        private long visibleAtNanos;
+
+        private StoredMessage(String messageId,
+                              String body,
+                              Map<String, MessageAttributeValue> messageAttributes,
+                              String messageGroupId,
+                              String messageDeduplicationId,
+                              String sequenceNumber,
+                              long sentTimestamp) {
+            this.messageId = messageId;
+            this.body = body;
+            this.messageAttributes = messageAttributes;
+            this.messageGroupId = messageGroupId;
+            this.messageDeduplicationId = messageDeduplicationId;
+            this.sequenceNumber = sequenceNumber;
+            this.sentTimestamp = sentTimestamp;
+        }
+    }
+
+    /**
+     * A scheduled return of an in flight message to the queue.  Stale once the message is deleted, returned or has
+     * its visibility changed.
+     */
+    private record Visibility(StoredMessage message, long visibleAtNanos) {
+        private boolean isCurrent() {
+            return message.inFlight && message.visibleAtNanos == visibleAtNanos;
+        }
+    }
+
+    private record Deduplicated(StoredMessage message, long expiresNanos) {
+    }
+
+    private final class InMemoryQueue {
+        private final String name;
+        private final String url;
+        private final String arn;
+        private final boolean fifo;
+        private final long createdTimestamp = System.currentTimeMillis();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final Map<String, String> configured = new HashMap<>(DEFAULT_ATTRIBUTES);
+        // standard queues: visible messages in arrival order.
+        private final ArrayDeque<StoredMessage> ready = new ArrayDeque<>();
+        // FIFO queues: every message by group, in flight messages stay at the head of their group.
+        private final LinkedHashMap<String, ArrayDeque<StoredMessage>> groups = new LinkedHashMap<>();
+        private final Map<String, Integer> groupsInFlight = new HashMap<>();
+        private final PriorityQueue<Visibility> visibilities =
+                new PriorityQueue<>(Comparator.comparingLong(Visibility::visibleAtNanos));
+        private final Map<String, StoredMessage> receipts = new HashMap<>();
+        private final LinkedHashMap<String, Deduplicated> deduplication = new LinkedHashMap<>();
+        private int size;
+        private int inFlight;
+        private long lastModifiedTimestamp = createdTimestamp;
+        private String deadLetterQueueName;
+        private int maxReceiveCount;
+        private boolean deleted;
+
+        private InMemoryQueue(String name, boolean fifo, Map<String, String> attributes) {
+            this.name = name;
+            this.url = URL_PREFIX + name;
+            this.arn = ARN_PREFIX + name;
+            this.fifo = fifo;
+            if (fifo) {
+                configured.put("FifoQueue", "true");
+                configured.put("ContentBasedDeduplication", "false");
+            }
+            setAttributes(attributes);
+        }
+
+        private boolean hasAttributes(Map<String, String> attributes) {
+            lock.lock();
+            try {
+                return attributes.entrySet()
+                                 .stream()
+                                 .allMatch(attribute -> attribute.getValue().equals(configured.get(attribute.getKey())));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void setAttributes(Map<String, String> attributes) {
+            lock.lock();
+            try {
+                configured.putAll(attributes);
+                lastModifiedTimestamp = System.currentTimeMillis();
+                final String redrivePolicy = configured.get("RedrivePolicy");
+                if (redrivePolicy == null || redrivePolicy.isBlank()) {
+                    deadLetterQueueName = null;
+                    maxReceiveCount = 0;
+                } else {
+                    final Map<?, ?> policy = JSON.readValue(redrivePolicy, Map.class);
+                    final String deadLetterArn = String.valueOf(policy.get("deadLetterTargetArn"));
+                    deadLetterQueueName = deadLetterArn.substring(deadLetterArn.lastIndexOf(':') + 1);
+                    maxReceiveCount = Integer.parseInt(String.valueOf(policy.get("maxReceiveCount")));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int intAttribute(String attributeName) {
+            lock.lock();
+            try {
+                return Integer.parseInt(configured.get(attributeName));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Map<String, String> attributes() {
+            lock.lock();
+            try {
+                final Map<String, String> attributes = new HashMap<>(configured);
+                attributes.put("QueueArn", arn);
+                attributes.put("ApproximateNumberOfMessages", Integer.toString(size - inFlight));
+                attributes.put("ApproximateNumberOfMessagesNotVisible", Integer.toString(inFlight));
+                attributes.put("ApproximateNumberOfMessagesDelayed", "0");
+                attributes.put("CreatedTimestamp", Long.toString(TimeUnit.MILLISECONDS.toSeconds(createdTimestamp)));
+                attributes.put("LastModifiedTimestamp",
+                               Long.toString(TimeUnit.MILLISECONDS.toSeconds(lastModifiedTimestamp)));
+                return attributes;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private StoredMessage send(String body,
+                                   Map<String, MessageAttributeValue> messageAttributes,
+                                   String messageGroupId,
+                                   String messageDeduplicationId) {
+            if (body == null || body.isEmpty()) {
+                throw invalid("MissingParameter", "The request must contain the parameter MessageBody");
+            }
+            if (fifo && messageGroupId == null) {
+                throw invalid("MissingParameter", "The request must contain the parameter MessageGroupId");
+            }
+            lock.lock();
+            try {
+                assertNotDeleted();
+                String deduplicationId = null;
+                if (fifo) {
+                    deduplicationId = deduplicationId(body, messageDeduplicationId);
+                    final Deduplicated duplicate = deduplication.get(deduplicationId);
+                    if (duplicate != null) {
+                        log.trace("Deduplicated message {} on {}", deduplicationId, url);
+                        return duplicate.message;
+                    }
+                }
+                final StoredMessage message = new StoredMessage(randomId(),
+                                                                body,
+                                                                messageAttributes,
+                                                                fifo ? messageGroupId : null,
+                                                                deduplicationId,
+                                                                fifo ? "%020d".formatted(sequence.incrementAndGet()) : null,
+                                                                System.currentTimeMillis());
+                if (fifo) {
+                    deduplication.put(deduplicationId,
+                                      new Deduplicated(message, System.nanoTime() + DEDUPLICATION_WINDOW_NANOS));
+                }
+                add(message);
+                return message;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void redrive(StoredMessage deadLetter) {
+            final StoredMessage message = new StoredMessage(deadLetter.messageId,
+                                                            deadLetter.body,
+                                                            deadLetter.messageAttributes,
+                                                            fifo ? deadLetter.messageGroupId : null,
+                                                            fifo ? deadLetter.messageDeduplicationId : null,
+                                                            fifo ? deadLetter.sequenceNumber : null,
+                                                            deadLetter.sentTimestamp);
+            lock.lock();
+            try {
+                assertNotDeleted();
+                add(message);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<Message> receive(int maxMessages,
+                                      long waitNanos,
+                                      long visibilityNanos,
+                                      Collection<String> messageAttributeNames,
+                                      Collection<String> systemAttributeNames) {
+            final long deadline = System.nanoTime() + waitNanos;
+            final List<StoredMessage> deadLetters = new ArrayList<>();
+            final List<Message> messages = new ArrayList<>(maxMessages);
+            InMemoryQueue deadLetterQueue = null;
+            lock.lock();
+            try {
+                if (deadLetterQueueName != null) {
+                    deadLetterQueue = queues.get(deadLetterQueueName);
+                }
+                while (true) {
+                    assertNotDeleted();
+                    final long now = System.nanoTime();
+                    returnExpired(now);
+                    for (StoredMessage message : take(maxMessages, deadLetterQueue != null, deadLetters)) {
+                        deliver(message, now + visibilityNanos);
+                        messages.add(toMessage(message, messageAttributeNames, systemAttributeNames));
+                    }
+                    final long remaining = deadline - now;
+                    if (!messages.isEmpty() || remaining <= 0) {
+                        break;
+                    }
+                    final Visibility next = visibilities.peek();
+                    final long untilVisible = next == null ? remaining : Math.max(next.visibleAtNanos - now, 1L);
+                    changed.awaitNanos(Math.min(remaining, untilVisible));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw AbortedException.builder().message("Receive from " + url + " interrupted").cause(e).build();
+            } finally {
+                lock.unlock();
+                for (StoredMessage deadLetter : deadLetters) {
+                    log.debug("Moving message {} from {} to {}", deadLetter.messageId, url, deadLetterQueue.url);
+                    deadLetterQueue.redrive(deadLetter);
+                }
+            }
+            return messages;
+        }
+
+        private void delete(String receiptHandle) {
+            lock.lock();
+            try {
+                assertNotDeleted();
+                final StoredMessage message = receipts.remove(receiptHandle);
+                if (message == null) {
+                    throw invalidReceiptHandle(receiptHandle);
+                }
+                remove(message);
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void changeVisibility(String receiptHandle, long visibilityNanos) {
+            lock.lock();
+            try {
+                assertNotDeleted();
+                final StoredMessage message = receipts.get(receiptHandle);
+                if (message == null) {
+                    throw invalidReceiptHandle(receiptHandle);
+                }
+                if (!message.inFlight) {
+                    throw MessageNotInflightException.builder()
+                                                     .message("Message %s is not in flight".formatted(message.messageId))
+                                                     .statusCode(400)
+                                                     .awsErrorDetails(AwsErrorDetails.builder()
+                                                                                     .errorCode("MessageNotInflight")
+                                                                                     .build())
+                                                     .build();
+                }
+                message.visibleAtNanos = System.nanoTime() + visibilityNanos;
+                visibilities.add(new Visibility(message, message.visibleAtNanos));
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void purge() {
+            lock.lock();
+            try {
+                assertNotDeleted();
+                ready.clear();
+                groups.clear();
+                groupsInFlight.clear();
+                visibilities.clear();
+                receipts.clear();
+                size = 0;
+                inFlight = 0;
+                log.debug("Purged in memory queue {}", url);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void delete() {
+            lock.lock();
+            try {
+                deleted = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void assertNotDeleted() {
+            if (deleted) {
+                throw queueDoesNotExist(url);
+            }
+        }
+
+        private String deduplicationId(String body, String messageDeduplicationId) {
+            if (messageDeduplicationId != null) {
+                pruneDeduplication();
+                return messageDeduplicationId;
+            }
+            if (Boolean.parseBoolean(configured.get("ContentBasedDeduplication"))) {
+                pruneDeduplication();
+                return sha256(body);
+            }
+            throw invalid("InvalidParameterValue",
+                          "The queue should either have ContentBasedDeduplication enabled or MessageDeduplicationId "
+                          + "provided explicitly");
+        }
+
+        private void pruneDeduplication() {
+            final long now = System.nanoTime();
+            final Iterator<Deduplicated> oldest = deduplication.values().iterator();
+            while (oldest.hasNext() && oldest.next().expiresNanos - now <= 0) {
+                oldest.remove();
+            }
+        }
+
+        private void add(StoredMessage message) {
+            if (fifo) {
+                groups.computeIfAbsent(message.messageGroupId, group -> new ArrayDeque<>()).addLast(message);
+            } else {
+                ready.addLast(message);
+            }
+            size++;
+            changed.signalAll();
+        }
+
+        private void returnExpired(long now) {
+            Visibility next = visibilities.peek();
+            while (next != null && next.visibleAtNanos - now <= 0) {
+                visibilities.poll();
+                if (next.isCurrent()) {
+                    final StoredMessage message = next.message;
+                    message.inFlight = false;
+                    inFlight--;
+                    if (fifo) {
+                        releaseGroup(message.messageGroupId);
+                    } else {
+                        ready.addLast(message);
+                    }
+                }
+                next = visibilities.peek();
+            }
+        }
+
+        private List<StoredMessage> take(int maxMessages, boolean redrive, List<StoredMessage> deadLetters) {
+            final List<StoredMessage> taken = new ArrayList<>(maxMessages);
+            if (fifo) {
+                final Iterator<Map.Entry<String, ArrayDeque<StoredMessage>>> groupIterator = groups.entrySet()
+                                                                                                  .iterator();
+                while (taken.size() < maxMessages && groupIterator.hasNext()) {
+                    final Map.Entry<String, ArrayDeque<StoredMessage>> group = groupIterator.next();
+                    if (groupsInFlight.containsKey(group.getKey())) {
+                        continue;
+                    }
+                    final Iterator<StoredMessage> messages = group.getValue().iterator();
+                    while (taken.size() < maxMessages && messages.hasNext()) {
+                        final StoredMessage message = messages.next();
+                        if (redrive && message.receiveCount >= maxReceiveCount) {
+                            messages.remove();
+                            deadLetter(message, deadLetters);
+                        } else {
+                            taken.add(message);
+                        }
+                    }
+                    if (group.getValue().isEmpty()) {
+                        groupIterator.remove();
+                    }
+                }
+            } else {
+                while (taken.size() < maxMessages && !ready.isEmpty()) {
+                    final StoredMessage message = ready.pollFirst();
+                    if (redrive && message.receiveCount >= maxReceiveCount) {
+                        deadLetter(message, deadLetters);
+                    } else {
+                        taken.add(message);
+                    }
+                }
+            }
+            return taken;
+        }
+
+        private void deadLetter(StoredMessage message, List<StoredMessage> deadLetters) {
+            if (message.receiptHandle != null) {
+                receipts.remove(message.receiptHandle);
+            }
+            size--;
+            deadLetters.add(message);
+        }
+
+        private void deliver(StoredMessage message, long visibleAtNanos) {
+            if (message.receiptHandle != null) {
+                receipts.remove(message.receiptHandle);
+            }
+            message.receiveCount++;
+            if (message.firstReceiveTimestamp == 0) {
+                message.firstReceiveTimestamp = System.currentTimeMillis();
+            }
+            message.receiptHandle = message.messageId + "#" + sequence.incrementAndGet();
+            message.inFlight = true;
+            message.visibleAtNanos = visibleAtNanos;
+            receipts.put(message.receiptHandle, message);
+            visibilities.add(new Visibility(message, visibleAtNanos));
+            inFlight++;
+            if (fifo) {
+                groupsInFlight.merge(message.messageGroupId, 1, Integer::sum);
+            }
+        }
+
+        private void remove(StoredMessage message) {
+            size--;
+            if (message.inFlight) {
+                message.inFlight = false;
+                inFlight--;
+                if (fifo) {
+                    releaseGroup(message.messageGroupId);
+                }
+            } else if (!fifo) {
+                // deleted with the handle of an earlier receive after its visibility expired.
+                ready.remove(message);
+            }
+            if (fifo) {
+                final ArrayDeque<StoredMessage> group = groups.get(message.messageGroupId);
+                group.remove(message);
+                if (group.isEmpty()) {
+                    groups.remove(message.messageGroupId);
+                }
+            }
+        }
+
+        private void releaseGroup(String messageGroupId) {
+            groupsInFlight.merge(messageGroupId, -1, (count, change) -> count + change == 0 ? null : count + change);
+        }
+
+        private Message toMessage(StoredMessage message,
+                                  Collection<String> messageAttributeNames,
+                                  Collection<String> systemAttributeNames) {
+            final Message.Builder builder = Message.builder()
+                                                   .messageId(message.messageId)
+                                                   .receiptHandle(message.receiptHandle)
+                                                   .body(message.body);
+            if (!messageAttributeNames.isEmpty() && !message.messageAttributes.isEmpty()) {
+                final Map<String, MessageAttributeValue> attributes = new HashMap<>();
+                message.messageAttributes.forEach((key, value) -> {
+                    if (isSelected(key, messageAttributeNames)) {
+                        attributes.put(key, value);
+                    }
+                });
+                builder.messageAttributes(attributes);
+            }
+            if (!systemAttributeNames.isEmpty()) {
+                final Map<String, String> system = new HashMap<>();
+                system.put("SenderId", "000000000000");
+                system.put("SentTimestamp", Long.toString(message.sentTimestamp));
+                system.put("ApproximateReceiveCount", Integer.toString(message.receiveCount));
+                system.put("ApproximateFirstReceiveTimestamp", Long.toString(message.firstReceiveTimestamp));
+                if (fifo) {
+                    system.put("MessageGroupId", message.messageGroupId);
+                    system.put("MessageDeduplicationId", message.messageDeduplicationId);
+                    system.put("SequenceNumber", message.sequenceNumber);
+                }
+                system.keySet().removeIf(key -> !isSelected(key, systemAttributeNames));
+                builder.attributesWithStrings(system);
+            }
+            return builder.build();
+        }
+    }
+}
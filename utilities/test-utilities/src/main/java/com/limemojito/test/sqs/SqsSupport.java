@@ -26,8 +26,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.policybuilder.iam.IamPolicy;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.GetQueueAttributesResponse;
 import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.PurgeQueueInProgressException;
 import software.amazon.awssdk.services.sqs.model.QueueDoesNotExistException;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
 import tools.jackson.databind.json.JsonMapper;
@@ -36,8 +40,12 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
+import static com.limemojito.aws.sqs.SqsRequestFactory.MAX_BATCH_ENTRIES;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
 import static software.amazon.awssdk.policybuilder.iam.IamConditionOperator.ARN_LIKE;
@@ -79,6 +87,11 @@ public class SqsSupport {
      * It is a final int variable with a value of 20.
      */
     public static final int MAX_POLL = 20;
+    /**
+     * The PURGE_WORKERS constant is the default number of concurrent receive and delete workers used by a purge.
+     */
+    public static final int PURGE_WORKERS = 4;
+    private static final int MAX_PURGE_ITERATIONS = 1000;
 
     private final SqsClient sqs;
     private final SqsSender sqsSender;
@@ -220,23 +233,8 @@ public class SqsSupport {
      * @see #MEDIUM_POLL
      * @see #MAX_POLL
      */
-    @SneakyThrows
     public List<Message> waitForMessages(String queueName, int waitTimeSeconds) {
-        if (waitTimeSeconds > MAX_POLL) {
-            throw new IllegalArgumentException(format("Max wait time for SQS poll is %d seconds", MAX_POLL));
-        }
-        final String queueUrl = getQueueUrl(queueName);
-        final ReceiveMessageResponse result = sqs.receiveMessage(req -> req.queueUrl(queueUrl)
-                                                                           .waitTimeSeconds(waitTimeSeconds));
-        final List<Message> messages = result.messages();
-        if (messages.isEmpty()) {
-            throw new TimeoutException("Gave up waiting for message on " + queueName);
-        } else {
-            // acknowledge messages
-            messages.forEach(m -> sqs.deleteMessage(req -> req.queueUrl(queueUrl).receiptHandle(m.receiptHandle())));
-            log.info("Received {} messages", messages.size());
-            return messages;
-        }
+        return receiveAndDelete(queueName, waitTimeSeconds, 1);
     }
 
     /**
@@ -393,7 +391,8 @@ public class SqsSupport {
         final long maxWaitTime = Instant.now().plusSeconds(waitUntilTimeSeconds).toEpochMilli();
         final List<Message> totalMessages = new ArrayList<>(messageCountMin);
         while (totalMessages.size() < messageCountMin && System.currentTimeMillis() < maxWaitTime) {
-            totalMessages.addAll(waitForMessages(queueName, pollSeconds));
+            final int maxMessages = Math.min(MAX_BATCH_ENTRIES, messageCountMin - totalMessages.size());
+            totalMessages.addAll(receiveAndDelete(queueName, pollSeconds, maxMessages));
         }
         if (totalMessages.size() < messageCountMin) {
             throw new TimeoutException(format("Could not collect %d messages in %d seconds. (%d/%d)",
@@ -516,33 +515,61 @@ public class SqsSupport {
     }
 
     /**
-     * Purges all messages from the specified queue using individual deletes.
-     * Will stop after 1000 iterations to prevent infinite loops.
+     * Purges all messages from the specified queue with PURGE_WORKERS concurrent receive and batch delete workers.
+     * Each worker stops after 1000 receives to prevent infinite loops.
      *
      * @param queueName the name of the queue to purge
+     * @see #PURGE_WORKERS
      */
     public void purge(String queueName) {
-        final String url = getQueueUrl(queueName);
-        ReceiveMessageResponse receiveMessageResult = sqs.receiveMessage(r -> r.queueUrl(url));
-        int count = 0;
-        int iterations = 0;
-        final int maxIterations = 1000;
+        purge(queueName, PURGE_WORKERS);
+    }
 
-        while (!receiveMessageResult.messages().isEmpty() && iterations < maxIterations) {
-            final List<Message> messages = receiveMessageResult.messages();
-            for (Message message : messages) {
-                sqs.deleteMessage(r -> r.queueUrl(url).receiptHandle(message.receiptHandle()));
-                count++;
+    /**
+     * Purges all messages from the specified queue with concurrent workers on virtual threads that each receive up to
+     * ten messages at a time and delete them with a single batch delete.  Workers drain with short polls, and stop once
+     * a short poll and a following one second long poll both find the queue empty.  A worker whose first short poll
+     * finds nothing stops at once when the queue reports no visible or in flight messages, so purging an empty queue
+     * does not wait for the long poll.  Each worker stops after 1000 receives to prevent infinite loops.
+     *
+     * @param queueName the name of the queue to purge
+     * @param workers   the number of concurrent receive and delete workers.
+     */
+    @SneakyThrows
+    public void purge(String queueName, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Purge requires at least one worker");
+        }
+        final String url = getQueueUrl(queueName);
+        final List<Future<Integer>> workerCounts = new ArrayList<>(workers);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < workers; i++) {
+                workerCounts.add(executor.submit(() -> purgeWorker(queueName, url)));
             }
-            receiveMessageResult = sqs.receiveMessage(r -> r.queueUrl(url));
-            iterations++;
         }
+        int count = 0;
+        for (Future<Integer> workerCount : workerCounts) {
+            count += workerCount.get();
+        }
+        log.info("Purged {} messages from {} with {} workers", count, queueName, workers);
+    }
 
-        if (iterations >= maxIterations) {
-            log.warn("Reached maximum iterations ({}) while purging queue {}. Purged {} messages but there may be more.",
-                     maxIterations, queueName, count);
-        } else {
-            log.info("Purged {} messages", count);
+    /**
+     * Purges all messages from the specified queue with the SQS PurgeQueue API.  This is a single call however large the
+     * queue, but SQS allows one purge per queue every 60 seconds and takes up to 60 seconds to finish deleting, during
+     * which messages sent to the queue may also be deleted.  If a purge of the queue is already in progress this falls
+     * back to {@link #purge(String)}.
+     *
+     * @param queueName the name of the queue to purge
+     */
+    public void purgeQueue(String queueName) {
+        final String url = getQueueUrl(queueName);
+        try {
+            sqs.purgeQueue(r -> r.queueUrl(url));
+            log.info("Purging queue {}", queueName);
+        } catch (PurgeQueueInProgressException e) {
+            log.info("Purge of {} already in progress, deleting messages instead", queueName);
+            purge(queueName);
         }
     }
 
@@ -599,6 +626,84 @@ public class SqsSupport {
         sqs.setQueueAttributes(b -> b.queueUrl(queueUrl).attributes(Map.of(POLICY, policy)));
     }
 
+    @SneakyThrows
+    private List<Message> receiveAndDelete(String queueName, int waitTimeSeconds, int maxMessages) {
+        if (waitTimeSeconds > MAX_POLL) {
+            throw new IllegalArgumentException(format("Max wait time for SQS poll is %d seconds", MAX_POLL));
+        }
+        final String queueUrl = getQueueUrl(queueName);
+        final ReceiveMessageResponse result = sqs.receiveMessage(req -> req.queueUrl(queueUrl)
+                                                                           .maxNumberOfMessages(maxMessages)
+                                                                           .waitTimeSeconds(waitTimeSeconds));
+        final List<Message> messages = result.messages();
+        if (messages.isEmpty()) {
+            throw new TimeoutException("Gave up waiting for message on " + queueName);
+        } else {
+            // acknowledge messages
+            deleteAll(queueUrl, messages);
+            log.info("Received {} messages", messages.size());
+            return messages;
+        }
+    }
+
+    private int purgeWorker(String queueName, String url) {
+        int count = 0;
+        int iterations = 0;
+        boolean confirming = false;
+        while (iterations < MAX_PURGE_ITERATIONS) {
+            // short polls sample some SQS servers and return at once, so drain with them and confirm an empty
+            // response with a one second long poll, which checks every server.
+            final int waitTimeSeconds = confirming ? 1 : 0;
+            final List<Message> messages = sqs.receiveMessage(r -> r.queueUrl(url)
+                                                                    .maxNumberOfMessages(MAX_BATCH_ENTRIES)
+                                                                    .waitTimeSeconds(waitTimeSeconds)).messages();
+            iterations++;
+            if (messages.isEmpty()) {
+                // an already empty queue needs no confirming long poll.
+                if (confirming || (iterations == 1 && isEmpty(url))) {
+                    return count;
+                }
+                confirming = true;
+            } else {
+                deleteAll(url, messages);
+                count += messages.size();
+                confirming = false;
+            }
+        }
+        log.warn("Reached maximum iterations ({}) while purging queue {}. Purged {} messages but there may be more.",
+                 MAX_PURGE_ITERATIONS, queueName, count);
+        return count;
+    }
+
+    private boolean isEmpty(String url) {
+        final List<String> keys = List.of("ApproximateNumberOfMessages", "ApproximateNumberOfMessagesNotVisible");
+        final Map<String, String> attributes = sqs.getQueueAttributes(r -> r.queueUrl(url)
+                                                                            .attributeNamesWithStrings(keys))
+                                                  .attributesAsStrings();
+        return keys.stream().allMatch(key -> "0".equals(attributes.getOrDefault(key, "0")));
+    }
+
+    private void deleteAll(String queueUrl, List<Message> messages) {
+        for (int from = 0; from < messages.size(); from += MAX_BATCH_ENTRIES) {
+            final List<Message> batch = messages.subList(from, Math.min(from + MAX_BATCH_ENTRIES, messages.size()));
+            final List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                entries.add(DeleteMessageBatchRequestEntry.builder()
+                                                          .id(Integer.toString(i))
+                                                          .receiptHandle(batch.get(i).receiptHandle())
+                                                          .build());
+            }
+            final DeleteMessageBatchResponse response = sqs.deleteMessageBatch(r -> r.queueUrl(queueUrl)
+                                                                                     .entries(entries));
+            for (BatchResultErrorEntry failed : response.failed()) {
+                log.warn("Could not delete message {} from {}: {}",
+                         batch.get(Integer.parseInt(failed.id())).messageId(),
+                         queueUrl,
+                         failed.code());
+            }
+        }
+    }
+
     @SneakyThrows
     private <T> T toObject(String json, TypeReference<T> type) {
         return objectMapper.readValue(json, type);
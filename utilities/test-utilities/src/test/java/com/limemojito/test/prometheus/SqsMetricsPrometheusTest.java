@@ -0,0 +1,62 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.test.prometheus;
+
+import com.limemojito.aws.sqs.SqsMetrics;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqsMetricsPrometheusTest {
+    private final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    // gauges hold their object weakly.
+    private final int[] buffered = {7};
+    private final PrometheusMetrics metrics = new PrometheusMetrics(WebClient.builder()
+                                                                             .exchangeFunction(request -> scrape())
+                                                                             .build());
+
+    @Test
+    public void shouldReadSqsMetricsFromScrape() {
+        final SqsMetrics sqsMetrics = new SqsMetrics(registry);
+        sqsMetrics.recordSend("https://sqs.local/123/orders", 10, 40_000, TimeUnit.MILLISECONDS.toNanos(12), 2, true);
+        sqsMetrics.recordRetries("orders", 2);
+        sqsMetrics.gaugeBuffered("orders", buffered, depth -> depth[0]);
+
+        final Map<String, String> orders = Map.of("destination", "orders");
+        assertThat(metrics.getValue("sqs_send_seconds_count", Map.of("destination", "orders", "outcome", "success")))
+                .isEqualByComparingTo("1");
+        assertThat(metrics.getValue("sqs_send_batch_size_sum", orders)).isEqualByComparingTo("10");
+        assertThat(metrics.getValue("sqs_send_batch_bytes_sum", orders)).isEqualByComparingTo("40000");
+        assertThat(metrics.getValue("sqs_send_failed_entries_total", orders)).isEqualByComparingTo("2");
+        assertThat(metrics.getValue("sqs_pump_retries_total", orders)).isEqualByComparingTo("2");
+        assertThat(metrics.getValue("sqs_pump_buffered", orders)).isEqualByComparingTo("7");
+    }
+
+    private Mono<ClientResponse> scrape() {
+        return Mono.just(ClientResponse.create(HttpStatus.OK).body(registry.scrape()).build());
+    }
+}
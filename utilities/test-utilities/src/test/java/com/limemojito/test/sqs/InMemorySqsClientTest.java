@@ -0,0 +1,158 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.test.sqs;
+
+import com.limemojito.aws.sqs.LocalstackSqsConfig;
+import com.limemojito.aws.sqs.SqsBatchMessage;
+import com.limemojito.aws.sqs.SqsSender;
+import com.limemojito.aws.sqs.pump.SqsPump;
+import com.limemojito.json.JsonMapperPrototype;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static com.limemojito.aws.sqs.SqsSender.ATTRIBUTE_MESSAGE_DEDUPLICATION_ID;
+import static com.limemojito.aws.sqs.SqsSender.ATTRIBUTE_MESSAGE_GROUP_ID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InMemorySqsClientTest {
+    private final JsonMapper jsonMapper = JsonMapperPrototype.buildBootLikeMapper();
+    private final InMemorySqsClient sqs = new InMemorySqsClient();
+    private final SqsSender sender = new SqsSender(sqs, jsonMapper);
+    private final SqsSupport sqsSupport = new SqsSupport(sqs, sender, jsonMapper);
+
+    @AfterEach
+    void tearDown() {
+        sqs.close();
+    }
+
+    @Test
+    public void shouldSendAndReceiveThroughSqsSupport() {
+        sqsSupport.create("orders");
+
+        sqsSupport.convertAndSend("orders", Map.of("id", 1));
+
+        assertThat(sqsSupport.getQueueCount("orders")).isEqualTo(1);
+        assertThat(sqsSupport.waitForMessages("orders", SqsSupport.SHORT_POLL, Map.class))
+                .containsExactly(Map.of("id", 1));
+        assertThat(sqsSupport.getQueueCount("orders")).isZero();
+    }
+
+    @Test
+    public void shouldOnlyReturnRequestedMessageAttributes() {
+        final String url = sqsSupport.create("orders");
+        sender.send(url, "hello", Map.of("custom", "value"));
+
+        final ReceiveMessageRequest.Builder request = ReceiveMessageRequest.builder()
+                                                                           .messageAttributeNames("custom")
+                                                                           .messageSystemAttributeNamesWithStrings(
+                                                                                   "ApproximateReceiveCount");
+
+        final Message message = receive(url, 10, request).getFirst();
+
+        assertThat(message.messageAttributes()).containsOnlyKeys("custom");
+        assertThat(message.attributesAsStrings()).containsEntry("ApproximateReceiveCount", "1").hasSize(1);
+    }
+
+    @Test
+    public void shouldHoldFifoGroupWhileMessagesAreInFlight() {
+        final String url = LocalstackSqsConfig.createQueue(sqs, "orders.fifo", false).queueUrl();
+        sender.sendBatchMessages(url, List.of(fifo("a", 1), fifo("a", 2), fifo("b", 3)));
+
+        final List<Message> first = receive(url, 2, ReceiveMessageRequest.builder());
+        assertThat(first).extracting(Message::body).containsExactly("1", "2");
+        // group a is in flight, so only group b is delivered.
+        final List<Message> second = receive(url, 10, ReceiveMessageRequest.builder());
+        assertThat(second).extracting(Message::body).containsExactly("3");
+        assertThat(receive(url, 10, ReceiveMessageRequest.builder())).isEmpty();
+
+        sqs.changeMessageVisibility(r -> r.queueUrl(url)
+                                          .receiptHandle(first.get(1).receiptHandle())
+                                          .visibilityTimeout(0));
+        sqs.deleteMessage(r -> r.queueUrl(url).receiptHandle(first.get(0).receiptHandle()));
+
+        assertThat(receive(url, 10, ReceiveMessageRequest.builder())).extracting(Message::body).containsExactly("2");
+    }
+
+    @Test
+    public void shouldDeduplicateFifoMessagesWithinWindow() {
+        final String url = LocalstackSqsConfig.createQueue(sqs, "orders.fifo", false).queueUrl();
+
+        final SendMessageResponse first = sqs.sendMessage(r -> r.queueUrl(url).messageBody("1").messageGroupId("a"));
+        final SendMessageResponse second = sqs.sendMessage(r -> r.queueUrl(url).messageBody("1").messageGroupId("a"));
+
+        assertThat(second.messageId()).isEqualTo(first.messageId());
+        assertThat(sqsSupport.getQueueCount("orders.fifo")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRedriveToDeadLetterQueueAfterMaxReceives() {
+        final String url = LocalstackSqsConfig.createQueue(sqs, "orders").queueUrl();
+        sender.send(url, "poison");
+
+        final Message received = receive(url, 1, ReceiveMessageRequest.builder()).getFirst();
+        sqs.changeMessageVisibility(r -> r.queueUrl(url).receiptHandle(received.receiptHandle()).visibilityTimeout(0));
+
+        assertThat(receive(url, 1, ReceiveMessageRequest.builder())).isEmpty();
+        final Message deadLetter = receive(sqsSupport.getQueueUrl("orders-dlq"), 1, ReceiveMessageRequest.builder())
+                .getFirst();
+        assertThat(deadLetter.messageId()).isEqualTo(received.messageId());
+        assertThat(deadLetter.body()).isEqualTo("\"poison\"");
+    }
+
+    @Test
+    public void shouldRejectInvalidBatchesAndReceiptHandles() {
+        final String url = sqsSupport.create("orders");
+
+        assertThatThrownBy(() -> sqs.sendMessageBatch(r -> r.queueUrl(url).entries(List.of())))
+                .isInstanceOf(EmptyBatchRequestException.class);
+        assertThatThrownBy(() -> sqs.deleteMessage(r -> r.queueUrl(url).receiptHandle("unknown")))
+                .isInstanceOf(ReceiptHandleIsInvalidException.class);
+        assertThatThrownBy(() -> sqs.getQueueUrl(r -> r.queueName("missing")))
+                .isInstanceOf(QueueDoesNotExistException.class);
+        final DeleteMessageBatchResponse response = sqs.deleteMessageBatch(
+                r -> r.queueUrl(url).entries(e -> e.id("0").receiptHandle("unknown")));
+        assertThat(response.failed()).extracting(BatchResultErrorEntry::code).containsExactly("ReceiptHandleIsInvalid");
+    }
+
+    @Test
+    public void shouldPumpMessagesFromManyThreads() {
+        final String url = sqsSupport.create("orders");
+        try (SqsPump pump = new SqsPump(sender, 10)) {
+            IntStream.range(0, 1_000).parallel().forEach(i -> pump.send(url, i));
+        }
+
+        assertThat(sqsSupport.getQueueCount("orders")).isEqualTo(1_000);
+    }
+
+    private List<Message> receive(String url, int maxMessages, ReceiveMessageRequest.Builder request) {
+        return sqs.receiveMessage(request.queueUrl(url).maxNumberOfMessages(maxMessages).waitTimeSeconds(0).build())
+                  .messages();
+    }
+
+    private static SqsBatchMessage fifo(String group, int value) {
+        return new SqsBatchMessage(value, Map.of(ATTRIBUTE_MESSAGE_GROUP_ID, group,
+                                                 ATTRIBUTE_MESSAGE_DEDUPLICATION_ID, "d" + value));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2011-2026 Lime Mojito Pty Ltd
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.limemojito.test.sqs;
+
+import com.limemojito.aws.sqs.SqsSender;
+import com.limemojito.json.JsonMapperPrototype;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqsSupportTest {
+    private final JsonMapper jsonMapper = JsonMapperPrototype.buildBootLikeMapper();
+    private final InMemorySqsClient sqs = new InMemorySqsClient();
+    private final SqsSender sender = new SqsSender(sqs, jsonMapper);
+    private final SqsSupport sqsSupport = new SqsSupport(sqs, sender, jsonMapper);
+    private String queueUrl;
+
+    @BeforeEach
+    void setUp() {
+        queueUrl = sqsSupport.create("orders");
+        final List<Object> messages = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            messages.add(i);
+        }
+        sender.sendBatch(queueUrl, messages);
+    }
+
+    @Test
+    public void shouldPurgeWithConcurrentWorkers() {
+        sqsSupport.purge("orders", 3);
+
+        assertThat(sqsSupport.getQueueCount("orders")).isZero();
+        assertThat(sqs.getQueueAttributes(r -> r.queueUrl(queueUrl).attributeNamesWithStrings(
+                "ApproximateNumberOfMessagesNotVisible")).attributesAsStrings()).containsEntry(
+                "ApproximateNumberOfMessagesNotVisible",
+                "0");
+    }
+
+    @Test
+    public void shouldDrainWithShortPollsAndConfirmEmptyWithOneLongPoll() {
+        final List<Integer> waits = new CopyOnWriteArrayList<>();
+        final InMemorySqsClient recording = new InMemorySqsClient() {
+            @Override
+            public ReceiveMessageResponse receiveMessage(ReceiveMessageRequest request) {
+                waits.add(request.waitTimeSeconds());
+                return super.receiveMessage(request);
+            }
+        };
+        final SqsSender recordingSender = new SqsSender(recording, jsonMapper);
+        final SqsSupport support = new SqsSupport(recording, recordingSender, jsonMapper);
+        final String url = support.create("small");
+        recordingSender.sendBatch(url, List.<Object>of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15));
+
+        support.purge("small", 1);
+
+        assertThat(support.getQueueCount("small")).isZero();
+        assertThat(waits).containsExactly(0, 0, 0, 1);
+    }
+
+    @Test
+    public void shouldPurgeEmptyQueueWithOneShortPoll() {
+        final List<Integer> waits = new CopyOnWriteArrayList<>();
+        final InMemorySqsClient recording = new InMemorySqsClient() {
+            @Override
+            public ReceiveMessageResponse receiveMessage(ReceiveMessageRequest request) {
+                waits.add(request.waitTimeSeconds());
+                return super.receiveMessage(request);
+            }
+        };
+        final SqsSupport support = new SqsSupport(recording, new SqsSender(recording, jsonMapper), jsonMapper);
+        support.create("empty");
+
+        support.purge("empty", 1);
+
+        assertThat(waits).containsExactly(0);
+    }
+
+    @Test
+    public void shouldPurgeWithPurgeQueue() {
+        sqsSupport.purgeQueue("orders");
+
+        assertThat(sqsSupport.getQueueCount("orders")).isZero();
+    }
+
+    @Test
+    public void shouldCollectMessagesInBatches() {
+        final List<Message> messages = sqsSupport.waitUntilMessageCountGreaterThan("orders", 5, 25);
+
+        assertThat(messages).hasSize(25);
+        assertThat(sqsSupport.getQueueCount("orders")).isEqualTo(225);
+    }
+}